@@ -18,11 +18,82 @@
  * along with this program. If not, see <https://www.gnu.org/licenses/>.
  */
 
+import groovy.json.JsonSlurper
+
 plugins {
     id("com.android.application")
     id("org.jetbrains.kotlin.android")
 }
 
+abstract class GenerateStationTablesTask : DefaultTask() {
+
+    @get:InputDirectory
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val stationsDir: DirectoryProperty
+
+    @get:OutputDirectory
+    abstract val outputDir: DirectoryProperty
+
+    private fun literal(value: String): String {
+        val builder = StringBuilder("\"")
+        for (c in value) {
+            when {
+                c == '"' || c == '\\' -> builder.append('\\').append(c)
+                c.code in 0x20..0x7E -> builder.append(c)
+                else -> builder.append(String.format("\\u%04x", c.code))
+            }
+        }
+        return builder.append('"').toString()
+    }
+
+    private fun StringBuilder.appendArray(type: String, name: String, values: List<String>) {
+        append("    static final ").append(type).append("[] ").append(name).append(" = {")
+        values.forEachIndexed { i, value ->
+            append(if (i % 4 == 0) "\n            " else " ").append(value).append(if (i < values.size - 1) "," else "")
+        }
+        append("\n    };\n")
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun StringBuilder.appendFeatures(prefix: String, file: File) {
+        val features = (JsonSlurper().parse(file) as Map<String, Any>)["features"] as List<Map<String, Any>>
+        val properties = features.map { it["properties"] as Map<String, Any> }
+        val coordinates = features.map { ((it["geometry"] as Map<String, Any>)["coordinates"] as List<Number>) }
+        appendArray("String", prefix + "_NAMES_EN", properties.map { literal(it["AutomaticWeatherStation_en"].toString()) })
+        appendArray("String", prefix + "_NAMES_UC", properties.map { literal(it["AutomaticWeatherStation_uc"].toString()) })
+        appendArray("double", prefix + "_LATITUDES", coordinates.map { it[1].toString() })
+        appendArray("double", prefix + "_LONGITUDES", coordinates.map { it[0].toString() })
+        append("\n")
+    }
+
+    @TaskAction
+    @Suppress("UNCHECKED_CAST")
+    fun generate() {
+        val dir = stationsDir.get().asFile
+        val builder = StringBuilder()
+        builder.append("package com.loohp.hkweatherwarnings.shared;\n\n")
+        builder.append("// Generated by the generateStationTables task from src/main/stations, do not edit.\n")
+        builder.append("final class StationTables {\n\n")
+        builder.appendFeatures("TEMPERATURE", File(dir, "latest_1min_temperature.json"))
+        builder.appendFeatures("HUMIDITY", File(dir, "latest_1min_humidity.json"))
+        builder.appendFeatures("WIND", File(dir, "latest_10min_wind.json"))
+        val forecastStations = (JsonSlurper().parse(File(dir, "forecast_stations.json")) as Map<String, Any>)["stations"] as Map<String, List<Number>>
+        builder.appendArray("String", "FORECAST_IDS", forecastStations.keys.map { literal(it) })
+        builder.appendArray("double", "FORECAST_LATITUDES", forecastStations.values.map { it[0].toString() })
+        builder.appendArray("double", "FORECAST_LONGITUDES", forecastStations.values.map { it[1].toString() })
+        builder.append("\n    private StationTables() {\n    }\n\n}\n")
+
+        val output = outputDir.get().file("com/loohp/hkweatherwarnings/shared/StationTables.java").asFile
+        output.parentFile.mkdirs()
+        output.writeText(builder.toString(), Charsets.UTF_8)
+    }
+}
+
+val generateStationTables = tasks.register<GenerateStationTablesTask>("generateStationTables") {
+    stationsDir.set(layout.projectDirectory.dir("src/main/stations"))
+    outputDir.set(layout.buildDirectory.dir("generated/source/stations"))
+}
+
 android {
     namespace = "com.loohp.hkweatherwarnings"
     compileSdk = 34
@@ -70,6 +141,17 @@ android {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
         }
     }
+    testOptions {
+        unitTests {
+            isReturnDefaultValues = true
+        }
+    }
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.java?.addGeneratedSourceDirectory(generateStationTables, GenerateStationTablesTask::outputDir)
+    }
 }
 
 dependencies {
@@ -104,9 +186,11 @@ dependencies {
     implementation("androidx.work:work-runtime-ktx:2.9.1")
     implementation("androidx.wear.watchface:watchface-complications-data-source-ktx:1.2.1")
     implementation("io.coil-kt:coil-compose:2.5.0")
+    implementation("com.squareup.okhttp3:okhttp:4.12.0")
     implementation("me.saket.telephoto:zoomable:0.9.0")
     implementation(platform("com.google.firebase:firebase-bom:33.1.2"))
     implementation("com.google.firebase:firebase-analytics")
+    testImplementation("junit:junit:4.13.2")
     androidTestImplementation(platform("androidx.compose:compose-bom:2024.06.00"))
     androidTestImplementation("androidx.compose.ui:ui-test-junit4")
     debugImplementation("androidx.compose.ui:ui-tooling")
@@ -102,6 +102,11 @@ class ChangeLocationActivity : ComponentActivity() {
         }
     }
 
+    override fun onStop() {
+        super.onStop()
+        Registry.getInstance(this).flushPreferences()
+    }
+
 }
 
 @Composable
@@ -336,12 +341,12 @@ fun MainElements(instance: ChangeLocationActivity) {
                             }
                         )
                     }
-                    val stations = Registry.getInstance(instance).weatherStations.sortedBy { -it.optJSONObject("geometry")!!.optJSONArray("coordinates")!!.optDouble(1) }
-                    for (station in stations) {
-                        val properties = station.optJSONObject("properties")!!
-                        val name = properties.optString("AutomaticWeatherStation_".plus(if (Registry.getInstance(instance).language == "en") "en" else "uc"))
-                        val coordinates = station.optJSONObject("geometry")!!.optJSONArray("coordinates")!!
-                        val location = LocationResult.fromLatLng(coordinates.optDouble(1), coordinates.optDouble(0)).location
+                    val weatherStations = Registry.getInstance(instance).weatherStations
+                    val stations = (0 until weatherStations.size()).sortedBy { -weatherStations.getLatitude(it) }
+                    for (index in stations) {
+                        val station = weatherStations.getStation(index)
+                        val name = station.getName(if (Registry.getInstance(instance).language == "en") "en" else "uc")
+                        val location = LocationResult.fromLatLng(weatherStations.getLatitude(index), weatherStations.getLongitude(index)).location
                         item {
                             Spacer(modifier = Modifier.size(StringUtils.scaledSize(7, instance).dp))
                         }
@@ -349,7 +354,7 @@ fun MainElements(instance: ChangeLocationActivity) {
                             Button(
                                 onClick = {
                                     Firebase.analytics.logEvent("set_weather_location", Bundle().apply {
-                                        putString("value", properties.optString("AutomaticWeatherStation_en"))
+                                        putString("value", station.nameEn)
                                     })
                                     Registry.getInstance(instance).setLocation(location, instance)
                                     Shared.currentWeatherInfo.reset(instance)
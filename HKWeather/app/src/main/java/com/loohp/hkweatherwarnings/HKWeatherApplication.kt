@@ -0,0 +1,66 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings
+
+import android.app.Application
+import com.loohp.hkweatherwarnings.background.RefreshScheduler
+import com.loohp.hkweatherwarnings.shared.Registry
+import com.loohp.hkweatherwarnings.shared.Shared
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.launch
+
+
+class HKWeatherApplication : Application() {
+
+    private val applicationScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    override fun onCreate() {
+        super.onCreate()
+        val init = Registry.init(this)
+        Shared.initializeDataStates(this)
+        RefreshScheduler.registerScreenStateReceiver(this)
+        applicationScope.launch {
+            val registry = try {
+                init.await()
+            } catch (e: Exception) {
+                e.printStackTrace()
+                return@launch
+            }
+            launch {
+                registry.preferences.map { it.refreshRate }.distinctUntilChanged().drop(1).collect {
+                    Shared.startBackgroundService(this@HKWeatherApplication, true)
+                }
+            }
+            launch {
+                registry.preferences.map { Triple(it.language, it.locationType, it.latitude to it.longitude) }.distinctUntilChanged().drop(1).collect {
+                    registry.updateTileServices(this@HKWeatherApplication)
+                }
+            }
+        }
+    }
+
+}
@@ -27,18 +27,21 @@ import androidx.activity.compose.setContent
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.Stable
 import androidx.core.splashscreen.SplashScreen.Companion.installSplashScreen
+import com.loohp.hkweatherwarnings.shared.Registry
 import com.loohp.hkweatherwarnings.shared.Shared
+import kotlinx.coroutines.future.await
 
 
 @Stable
 class MainActivity : ComponentActivity() {
 
     override fun onCreate(savedInstanceState: Bundle?) {
-        installSplashScreen()
+        installSplashScreen().setKeepOnScreenCondition { !Registry.isReady() }
         super.onCreate(savedInstanceState)
-        Shared.startBackgroundService(this)
         setContent {
             LaunchedEffect (Unit) {
+                Registry.init(this@MainActivity).await()
+                Shared.startBackgroundService(this@MainActivity)
                 val launchIntent = Intent(this@MainActivity, TitleActivity::class.java)
                 if (intent.extras != null && intent.extras!!.containsKey("launchSection")) {
                     launchIntent.putExtra("launchSection", intent.extras!!.getString("launchSection"))
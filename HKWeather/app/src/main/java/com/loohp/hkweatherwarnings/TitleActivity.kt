@@ -181,6 +181,11 @@ class TitleActivity : ComponentActivity() {
         handleCreate(intent)
     }
 
+    override fun onStop() {
+        super.onStop()
+        Registry.getInstance(this).flushPreferences()
+    }
+
     private fun handleCreate(intent: Intent) {
         var launchSection: Section? = null
         if (intent.extras != null && intent.extras!!.containsKey("launchSection")) {
@@ -212,7 +217,7 @@ fun MainElements(todayState: State<LocalDate>, launchSection: Section? = null, i
     val weatherInfo by remember { Shared.currentWeatherInfo.getState(instance) }.collectAsStateWithLifecycle()
     val weatherWarnings by remember { Shared.currentWarnings.getState(instance) }.collectAsStateWithLifecycle()
     val weatherTips by remember { Shared.currentTips.getState(instance) }.collectAsStateWithLifecycle()
-    val lunarDate by remember { Shared.convertedLunarDates.getValueState(today) }.collectAsStateWithLifecycle()
+    val lunarDate by Shared.convertedLunarDates.getValueState(today).collectAsStateWithLifecycle()
 
     val weatherInfoUpdating by remember { Shared.currentWeatherInfo.getCurrentlyUpdatingState(instance) }.collectAsStateWithLifecycle()
     val weatherWarningsUpdating by remember { Shared.currentWarnings.getCurrentlyUpdatingState(instance) }.collectAsStateWithLifecycle()
@@ -269,7 +274,7 @@ fun MainElements(todayState: State<LocalDate>, launchSection: Section? = null, i
             }
         }
         LaunchedEffect (weatherInfo) {
-            val url = "https://pda.weather.gov.hk/locspc/android_data/img/moonphase.jpg?t=".plus(Shared.currentWeatherInfo.getLastSuccessfulUpdateTime(instance))
+            val url = "https://pda.weather.gov.hk/locspc/android_data/img/moonphase.jpg?t=".plus(Shared.currentWeatherInfo.getLastSuccessfulUpdateTimeState(instance).value)
             moonPhaseUrl = url
             instance.imageLoader.execute(ImageRequest.Builder(instance).data(url).build())
         }
@@ -453,9 +458,9 @@ fun UpdateFailedElements(instance: TitleActivity) {
                 Shared.currentWeatherInfo.reset(instance)
                 Shared.currentWarnings.reset(instance)
                 Shared.currentTips.reset(instance)
-                Shared.currentWeatherInfo.getLatestValue(instance, ForkJoinPool.commonPool(), true)
-                Shared.currentWarnings.getLatestValue(instance, ForkJoinPool.commonPool(), true)
-                Shared.currentTips.getLatestValue(instance, ForkJoinPool.commonPool(), true)
+                Shared.currentWeatherInfo.getLatestValue(instance, ForkJoinPool.commonPool(), true, supersede = true)
+                Shared.currentWarnings.getLatestValue(instance, ForkJoinPool.commonPool(), true, supersede = true)
+                Shared.currentTips.getLatestValue(instance, ForkJoinPool.commonPool(), true, supersede = true)
             },
             modifier = Modifier
                 .width(StringUtils.scaledSize(90, instance).dp)
@@ -679,7 +684,7 @@ fun generateWeatherInfoItems(updating: Boolean, combinedUpdating: Boolean, lastU
                         horizontalArrangement = Arrangement.Center
                     ) {
                         var lastUpdateText = (if (Registry.getInstance(instance).language == "en") "Updated: " else "更新時間: ").plus(
-                            DateFormat.getTimeFormat(instance).timeZone(Shared.HK_TIMEZONE).format(Date(Shared.currentWeatherInfo.getLastSuccessfulUpdateTime(instance))))
+                            DateFormat.getTimeFormat(instance).timeZone(Shared.HK_TIMEZONE).format(Date(Shared.currentWeatherInfo.getLastSuccessfulUpdateTimeState(instance).value)))
                         if (!lastUpdateSuccessful && !combinedUpdating) {
                             lastUpdateText = lastUpdateText.plus(if (Registry.getInstance(instance).language == "en") " (Update Failed)" else " (無法更新)")
                         }
@@ -698,17 +703,20 @@ fun generateWeatherInfoItems(updating: Boolean, combinedUpdating: Boolean, lastU
                                         Shared.currentWeatherInfo.getLatestValue(
                                             instance,
                                             ForkJoinPool.commonPool(),
-                                            true
+                                            true,
+                                            supersede = true
                                         )
                                         Shared.currentWarnings.getLatestValue(
                                             instance,
                                             ForkJoinPool.commonPool(),
-                                            true
+                                            true,
+                                            supersede = true
                                         )
                                         Shared.currentTips.getLatestValue(
                                             instance,
                                             ForkJoinPool.commonPool(),
-                                            true
+                                            true,
+                                            supersede = true
                                         )
                                     },
                                     onLongClick = {
@@ -719,17 +727,20 @@ fun generateWeatherInfoItems(updating: Boolean, combinedUpdating: Boolean, lastU
                                         Shared.currentWeatherInfo.getLatestValue(
                                             instance,
                                             ForkJoinPool.commonPool(),
-                                            true
+                                            true,
+                                            supersede = true
                                         )
                                         Shared.currentWarnings.getLatestValue(
                                             instance,
                                             ForkJoinPool.commonPool(),
-                                            true
+                                            true,
+                                            supersede = true
                                         )
                                         Shared.currentTips.getLatestValue(
                                             instance,
                                             ForkJoinPool.commonPool(),
-                                            true
+                                            true,
+                                            supersede = true
                                         )
                                     }
                                 ),
@@ -2406,9 +2417,9 @@ fun UpdateTilesButton(updating: Boolean, instance: TitleActivity) {
             Shared.currentWeatherInfo.reset(instance)
             Shared.currentWarnings.reset(instance)
             Shared.currentTips.reset(instance)
-            Shared.currentWeatherInfo.getLatestValue(instance, ForkJoinPool.commonPool(), true)
-            Shared.currentWarnings.getLatestValue(instance, ForkJoinPool.commonPool(), true)
-            Shared.currentTips.getLatestValue(instance, ForkJoinPool.commonPool(), true)
+            Shared.currentWeatherInfo.getLatestValue(instance, ForkJoinPool.commonPool(), true, supersede = true)
+            Shared.currentWarnings.getLatestValue(instance, ForkJoinPool.commonPool(), true, supersede = true)
+            Shared.currentTips.getLatestValue(instance, ForkJoinPool.commonPool(), true, supersede = true)
             instance.runOnUiThread {
                 Toast.makeText(instance, if (Registry.getInstance(instance).language == "en") "Refreshing..." else "正在更新...", Toast.LENGTH_SHORT).show()
             }
@@ -21,27 +21,123 @@
 package com.loohp.hkweatherwarnings.background
 
 import android.content.Context
-import androidx.work.ListenableWorker
+import androidx.work.CoroutineWorker
+import androidx.work.Data
+import androidx.work.ExistingWorkPolicy
 import androidx.work.WorkerParameters
-import com.google.common.util.concurrent.Futures
-import com.google.common.util.concurrent.ListenableFuture
+import com.loohp.hkweatherwarnings.cache.CacheWriter
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Shared
-import java.util.concurrent.Callable
-import java.util.concurrent.ForkJoinPool
-
-class PeriodicUpdateWorker(private val context: Context, workerParams: WorkerParameters) : ListenableWorker(context, workerParams) {
-
-    override fun startWork(): ListenableFuture<Result> {
-        @Suppress("UnstableApiUsage")
-        return Futures.submit(Callable {
-            val futures = listOf(
-                Shared.currentWeatherInfo.getLatestValue(context, ForkJoinPool.commonPool(), true),
-                Shared.currentWarnings.getLatestValue(context, ForkJoinPool.commonPool(), true),
-                Shared.currentTips.getLatestValue(context, ForkJoinPool.commonPool(), true)
-            )
-            futures.forEach { try { it.get() } catch (e: Exception) { e.printStackTrace() } }
-            Result.success()
-        }, ForkJoinPool.commonPool())
+import com.loohp.hkweatherwarnings.utils.HTTPRequestUtils
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.TimeoutCancellationException
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeout
+import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class PeriodicUpdateWorker(private val context: Context, workerParams: WorkerParameters) : CoroutineWorker(context, workerParams) {
+
+    companion object {
+
+        const val OUTPUT_DURATION = "duration_ms"
+        const val OUTPUT_BYTES = "bytes"
+        const val OUTPUT_SKIPPED = "skipped"
+        const val OUTPUT_NEXT_DELAY = "next_delay_ms"
+        const val OUTPUT_FETCHES_SAVED = "fetches_saved"
+
+        private const val CACHE_FLUSH_TIMEOUT = 10000L
+        private const val RESCHEDULE_FALLBACK_DELAY = 900000L
+
+        private val THREAD_COUNTER = AtomicInteger()
+        private val REFRESH_EXECUTOR: ExecutorService = ThreadPoolExecutor(3, 3, 30, TimeUnit.SECONDS, LinkedBlockingQueue()) {
+            Thread(it, "HKWeather-Refresh-" + THREAD_COUNTER.incrementAndGet()).apply { isDaemon = true }
+        }.apply { allowCoreThreadTimeOut(true) }
+
+        @OptIn(ExperimentalCoroutinesApi::class)
+        private val WORKER_DISPATCHER = Dispatchers.IO.limitedParallelism(2)
+
+    }
+
+    override suspend fun doWork(): Result = withContext(WORKER_DISPATCHER) {
+        var nextDelay = RESCHEDULE_FALLBACK_DELAY
+        try {
+            val start = System.currentTimeMillis()
+            val bytesBefore = HTTPRequestUtils.getConnectionStats().bytesReceived
+            RefreshScheduler.Source.values().map { it.state.initialize(context) }.forEach { it.awaitShared() }
+            val level = RefreshScheduler.getWarningLevel(context)
+            val due = RefreshScheduler.Source.values().filter { RefreshScheduler.isDue(context, it, level, start) }
+            val outcomes = due.map { async { it to refresh(it) } }.awaitAll()
+            val now = System.currentTimeMillis()
+            nextDelay = RefreshScheduler.getNextDelay(context, now, outcomes.filter { it.second != "success" }.map { it.first })
+            val fetchesSaved = RefreshScheduler.recordFetches(context, due.size, now)
+            withTimeoutOrNull(CACHE_FLUSH_TIMEOUT) { CacheWriter.flush().await() }
+            val output = Data.Builder()
+                .putLong(OUTPUT_DURATION, now - start)
+                .putLong(OUTPUT_BYTES, HTTPRequestUtils.getConnectionStats().bytesReceived - bytesBefore)
+                .putInt(OUTPUT_SKIPPED, RefreshScheduler.Source.values().size - due.size)
+                .putLong(OUTPUT_NEXT_DELAY, nextDelay)
+                .putLong(OUTPUT_FETCHES_SAVED, fetchesSaved)
+            for ((source, outcome) in outcomes) {
+                output.putString(source.sourceName, outcome)
+            }
+            Result.success(output.build())
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            e.printStackTrace()
+            // A failed result would also fail the next run appended to this unique work chain
+            Result.success(Data.Builder().putLong(OUTPUT_NEXT_DELAY, nextDelay).build())
+        } finally {
+            if (!isStopped) {
+                reschedule(nextDelay)
+            }
+        }
+    }
+
+    private fun reschedule(delay: Long) {
+        try {
+            if (Shared.REFRESH_INTERVAL.invoke(context) < Shared.NEVER_REFRESH_INTERVAL) {
+                RefreshScheduler.schedule(context, delay, ExistingWorkPolicy.APPEND_OR_REPLACE)
+            }
+        } catch (e: Exception) {
+            e.printStackTrace()
+            RefreshScheduler.schedule(context, delay, ExistingWorkPolicy.APPEND_OR_REPLACE)
+        }
+    }
+
+    private suspend fun CompletableFuture<*>.awaitShared() {
+        whenComplete { _, _ -> }.await()
+    }
+
+    private suspend fun refresh(source: RefreshScheduler.Source): String {
+        val state = source.state
+        val future = state.getLatestValue(context, REFRESH_EXECUTOR, true, FetchPriority.BACKGROUND)
+        return try {
+            withTimeout(source.timeout) {
+                (future as CompletableFuture<*>).awaitShared()
+            }
+            if (state.isLastUpdateSuccess(context)) "success" else "failed"
+        } catch (e: TimeoutCancellationException) {
+            state.cancelUpdate(future)
+            "timeout"
+        } catch (e: CancellationException) {
+            state.cancelUpdate(future)
+            throw e
+        } catch (e: Exception) {
+            e.printStackTrace()
+            "error"
+        }
     }
 
-}
\ No newline at end of file
+}
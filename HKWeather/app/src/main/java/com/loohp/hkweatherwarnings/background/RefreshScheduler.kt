@@ -0,0 +1,231 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.background
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.os.BatteryManager
+import android.os.Bundle
+import android.os.PowerManager
+import androidx.work.Constraints
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import com.google.firebase.analytics.FirebaseAnalytics
+import com.loohp.hkweatherwarnings.cache.CacheFile
+import com.loohp.hkweatherwarnings.cache.CacheSnapshot
+import com.loohp.hkweatherwarnings.cache.CacheWriter
+import com.loohp.hkweatherwarnings.shared.DataState
+import com.loohp.hkweatherwarnings.shared.Shared
+import com.loohp.hkweatherwarnings.weather.WeatherWarningsCategory
+import com.loohp.hkweatherwarnings.weather.WeatherWarningsType
+import java.time.Instant
+import java.time.ZoneId
+import java.util.EnumSet
+import java.util.concurrent.TimeUnit
+import kotlin.math.max
+import kotlin.math.min
+
+object RefreshScheduler {
+
+    const val WORK_NAME = "HK_WEATHER_BG_REFRESH"
+
+    private const val DAY = 86400000L
+    private const val MIN_DELAY = 60000L
+    private const val DUE_TOLERANCE = 60000L
+    private const val MAX_IDLE_INTERVAL = 14400000L
+    private const val SCREEN_IDLE_TIME = 3600000L
+    private const val LOW_BATTERY_PERCENTAGE = 20
+    private const val QUIET_HOURS_END = 6
+
+    private val HK_ZONE: ZoneId = Shared.HK_TIMEZONE.toZoneId()
+
+    enum class Source(val sourceName: String, val timeout: Long, val publishInterval: Long, val activeInterval: Long, val severeInterval: Long) {
+
+        WEATHER("weather", 90000, 600000, 900000, 600000),
+        WARNINGS("warnings", 30000, 300000, 600000, 300000),
+        TIPS("tips", 45000, 900000, 1800000, 900000);
+
+        val state: DataState<*> get() = when (this) {
+            WEATHER -> Shared.currentWeatherInfo
+            WARNINGS -> Shared.currentWarnings
+            TIPS -> Shared.currentTips
+        }
+
+    }
+
+    enum class WarningLevel {
+
+        NONE, ACTIVE, SEVERE;
+
+        companion object {
+
+            private val FAST_MOVING_CATEGORIES: Set<WeatherWarningsCategory> = EnumSet.of(
+                WeatherWarningsCategory.WTCSGNL,
+                WeatherWarningsCategory.WRAIN,
+                WeatherWarningsCategory.WTS,
+                WeatherWarningsCategory.WFNTSA,
+                WeatherWarningsCategory.WL,
+                WeatherWarningsCategory.WMSGNL,
+                WeatherWarningsCategory.WTMW
+            )
+
+            fun of(warnings: Map<WeatherWarningsType, *>): WarningLevel {
+                return when {
+                    warnings.keys.any { it.isOnOrAboveTyphoonSignalEight || it == WeatherWarningsType.WRAINB } -> SEVERE
+                    warnings.keys.any { FAST_MOVING_CATEGORIES.contains(it.category) } -> ACTIVE
+                    else -> NONE
+                }
+            }
+
+        }
+
+    }
+
+    private data class RefreshStats(val day: Long, val fetches: Int)
+
+    private val STATS_CACHE: CacheFile<RefreshStats> = CacheFile("refresh_stats", 1, { out, value ->
+        out.writeLong(value.day)
+        out.writeInt(value.fetches)
+    }, {
+        RefreshStats(it.readLong(), it.readInt())
+    }, null, null)
+
+    @Volatile
+    private var screenOffTime = -1L
+
+    private val SCREEN_STATE_RECEIVER = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            when (intent.action) {
+                Intent.ACTION_SCREEN_ON -> onScreenStateChanged(true)
+                Intent.ACTION_SCREEN_OFF -> onScreenStateChanged(false)
+            }
+        }
+    }
+
+    fun registerScreenStateReceiver(context: Context) {
+        val appContext = context.applicationContext
+        onScreenStateChanged((appContext.getSystemService(Context.POWER_SERVICE) as PowerManager).isInteractive)
+        appContext.registerReceiver(SCREEN_STATE_RECEIVER, IntentFilter().apply {
+            addAction(Intent.ACTION_SCREEN_ON)
+            addAction(Intent.ACTION_SCREEN_OFF)
+        })
+    }
+
+    fun onScreenStateChanged(interactive: Boolean) {
+        screenOffTime = if (interactive) 0 else System.currentTimeMillis()
+    }
+
+    private fun isScreenIdle(context: Context, now: Long): Boolean {
+        val offTime = screenOffTime
+        return when {
+            offTime > 0 -> now - offTime >= SCREEN_IDLE_TIME
+            offTime == 0L -> false
+            else -> !(context.getSystemService(Context.POWER_SERVICE) as PowerManager).isInteractive
+        }
+    }
+
+    private fun isQuietHours(now: Long): Boolean {
+        return Instant.ofEpochMilli(now).atZone(HK_ZONE).hour < QUIET_HOURS_END
+    }
+
+    private fun isLowBattery(context: Context): Boolean {
+        val batteryManager = context.getSystemService(Context.BATTERY_SERVICE) as BatteryManager
+        return !batteryManager.isCharging && batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY) in 0 until LOW_BATTERY_PERCENTAGE
+    }
+
+    fun getWarningLevel(context: Context): WarningLevel {
+        return WarningLevel.of(Shared.currentWarnings.getCachedValue(context))
+    }
+
+    fun getInterval(context: Context, source: Source, level: WarningLevel, now: Long): Long {
+        val base = Shared.REFRESH_INTERVAL.invoke(context)
+        if (base >= Shared.NEVER_REFRESH_INTERVAL) {
+            return base
+        }
+        val interval = when (level) {
+            WarningLevel.SEVERE -> min(base, source.severeInterval)
+            WarningLevel.ACTIVE -> min(base, source.activeInterval)
+            WarningLevel.NONE -> {
+                var idleInterval = base
+                if (isQuietHours(now) || isScreenIdle(context, now)) {
+                    idleInterval *= 2
+                }
+                if (isLowBattery(context)) {
+                    idleInterval *= 2
+                }
+                min(idleInterval, max(base, MAX_IDLE_INTERVAL))
+            }
+        }
+        return max(interval, source.publishInterval)
+    }
+
+    fun isDue(context: Context, source: Source, level: WarningLevel, now: Long): Boolean {
+        return now + DUE_TOLERANCE >= source.state.getLastSuccessfulUpdateTime(context) + getInterval(context, source, level, now)
+    }
+
+    fun getNextDelay(context: Context, now: Long, retrying: Collection<Source>): Long {
+        val level = getWarningLevel(context)
+        val remaining = Source.values().minOf {
+            val interval = getInterval(context, it, level, now)
+            if (it in retrying) interval / 2 else interval - (now - it.state.getLastSuccessfulUpdateTime(context))
+        }
+        return max(remaining, MIN_DELAY)
+    }
+
+    fun schedule(context: Context, delay: Long, policy: ExistingWorkPolicy) {
+        val request = OneTimeWorkRequestBuilder<PeriodicUpdateWorker>()
+            .setInitialDelay(delay, TimeUnit.MILLISECONDS)
+            .setConstraints(Constraints(requiredNetworkType = NetworkType.CONNECTED))
+            .build()
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, policy, request)
+    }
+
+    fun cancel(context: Context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME)
+    }
+
+    @Synchronized
+    fun recordFetches(context: Context, fetches: Int, now: Long): Long {
+        val base = Shared.REFRESH_INTERVAL.invoke(context)
+        val date = Instant.ofEpochMilli(now).atZone(HK_ZONE).toLocalDate()
+        val day = date.toEpochDay()
+        val previous = STATS_CACHE.read(context)?.value
+        if (previous != null && previous.day != day) {
+            FirebaseAnalytics.getInstance(context).logEvent("refresh_fetches_saved", Bundle().apply {
+                putLong("value", getFixedScheduleFetches(DAY, base) - previous.fetches)
+                putLong("fetches", previous.fetches.toLong())
+            })
+        }
+        val stats = RefreshStats(day, (if (previous != null && previous.day == day) previous.fetches else 0) + fetches)
+        CacheWriter.write(context, STATS_CACHE, CacheSnapshot(stats, now, true))
+        val elapsed = now - date.atStartOfDay(HK_ZONE).toInstant().toEpochMilli()
+        return getFixedScheduleFetches(elapsed, base) - stats.fetches
+    }
+
+    private fun getFixedScheduleFetches(duration: Long, interval: Long): Long {
+        return Source.values().size * (duration / interval)
+    }
+
+}
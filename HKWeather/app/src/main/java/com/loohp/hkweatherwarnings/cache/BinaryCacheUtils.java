@@ -0,0 +1,82 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+public class BinaryCacheUtils {
+
+    private static final int NULL_TIME = -1;
+    private static final long NULL_DATE_TIME = Long.MIN_VALUE;
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+        writeString(out, value == null ? null : value.name());
+    }
+
+    public static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type) throws IOException {
+        String name = readString(in);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    public static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeInt((int) date.toEpochDay());
+    }
+
+    public static LocalDate readDate(DataInputStream in) throws IOException {
+        return LocalDate.ofEpochDay(in.readInt());
+    }
+
+    public static void writeTime(DataOutputStream out, LocalTime time) throws IOException {
+        out.writeShort(time == null ? NULL_TIME : time.getHour() * 60 + time.getMinute());
+    }
+
+    public static LocalTime readTime(DataInputStream in) throws IOException {
+        int minutes = in.readShort();
+        return minutes == NULL_TIME ? null : LocalTime.of(minutes / 60, minutes % 60);
+    }
+
+    public static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime == null ? NULL_DATE_TIME : dateTime.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    public static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long epochSecond = in.readLong();
+        return epochSecond == NULL_DATE_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+}
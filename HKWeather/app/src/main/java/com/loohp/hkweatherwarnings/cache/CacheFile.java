@@ -0,0 +1,181 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.cache;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.AtomicFile;
+
+import com.google.firebase.analytics.FirebaseAnalytics;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class CacheFile<T> {
+
+    public static final int MAGIC = 0x484B5743;
+
+    public interface Encoder<T> {
+
+        void write(DataOutputStream out, T value) throws IOException;
+
+    }
+
+    public interface Decoder<T> {
+
+        T read(DataInputStream in) throws IOException;
+
+    }
+
+    public interface LegacyDecoder<T> {
+
+        CacheSnapshot<T> read(JSONObject json) throws Exception;
+
+    }
+
+    private final String name;
+    private final String fileName;
+    private final String legacyFileName;
+    private final int version;
+    private final Encoder<T> encoder;
+    private final Decoder<T> decoder;
+    private final LegacyDecoder<T> legacyDecoder;
+
+    public CacheFile(String name, int version, Encoder<T> encoder, Decoder<T> decoder, String legacyFileName, LegacyDecoder<T> legacyDecoder) {
+        this.name = name;
+        this.fileName = name + ".bin";
+        this.legacyFileName = legacyFileName;
+        this.version = version;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.legacyDecoder = legacyDecoder;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getApplicationContext().getFilesDir(), fileName));
+    }
+
+    public CacheSnapshot<T> read(Context context) {
+        AtomicFile file = getFile(context);
+        try {
+            long start = System.nanoTime();
+            byte[] data = file.readFully();
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != MAGIC || in.readInt() != version) {
+                throw new IOException("Unsupported cache format in " + fileName);
+            }
+            long updateTime = in.readLong();
+            boolean updateSuccessful = in.readBoolean();
+            T value = in.readBoolean() ? decoder.read(in) : null;
+            logCacheRead(context, (System.nanoTime() - start) / 1000, data.length);
+            return new CacheSnapshot<>(value, updateTime, updateSuccessful);
+        } catch (FileNotFoundException e) {
+            return migrate(context);
+        } catch (Exception e) {
+            e.printStackTrace();
+            file.delete();
+            return null;
+        }
+    }
+
+    private CacheSnapshot<T> migrate(Context context) {
+        if (legacyFileName == null) {
+            return null;
+        }
+        File legacyFile = new File(context.getApplicationContext().getFilesDir(), legacyFileName);
+        if (!legacyFile.exists()) {
+            return null;
+        }
+        try {
+            CacheSnapshot<T> snapshot = legacyDecoder.read(new JSONObject(new String(Files.readAllBytes(legacyFile.toPath()), StandardCharsets.UTF_8)));
+            write(context, snapshot);
+            return snapshot;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            legacyFile.delete();
+        }
+    }
+
+    public byte[] encode(CacheSnapshot<T> snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(version);
+        out.writeLong(snapshot.getUpdateTime());
+        out.writeBoolean(snapshot.isUpdateSuccessful());
+        T value = snapshot.getValue();
+        out.writeBoolean(value != null);
+        if (value != null) {
+            encoder.write(out, value);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public int write(Context context, CacheSnapshot<T> snapshot) throws IOException {
+        byte[] data = encode(snapshot);
+        AtomicFile file = getFile(context);
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+            return data.length;
+        } catch (IOException e) {
+            if (out != null) {
+                file.failWrite(out);
+            }
+            throw e;
+        }
+    }
+
+    public void delete(Context context) {
+        getFile(context).delete();
+        if (legacyFileName != null) {
+            context.getApplicationContext().deleteFile(legacyFileName);
+        }
+    }
+
+    private void logCacheRead(Context context, long micros, int bytes) {
+        Bundle bundle = new Bundle();
+        bundle.putString("cache", name);
+        bundle.putLong("value", micros);
+        bundle.putLong("bytes", bytes);
+        FirebaseAnalytics.getInstance(context).logEvent("cache_decode_us", bundle);
+    }
+
+}
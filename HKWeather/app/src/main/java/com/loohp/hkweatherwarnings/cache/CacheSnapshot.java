@@ -0,0 +1,49 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.cache;
+
+import androidx.compose.runtime.Immutable;
+
+@Immutable
+public class CacheSnapshot<T> {
+
+    private final T value;
+    private final long updateTime;
+    private final boolean updateSuccessful;
+
+    public CacheSnapshot(T value, long updateTime, boolean updateSuccessful) {
+        this.value = value;
+        this.updateTime = updateTime;
+        this.updateSuccessful = updateSuccessful;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public boolean isUpdateSuccessful() {
+        return updateSuccessful;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.cache;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.google.firebase.analytics.FirebaseAnalytics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CacheWriter {
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Cache-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, PendingWrite<?>> PENDING = new ConcurrentHashMap<>();
+
+    public static <T> void write(Context context, CacheFile<T> cache, CacheSnapshot<T> snapshot) {
+        enqueue(new PendingWrite<>(context.getApplicationContext(), cache, snapshot));
+    }
+
+    public static <T> void delete(Context context, CacheFile<T> cache) {
+        enqueue(new PendingWrite<>(context.getApplicationContext(), cache, null));
+    }
+
+    public static CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(() -> {}, WRITER);
+    }
+
+    private static void enqueue(PendingWrite<?> write) {
+        String name = write.cache.getName();
+        PendingWrite<?> previous = PENDING.put(name, write);
+        if (previous == null) {
+            WRITER.execute(() -> drain(name));
+        } else {
+            write.coalesced = previous.coalesced + 1;
+        }
+    }
+
+    private static void drain(String name) {
+        PendingWrite<?> write = PENDING.remove(name);
+        if (write != null) {
+            write.run();
+        }
+    }
+
+    private static class PendingWrite<T> {
+
+        private final Context context;
+        private final CacheFile<T> cache;
+        private final CacheSnapshot<T> snapshot;
+        private volatile int coalesced;
+
+        private PendingWrite(Context context, CacheFile<T> cache, CacheSnapshot<T> snapshot) {
+            this.context = context;
+            this.cache = cache;
+            this.snapshot = snapshot;
+            this.coalesced = 0;
+        }
+
+        private void run() {
+            if (snapshot == null) {
+                cache.delete(context);
+                return;
+            }
+            try {
+                long start = System.nanoTime();
+                int bytes = cache.write(context, snapshot);
+                long micros = (System.nanoTime() - start) / 1000;
+                Bundle bundle = new Bundle();
+                bundle.putString("cache", cache.getName());
+                bundle.putLong("value", micros);
+                bundle.putLong("bytes", bytes);
+                bundle.putLong("coalesced", coalesced);
+                FirebaseAnalytics.getInstance(context).logEvent("cache_write_us", bundle);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.cache;
+
+import androidx.compose.runtime.Immutable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@Immutable
+public class LazySection<T> {
+
+    public static <T> LazySection<T> of(T value) {
+        return new LazySection<>(value, null, null);
+    }
+
+    public static <T> LazySection<T> decode(byte[] data, CacheFile.Decoder<T> decoder) {
+        return new LazySection<>(null, data, decoder);
+    }
+
+    private volatile T value;
+    private volatile byte[] data;
+    private final CacheFile.Decoder<T> decoder;
+
+    private LazySection(T value, byte[] data, CacheFile.Decoder<T> decoder) {
+        this.value = value;
+        this.data = data;
+        this.decoder = decoder;
+    }
+
+    public boolean isDecoded() {
+        return data == null;
+    }
+
+    public T get() {
+        if (data == null) {
+            return value;
+        }
+        synchronized (this) {
+            byte[] data = this.data;
+            if (data == null) {
+                return value;
+            }
+            try {
+                value = decoder.read(new DataInputStream(new ByteArrayInputStream(data)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.data = null;
+            return value;
+        }
+    }
+
+    public byte[] encode(CacheFile.Encoder<T> encoder) throws IOException {
+        byte[] data = this.data;
+        if (data != null) {
+            return data;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        encoder.write(out, get());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+}
@@ -36,6 +36,7 @@ import androidx.wear.watchface.complications.datasource.ComplicationRequest
 import com.loohp.hkweatherwarnings.MainActivity
 import com.loohp.hkweatherwarnings.R
 import com.loohp.hkweatherwarnings.Section
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Shared
 import java.util.concurrent.ForkJoinPool
 import java.util.concurrent.ThreadLocalRandom
@@ -83,7 +84,7 @@ class HumidityComplication : ComplicationDataSourceService() {
 
     override fun onComplicationRequest(request: ComplicationRequest, listener: ComplicationRequestListener) {
         ForkJoinPool.commonPool().execute {
-            val weatherInfo = Shared.currentWeatherInfo.getLatestValue(this, ForkJoinPool.commonPool()).orIntermediateValue
+            val weatherInfo = Shared.currentWeatherInfo.getLatestValue(this, ForkJoinPool.commonPool(), priority = FetchPriority.TILE).orIntermediateValue
             if (weatherInfo == null) {
                 listener.onComplicationData(null)
                 return@execute
@@ -31,6 +31,7 @@ import androidx.wear.watchface.complications.datasource.ComplicationDataSourceSe
 import androidx.wear.watchface.complications.datasource.ComplicationRequest
 import com.loohp.hkweatherwarnings.MainActivity
 import com.loohp.hkweatherwarnings.Section
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Shared
 import java.time.LocalDate
 import java.util.concurrent.ForkJoinPool
@@ -63,7 +64,7 @@ class LunarDateComplication : ComplicationDataSourceService() {
 
     override fun onComplicationRequest(request: ComplicationRequest, listener: ComplicationRequestListener) {
         ForkJoinPool.commonPool().execute {
-            val lunarDate = Shared.convertedLunarDates.getValue(LocalDate.now(Shared.HK_TIMEZONE.toZoneId()), this, ForkJoinPool.commonPool()).get()
+            val lunarDate = Shared.convertedLunarDates.getValue(LocalDate.now(Shared.HK_TIMEZONE.toZoneId()), this, ForkJoinPool.commonPool(), FetchPriority.TILE).get()
             if (lunarDate == null) {
                 listener.onComplicationData(null)
                 return@execute
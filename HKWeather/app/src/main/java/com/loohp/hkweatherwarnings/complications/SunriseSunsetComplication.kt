@@ -35,9 +35,13 @@ import androidx.wear.watchface.complications.datasource.ComplicationRequest
 import com.loohp.hkweatherwarnings.MainActivity
 import com.loohp.hkweatherwarnings.R
 import com.loohp.hkweatherwarnings.Section
+import com.loohp.hkweatherwarnings.shared.AstronomicalTableCache
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Shared
 import com.loohp.hkweatherwarnings.utils.nextOccurrenceIsCloserThan
+import com.loohp.hkweatherwarnings.weather.AstronomicalTable
 import java.text.SimpleDateFormat
+import java.time.LocalDateTime
 import java.time.LocalTime
 import java.time.format.DateTimeFormatter
 import java.util.concurrent.ForkJoinPool
@@ -74,13 +78,16 @@ class SunriseSunsetComplication : ComplicationDataSourceService() {
 
     override fun onComplicationRequest(request: ComplicationRequest, listener: ComplicationRequestListener) {
         ForkJoinPool.commonPool().execute {
-            val weatherInfo = Shared.currentWeatherInfo.getLatestValue(this, ForkJoinPool.commonPool()).orIntermediateValue
+            val weatherInfo = Shared.currentWeatherInfo.getLatestValue(this, ForkJoinPool.commonPool(), priority = FetchPriority.TILE).orIntermediateValue
             if (weatherInfo == null) {
                 listener.onComplicationData(null)
                 return@execute
             }
             val timeFormat = DateTimeFormatter.ofPattern(DateFormat.getTimeFormat(this).let { if (it is SimpleDateFormat) it.toPattern() else "HH:mm" })
-            val (time, icon) = if (weatherInfo.sunriseTime.nextOccurrenceIsCloserThan(weatherInfo.sunsetTime)) {
+            val nextEvent = AstronomicalTableCache.findNextRiseOrSet(this, AstronomicalTable.Type.SUN, LocalDateTime.now(Shared.HK_TIMEZONE.toZoneId()))
+            val (time, icon) = if (nextEvent != null) {
+                timeFormat.format(nextEvent.time) to Icon.createWithResource(this, if (nextEvent.isRise) R.mipmap.sunrise else R.mipmap.sunset)
+            } else if (weatherInfo.sunriseTime.nextOccurrenceIsCloserThan(weatherInfo.sunsetTime)) {
                 timeFormat.format(weatherInfo.sunriseTime) to Icon.createWithResource(this, R.mipmap.sunrise)
             } else {
                 timeFormat.format(weatherInfo.sunsetTime) to Icon.createWithResource(this, R.mipmap.sunset)
@@ -0,0 +1,182 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.shared;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import com.loohp.hkweatherwarnings.utils.AstronomyUtils;
+import com.loohp.hkweatherwarnings.utils.HTTPRequestUtils;
+import com.loohp.hkweatherwarnings.weather.AstronomicalTable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+public class AstronomicalTableCache {
+
+    private static final String DIRECTORY_NAME = "astronomical";
+    private static final UnaryOperator<String> HEADER_FILTER = s -> s.replaceAll("[^a-zA-Z.0-9:\\-,]", "");
+
+    private static final long MISS_REDOWNLOAD_INTERVAL = 21600000L;
+
+    private static final Map<String, AstronomicalTable> TABLES = new ConcurrentHashMap<>();
+    private static final Map<String, Long> LAST_DOWNLOAD_TIME = new ConcurrentHashMap<>();
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private static String getKey(AstronomicalTable.Type type, int year) {
+        return type.name().toLowerCase() + "_" + year;
+    }
+
+    private static File getDirectory(Context context) {
+        return new File(context.getApplicationContext().getFilesDir(), DIRECTORY_NAME);
+    }
+
+    public static AstronomicalTable getCachedTable(Context context, AstronomicalTable.Type type, int year) {
+        String key = getKey(type, year);
+        AstronomicalTable table = TABLES.get(key);
+        if (table != null) {
+            return table;
+        }
+        synchronized (AstronomicalTableCache.class) {
+            table = TABLES.get(key);
+            if (table != null) {
+                return table;
+            }
+            File file = new File(getDirectory(context), key + ".bin");
+            if (!file.exists()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new AtomicFile(file).openRead()))) {
+                table = AstronomicalTable.read(in);
+                TABLES.put(key, table);
+                return table;
+            } catch (IOException e) {
+                e.printStackTrace();
+                new AtomicFile(file).delete();
+                return null;
+            }
+        }
+    }
+
+    public static LocalTime[] getCachedTimes(Context context, AstronomicalTable.Type type, LocalDate date) {
+        AstronomicalTable table = getCachedTable(context, type, date.getYear());
+        return table == null ? null : table.getTimes(date);
+    }
+
+    public static LocalTime[] getTimes(Context context, AstronomicalTable.Type type, LocalDate date) {
+        AstronomicalTable table = getCachedTable(context, type, date.getYear());
+        if (table != null && table.hasDate(date)) {
+            return table.getTimes(date);
+        }
+        String key = getKey(type, date.getYear());
+        synchronized (LOCKS.computeIfAbsent(key, k -> new Object())) {
+            table = TABLES.get(key);
+            if (table != null && (table.hasDate(date) || System.currentTimeMillis() - LAST_DOWNLOAD_TIME.getOrDefault(key, 0L) < MISS_REDOWNLOAD_INTERVAL)) {
+                return table.getTimes(date);
+            }
+            table = download(context, type, date.getYear());
+            return table == null ? null : table.getTimes(date);
+        }
+    }
+
+    public static AstronomicalTable.Event findNextRiseOrSet(Context context, AstronomicalTable.Type type, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        for (int day = 0; day <= 1; day++) {
+            LocalDate date = today.plusDays(day);
+            LocalTime[] times = getCachedTimes(context, type, date);
+            if (times == null) {
+                times = computeTimes(type, date);
+            }
+            LocalDateTime rise = times[0] == null ? null : date.atTime(times[0]);
+            LocalDateTime set = times[2] == null ? null : date.atTime(times[2]);
+            AstronomicalTable.Event next = null;
+            if (rise != null && rise.isAfter(now)) {
+                next = new AstronomicalTable.Event(rise, true);
+            }
+            if (set != null && set.isAfter(now) && (next == null || set.isBefore(next.getTime()))) {
+                next = new AstronomicalTable.Event(set, false);
+            }
+            if (next != null) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    public static LocalTime[] computeTimes(AstronomicalTable.Type type, LocalDate date) {
+        double latitude = AstronomyUtils.HONG_KONG_OBSERVATORY_LATITUDE;
+        double longitude = AstronomyUtils.HONG_KONG_OBSERVATORY_LONGITUDE;
+        return type == AstronomicalTable.Type.SUN ? AstronomyUtils.computeSunTimes(date, latitude, longitude) : AstronomyUtils.computeMoonTimes(date, latitude, longitude);
+    }
+
+    private static AstronomicalTable download(Context context, AstronomicalTable.Type type, int year) {
+        String key = getKey(type, year);
+        LAST_DOWNLOAD_TIME.put(key, System.currentTimeMillis());
+        AstronomicalTable table = HTTPRequestUtils.readCSVResponse("https://data.weather.gov.hk/weatherAPI/opendata/opendata.php?dataType=" + type.getDataType() + "&year=" + year + "&rformat=csv", HEADER_FILTER, csv -> AstronomicalTable.parse(type, year, csv));
+        if (table == null) {
+            return null;
+        }
+        synchronized (AstronomicalTableCache.class) {
+            TABLES.put(key, table);
+            File directory = getDirectory(context);
+            if (!directory.exists() && !directory.mkdirs()) {
+                return table;
+            }
+            AtomicFile file = new AtomicFile(new File(directory, key + ".bin"));
+            FileOutputStream out = null;
+            try {
+                out = file.startWrite();
+                DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out));
+                table.write(dataOut);
+                dataOut.flush();
+                file.finishWrite(out);
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (out != null) {
+                    file.failWrite(out);
+                }
+            }
+            File[] files = directory.listFiles();
+            if (files != null) {
+                String prefix = type.name().toLowerCase() + "_";
+                for (File other : files) {
+                    String name = other.getName();
+                    if (name.startsWith(prefix) && name.endsWith(".bin") && name.compareTo(getKey(type, year - 1) + ".bin") < 0) {
+                        other.delete();
+                    }
+                }
+            }
+            return table;
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.shared;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class FetchExecutor {
+
+    public static final int POOL_SIZE = Math.max(4, Math.min(8, Runtime.getRuntime().availableProcessors() * 2));
+
+    private static final FetchPriority[] PRIORITIES = FetchPriority.values();
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final AtomicIntegerArray QUEUED = new AtomicIntegerArray(PRIORITIES.length);
+    private static final AtomicIntegerArray PEAK_QUEUED = new AtomicIntegerArray(PRIORITIES.length);
+    private static final AtomicLongArray EXECUTED = new AtomicLongArray(PRIORITIES.length);
+    private static final AtomicLongArray TOTAL_WAIT_MILLIS = new AtomicLongArray(PRIORITIES.length);
+
+    private static final ThreadPoolExecutor EXECUTOR;
+    private static final ScheduledExecutorService DELAY_SCHEDULER;
+
+    static {
+        EXECUTOR = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), namedThreadFactory("HKWeather-Fetch"));
+        EXECUTOR.allowCoreThreadTimeOut(true);
+        DELAY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("HKWeather-FetchDelay"));
+    }
+
+    private static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static <T> CompletableFuture<T> submit(FetchPriority priority, Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Task task = new Task(priority, () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(callable.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) {
+                task.cancel();
+            }
+        });
+        enqueue(task);
+        return future;
+    }
+
+    public static CompletableFuture<Void> execute(FetchPriority priority, Runnable runnable) {
+        return submit(priority, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public static <T> CompletableFuture<T> schedule(FetchPriority priority, long delay, TimeUnit unit, Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        DELAY_SCHEDULER.schedule(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            CompletableFuture<T> submitted = submit(priority, callable);
+            future.whenComplete((r, e) -> {
+                if (future.isCancelled()) {
+                    submitted.cancel(true);
+                }
+            });
+            submitted.whenComplete((r, e) -> {
+                if (e == null) {
+                    future.complete(r);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            });
+        }, delay, unit);
+        return future;
+    }
+
+    public static Executor asExecutor(FetchPriority priority) {
+        return runnable -> enqueue(new Task(priority, runnable));
+    }
+
+    private static void enqueue(Task task) {
+        int lane = task.priority.ordinal();
+        int queued = QUEUED.incrementAndGet(lane);
+        int peak;
+        while (queued > (peak = PEAK_QUEUED.get(lane)) && !PEAK_QUEUED.compareAndSet(lane, peak, queued));
+        EXECUTOR.execute(task);
+    }
+
+    public static int getQueueDepth(FetchPriority priority) {
+        return QUEUED.get(priority.ordinal());
+    }
+
+    public static int getActiveCount() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    public static Stats getStats(FetchPriority priority) {
+        int lane = priority.ordinal();
+        return new Stats(priority, QUEUED.get(lane), PEAK_QUEUED.get(lane), EXECUTED.get(lane), TOTAL_WAIT_MILLIS.get(lane));
+    }
+
+    private static class Task implements Runnable, Comparable<Task> {
+
+        private final FetchPriority priority;
+        private final long sequence;
+        private final long enqueueTime;
+        private final Runnable runnable;
+
+        private boolean cancelled;
+        private Thread runner;
+
+        private Task(FetchPriority priority, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = SEQUENCE.getAndIncrement();
+            this.enqueueTime = System.currentTimeMillis();
+            this.runnable = runnable;
+            this.cancelled = false;
+            this.runner = null;
+        }
+
+        @Override
+        public void run() {
+            int lane = priority.ordinal();
+            QUEUED.decrementAndGet(lane);
+            EXECUTED.incrementAndGet(lane);
+            TOTAL_WAIT_MILLIS.addAndGet(lane, System.currentTimeMillis() - enqueueTime);
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                runnable.run();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int compare = priority.compareTo(other.priority);
+            return compare != 0 ? compare : Long.compare(sequence, other.sequence);
+        }
+
+    }
+
+    public static class Stats {
+
+        private final FetchPriority priority;
+        private final int queueDepth;
+        private final int peakQueueDepth;
+        private final long executed;
+        private final long totalWaitMillis;
+
+        public Stats(FetchPriority priority, int queueDepth, int peakQueueDepth, long executed, long totalWaitMillis) {
+            this.priority = priority;
+            this.queueDepth = queueDepth;
+            this.peakQueueDepth = peakQueueDepth;
+            this.executed = executed;
+            this.totalWaitMillis = totalWaitMillis;
+        }
+
+        public FetchPriority getPriority() {
+            return priority;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getPeakQueueDepth() {
+            return peakQueueDepth;
+        }
+
+        public long getExecuted() {
+            return executed;
+        }
+
+        public long getAverageWaitMillis() {
+            return executed == 0 ? 0 : totalWaitMillis / executed;
+        }
+
+    }
+
+}
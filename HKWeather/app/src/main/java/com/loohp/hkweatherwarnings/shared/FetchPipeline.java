@@ -0,0 +1,226 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.shared;
+
+import com.loohp.hkweatherwarnings.utils.HTTPRequestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class FetchPipeline {
+
+    public static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final FetchPriority priority;
+    private final long createTime;
+    private final List<Stage<?>> stages;
+
+    public FetchPipeline(FetchPriority priority) {
+        this.priority = priority;
+        this.createTime = System.currentTimeMillis();
+        this.stages = new CopyOnWriteArrayList<>();
+    }
+
+    public <T> Stage<T> stage(String name, Callable<T> task, Stage<?>... dependencies) {
+        return stage(name, 1, task, dependencies);
+    }
+
+    public <T> Stage<T> stage(String name, int maxAttempts, Callable<T> task, Stage<?>... dependencies) {
+        Stage<T> stage = new Stage<>(name, Arrays.asList(dependencies));
+        CompletableFuture<Void> ready;
+        if (dependencies.length == 0) {
+            ready = CompletableFuture.completedFuture(null);
+        } else {
+            ready = CompletableFuture.allOf(Arrays.stream(dependencies).map(d -> d.future).toArray(CompletableFuture[]::new));
+        }
+        ready.thenCompose(unused -> {
+            stage.readyTime = System.currentTimeMillis();
+            return attempt(stage, task, maxAttempts, 0);
+        }).whenComplete((r, e) -> {
+            if (e == null) {
+                stage.future.complete(r);
+            } else {
+                stage.failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                stage.future.completeExceptionally(e);
+            }
+        });
+        stages.add(stage);
+        return stage;
+    }
+
+    public Stage<Void> stage(String name, Runnable task, Stage<?>... dependencies) {
+        return stage(name, 1, task, dependencies);
+    }
+
+    public Stage<Void> stage(String name, int maxAttempts, Runnable task, Stage<?>... dependencies) {
+        return stage(name, maxAttempts, () -> {
+            task.run();
+            return null;
+        }, dependencies);
+    }
+
+    private <T> CompletableFuture<T> attempt(Stage<T> stage, Callable<T> task, int attemptsLeft, long delay) {
+        Callable<T> timedTask = () -> {
+            stage.attempts++;
+            if (stage.startTime < 0) {
+                stage.startTime = System.currentTimeMillis();
+            }
+            long bytesBefore = HTTPRequestUtils.getThreadBytesReceived();
+            try {
+                return task.call();
+            } finally {
+                stage.endTime = System.currentTimeMillis();
+                stage.bytesReceived += HTTPRequestUtils.getThreadBytesReceived() - bytesBefore;
+            }
+        };
+        if (stage.future.isDone()) {
+            CompletableFuture<T> cancelled = new CompletableFuture<>();
+            cancelled.cancel(false);
+            return cancelled;
+        }
+        CompletableFuture<T> future = delay > 0 ? FetchExecutor.schedule(priority, delay, TimeUnit.MILLISECONDS, timedTask) : FetchExecutor.submit(priority, timedTask);
+        stage.current = future;
+        if (stage.future.isCancelled()) {
+            future.cancel(true);
+        }
+        if (attemptsLeft <= 1) {
+            return future;
+        }
+        return future.handle((r, e) -> e == null ? CompletableFuture.completedFuture(r) : attempt(stage, task, attemptsLeft - 1, RETRY_DELAY_MILLIS)).thenCompose(f -> f);
+    }
+
+    public CompletableFuture<Void> whenAllComplete() {
+        return CompletableFuture.allOf(stages.stream().map(s -> s.future).toArray(CompletableFuture[]::new));
+    }
+
+    public void cancel() {
+        for (Stage<?> stage : stages) {
+            stage.future.cancel(true);
+            CompletableFuture<?> current = stage.current;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public List<Stage<?>> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    public List<Stage<?>> getCriticalPath() {
+        List<Stage<?>> path = new ArrayList<>();
+        Comparator<Stage<?>> byEndTime = Comparator.comparingLong(s -> s.endTime);
+        Stage<?> current = stages.stream().filter(Stage::isFinished).max(byEndTime).orElse(null);
+        while (current != null) {
+            path.add(current);
+            current = current.dependencies.stream().filter(Stage::isFinished).max(byEndTime).orElse(null);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    public static class Stage<T> {
+
+        private final String name;
+        private final List<Stage<?>> dependencies;
+        private final CompletableFuture<T> future;
+
+        private volatile long readyTime;
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile int attempts;
+        private volatile long bytesReceived;
+        private volatile Throwable failure;
+        private volatile CompletableFuture<?> current;
+
+        private Stage(String name, List<Stage<?>> dependencies) {
+            this.name = name;
+            this.dependencies = dependencies;
+            this.future = new CompletableFuture<>();
+            this.readyTime = -1;
+            this.startTime = -1;
+            this.endTime = -1;
+            this.attempts = 0;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Stage<?>> getDependencies() {
+            return dependencies;
+        }
+
+        public CompletableFuture<T> getFuture() {
+            return future;
+        }
+
+        public T get() {
+            return future.join();
+        }
+
+        public boolean isFinished() {
+            return endTime >= 0;
+        }
+
+        public boolean isSuccessful() {
+            return future.isDone() && !future.isCompletedExceptionally();
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public long getQueueTime() {
+            return startTime < 0 ? -1 : startTime - readyTime;
+        }
+
+        public long getDuration() {
+            return isFinished() ? endTime - startTime : -1;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.shared;
+
+import androidx.compose.runtime.Immutable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+@Immutable
+public class Preferences {
+
+    public static final String DEFAULT_LANGUAGE = "zh";
+    public static final long DEFAULT_REFRESH_RATE = 1800000;
+    public static final String LOCATION_GPS = "GPS";
+
+    public static final Preferences DEFAULT = new Preferences(DEFAULT_LANGUAGE, DEFAULT_REFRESH_RATE, "", Double.NaN, Double.NaN);
+
+    public static Preferences fromJson(JSONObject json) {
+        String language = json.optString("language");
+        long refreshRate = json.optLong("refreshRate", -1);
+        Object location = json.opt("location");
+        String locationType = location instanceof String ? (String) location : "";
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        if (location instanceof JSONArray) {
+            JSONArray pos = (JSONArray) location;
+            latitude = pos.optDouble(0);
+            longitude = pos.optDouble(1);
+        }
+        return new Preferences(language.isEmpty() ? DEFAULT_LANGUAGE : language, refreshRate < 0 ? DEFAULT_REFRESH_RATE : refreshRate, locationType, latitude, longitude);
+    }
+
+    private final String language;
+    private final long refreshRate;
+    private final String locationType;
+    private final double latitude;
+    private final double longitude;
+
+    private Preferences(String language, long refreshRate, String locationType, double latitude, double longitude) {
+        this.language = language;
+        this.refreshRate = refreshRate;
+        this.locationType = locationType;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public long getRefreshRate() {
+        return refreshRate;
+    }
+
+    public String getLocationType() {
+        return locationType;
+    }
+
+    public boolean hasFixedLocation() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public Preferences withLanguage(String language) {
+        return new Preferences(language, refreshRate, locationType, latitude, longitude);
+    }
+
+    public Preferences withRefreshRate(long refreshRate) {
+        return new Preferences(language, refreshRate, locationType, latitude, longitude);
+    }
+
+    public Preferences withLocation(double latitude, double longitude) {
+        return new Preferences(language, refreshRate, "", latitude, longitude);
+    }
+
+    public Preferences withLocationGPS() {
+        return new Preferences(language, refreshRate, LOCATION_GPS, Double.NaN, Double.NaN);
+    }
+
+    public Preferences withoutLocation() {
+        return new Preferences(language, refreshRate, "", Double.NaN, Double.NaN);
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("language", language);
+        json.put("refreshRate", refreshRate);
+        if (hasFixedLocation()) {
+            json.put("location", new JSONArray(Arrays.asList(latitude, longitude)));
+        } else if (!locationType.isEmpty()) {
+            json.put("location", locationType);
+        }
+        return json;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Preferences that = (Preferences) o;
+        return refreshRate == that.refreshRate && Double.compare(latitude, that.latitude) == 0 && Double.compare(longitude, that.longitude) == 0 && Objects.equals(language, that.language) && Objects.equals(locationType, that.locationType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(language, refreshRate, locationType, latitude, longitude);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.shared;
+
+import android.util.AtomicFile;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import kotlinx.coroutines.flow.MutableStateFlow;
+import kotlinx.coroutines.flow.StateFlow;
+import kotlinx.coroutines.flow.StateFlowKt;
+
+public class PreferencesStore {
+
+    public static final long WRITE_DELAY_MILLIS = 500;
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Preferences-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static PreferencesStore load(File file) {
+        AtomicFile atomicFile = new AtomicFile(file);
+        Preferences preferences;
+        try {
+            preferences = Preferences.fromJson(new JSONObject(new String(atomicFile.readFully(), StandardCharsets.UTF_8)));
+        } catch (FileNotFoundException e) {
+            preferences = Preferences.DEFAULT;
+        } catch (IOException | JSONException e) {
+            e.printStackTrace();
+            preferences = Preferences.DEFAULT;
+        }
+        return new PreferencesStore(atomicFile, preferences);
+    }
+
+    private final AtomicFile file;
+    private final AtomicReference<Preferences> snapshot;
+    private final MutableStateFlow<Preferences> state;
+    private final AtomicBoolean writePending;
+    private volatile Preferences lastWritten;
+
+    private PreferencesStore(AtomicFile file, Preferences preferences) {
+        this.file = file;
+        this.snapshot = new AtomicReference<>(preferences);
+        this.state = StateFlowKt.MutableStateFlow(preferences);
+        this.writePending = new AtomicBoolean(false);
+        this.lastWritten = preferences;
+    }
+
+    public Preferences get() {
+        return snapshot.get();
+    }
+
+    public StateFlow<Preferences> getState() {
+        return state;
+    }
+
+    public Preferences update(UnaryOperator<Preferences> function) {
+        Preferences previous;
+        Preferences next;
+        do {
+            previous = snapshot.get();
+            next = function.apply(previous);
+        } while (!snapshot.compareAndSet(previous, next));
+        if (!next.equals(previous)) {
+            synchronized (state) {
+                state.setValue(snapshot.get());
+            }
+            if (writePending.compareAndSet(false, true)) {
+                WRITER.schedule(this::write, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return next;
+    }
+
+    public CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(this::write, WRITER);
+    }
+
+    private void write() {
+        writePending.set(false);
+        Preferences preferences = snapshot.get();
+        if (preferences.equals(lastWritten)) {
+            return;
+        }
+        FileOutputStream out = null;
+        try {
+            byte[] data = preferences.toJson().toString().getBytes(StandardCharsets.UTF_8);
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+            lastWritten = preferences;
+        } catch (IOException | JSONException e) {
+            e.printStackTrace();
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+
+}
@@ -27,18 +27,21 @@ import android.util.Pair;
 
 import androidx.wear.tiles.TileService;
 
-import com.google.common.util.concurrent.AtomicDouble;
 import com.google.firebase.analytics.FirebaseAnalytics;
-import com.loohp.hkweatherwarnings.R;
 import com.loohp.hkweatherwarnings.tiles.WeatherOverviewTile;
 import com.loohp.hkweatherwarnings.tiles.WeatherTipsTile;
 import com.loohp.hkweatherwarnings.tiles.WeatherWarningsTile;
+import com.loohp.hkweatherwarnings.utils.AstronomyUtils;
+import com.loohp.hkweatherwarnings.utils.CSVReader;
 import com.loohp.hkweatherwarnings.utils.CompletableFutureWithProgress;
 import com.loohp.hkweatherwarnings.utils.FutureWithProgress;
 import com.loohp.hkweatherwarnings.utils.HTTPRequestUtils;
 import com.loohp.hkweatherwarnings.utils.JsonUtils;
 import com.loohp.hkweatherwarnings.utils.LocationUtils;
+import com.loohp.hkweatherwarnings.utils.LunarCalendarUtils;
+import com.loohp.hkweatherwarnings.utils.StationIndex;
 import com.loohp.hkweatherwarnings.utils.TimeUtils;
+import com.loohp.hkweatherwarnings.weather.AstronomicalTable;
 import com.loohp.hkweatherwarnings.weather.CurrentWeatherInfo;
 import com.loohp.hkweatherwarnings.weather.DisplayableInfo;
 import com.loohp.hkweatherwarnings.weather.ForecastWeatherInfo;
@@ -51,76 +54,142 @@ import com.loohp.hkweatherwarnings.weather.LunarDate;
 import com.loohp.hkweatherwarnings.weather.RainfallMapsInfo;
 import com.loohp.hkweatherwarnings.weather.SpecialTyphoonInfo;
 import com.loohp.hkweatherwarnings.weather.TropicalCycloneInfo;
-import com.loohp.hkweatherwarnings.weather.WeatherInfo;
+import com.loohp.hkweatherwarnings.weather.WeatherDataDecoders;
+import com.loohp.hkweatherwarnings.weather.WeatherStation;
 import com.loohp.hkweatherwarnings.weather.WeatherStatusIcon;
 import com.loohp.hkweatherwarnings.weather.WeatherWarningsType;
 
+import kotlinx.coroutines.flow.MutableStateFlow;
+import kotlinx.coroutines.flow.StateFlow;
+import kotlinx.coroutines.flow.StateFlowKt;
+
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoField;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public class Registry {
 
-    private static Registry INSTANCE = null;
+    private static volatile Registry INSTANCE = null;
+    private static CompletableFuture<Registry> INIT_FUTURE = null;
+    private static final MutableStateFlow<Boolean> READY_STATE = StateFlowKt.MutableStateFlow(false);
+
+    public static Registry getInstance(Context context) {
+        Registry instance = INSTANCE;
+        if (instance != null) {
+            return instance;
+        }
+        try {
+            return init(context).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
 
-    public static synchronized Registry getInstance(Context context) {
-        if (INSTANCE == null) {
-            INSTANCE = new Registry(context);
+    public static synchronized CompletableFuture<Registry> init(Context context) {
+        if (INIT_FUTURE != null) {
+            return INIT_FUTURE;
         }
-        return INSTANCE;
+        Context applicationContext = context.getApplicationContext();
+        CompletableFuture<Registry> future = new CompletableFuture<>();
+        INIT_FUTURE = future;
+        Thread thread = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                Registry registry = new Registry(applicationContext);
+                INSTANCE = registry;
+                READY_STATE.setValue(true);
+                future.complete(registry);
+                logFetchTime(applicationContext, "registry_init_ms", start);
+            } catch (Throwable e) {
+                synchronized (Registry.class) {
+                    INIT_FUTURE = null;
+                }
+                future.completeExceptionally(e);
+                return;
+            }
+            // Builds the station indexes on the init thread so the first weather refresh does not pay for it
+            Stations.ensureLoaded();
+        }, "Registry-Init");
+        thread.start();
+        return future;
+    }
+
+    public static StateFlow<Boolean> getReadyState() {
+        return READY_STATE;
+    }
+
+    public static boolean isReady() {
+        return INSTANCE != null;
     }
 
     private static final String PREFERENCES_FILE_NAME = "preferences.json";
+    private static final String HTTP_CACHE_DIRECTORY_NAME = "http_cache";
+    private static final long WEATHER_TIPS_FETCH_DELAY_SECONDS = 5;
+    private static final int SECTION_FETCH_ATTEMPTS = 2;
+    private static final Map<String, Long> STAGE_BYTES_RECEIVED = new ConcurrentHashMap<>();
+    private static final double MAX_WEATHER_STATION_DISTANCE_KM = 100;
 
-    private static JSONObject PREFERENCES = null;
+    private static class Stations {
 
-    private static List<JSONObject> WEATHER_STATIONS = null;
-    private static List<JSONObject> HUMIDITY_STATIONS = null;
-    private static List<JSONObject> WIND_STATIONS = null;
-    private static JSONObject FORECAST_STATIONS = null;
+        private static final StationIndex<WeatherStation> WEATHER_STATIONS = indexStations(StationTables.TEMPERATURE_NAMES_EN, StationTables.TEMPERATURE_NAMES_UC, StationTables.TEMPERATURE_LATITUDES, StationTables.TEMPERATURE_LONGITUDES);
+        private static final StationIndex<WeatherStation> HUMIDITY_STATIONS = indexStations(StationTables.HUMIDITY_NAMES_EN, StationTables.HUMIDITY_NAMES_UC, StationTables.HUMIDITY_LATITUDES, StationTables.HUMIDITY_LONGITUDES);
+        private static final StationIndex<WeatherStation> WIND_STATIONS = indexStations(StationTables.WIND_NAMES_EN, StationTables.WIND_NAMES_UC, StationTables.WIND_LATITUDES, StationTables.WIND_LONGITUDES);
+        private static final StationIndex<String> FORECAST_STATIONS = indexForecastStations(StationTables.FORECAST_IDS, StationTables.FORECAST_LATITUDES, StationTables.FORECAST_LONGITUDES);
 
-    private Registry(Context context) {
-        try {
-            ensureData(context);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        private static boolean ensureLoaded() {
+            return WEATHER_STATIONS != null && HUMIDITY_STATIONS != null && WIND_STATIONS != null && FORECAST_STATIONS != null;
+        }
+
+        private static StationIndex<WeatherStation> indexStations(String[] namesEn, String[] namesUc, double[] latitudes, double[] longitudes) {
+            StationIndex.Builder<WeatherStation> builder = StationIndex.builder();
+            for (int i = 0; i < namesEn.length; i++) {
+                builder.add(new WeatherStation(namesEn[i], namesUc[i]), latitudes[i], longitudes[i]);
+            }
+            return builder.build();
+        }
+
+        private static StationIndex<String> indexForecastStations(String[] ids, double[] latitudes, double[] longitudes) {
+            StationIndex.Builder<String> builder = StationIndex.builder();
+            for (int i = 0; i < ids.length; i++) {
+                builder.add(ids[i], latitudes[i], longitudes[i]);
+            }
+            return builder.build();
         }
+
+    }
+
+    private final PreferencesStore preferencesStore;
+
+    private Registry(Context context) {
+        HTTPRequestUtils.initCache(new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIRECTORY_NAME));
+        preferencesStore = PreferencesStore.load(new File(context.getApplicationContext().getFilesDir(), PREFERENCES_FILE_NAME));
     }
 
     public void updateTileServices(Context context) {
@@ -129,193 +198,129 @@ public class Registry {
         TileService.getUpdater(context).requestUpdate(WeatherTipsTile.class);
     }
 
+    public StateFlow<Preferences> getPreferences() {
+        return preferencesStore.getState();
+    }
+
+    public CompletableFuture<Void> flushPreferences() {
+        return preferencesStore.flush();
+    }
+
     public void setLanguage(String language, Context context) {
-        try {
-            if (PREFERENCES == null) {
-                PREFERENCES = new JSONObject();
-            }
-            PREFERENCES.put("language", language);
-            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(context.getApplicationContext().openFileOutput(PREFERENCES_FILE_NAME, Context.MODE_PRIVATE), StandardCharsets.UTF_8))) {
-                pw.write(PREFERENCES.toString());
-                pw.flush();
-            }
-            updateTileServices(context);
-        } catch (IOException | JSONException e) {
-            throw new RuntimeException(e);
-        }
+        preferencesStore.update(p -> p.withLanguage(language));
     }
 
     public String getLanguage() {
-        if (PREFERENCES == null) {
-            return "zh";
-        }
-        String language = PREFERENCES.optString("language");
-        if (language.isEmpty()) {
-            return "zh";
-        }
-        return language;
+        return preferencesStore.get().getLanguage();
     }
 
     public void setRefreshRate(long refreshRate, Context context) {
-        try {
-            if (PREFERENCES == null) {
-                PREFERENCES = new JSONObject();
-            }
-            PREFERENCES.put("refreshRate", refreshRate);
-            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(context.getApplicationContext().openFileOutput(PREFERENCES_FILE_NAME, Context.MODE_PRIVATE), StandardCharsets.UTF_8))) {
-                pw.write(PREFERENCES.toString());
-                pw.flush();
-            }
-            Shared.Companion.startBackgroundService(context);
-        } catch (IOException | JSONException e) {
-            throw new RuntimeException(e);
-        }
+        preferencesStore.update(p -> p.withRefreshRate(refreshRate));
     }
 
     public long getRefreshRate() {
-        if (PREFERENCES == null) {
-            return 1800000;
-        }
-        long refreshRate = PREFERENCES.optLong("refreshRate", -1);
-        if (refreshRate < 0) {
-            return 1800000;
-        }
-        return refreshRate;
+        return preferencesStore.get().getRefreshRate();
     }
 
     public Pair<String, Location> getLocation() {
-        if (PREFERENCES == null) {
-            return Pair.create("", null);
-        }
-        Object location = PREFERENCES.opt("location");
-        if (location == null) {
-            return Pair.create("", null);
-        }
-        if (location instanceof String) {
-            return Pair.create((String) location, null);
+        Preferences preferences = preferencesStore.get();
+        if (preferences.hasFixedLocation()) {
+            return Pair.create("", LocationUtils.LocationResult.fromLatLng(preferences.getLatitude(), preferences.getLongitude()).getLocation());
         }
-        JSONArray pos = (JSONArray) location;
-        return Pair.create("", LocationUtils.LocationResult.fromLatLng(pos.optDouble(0), pos.optDouble(1)).getLocation());
+        return Pair.create(preferences.getLocationType(), null);
     }
 
     public void setLocation(Location location, Context context) {
-        try {
-            if (PREFERENCES == null) {
-                PREFERENCES = new JSONObject();
-            }
-            PREFERENCES.put("location", new JSONArray(Arrays.asList(location.getLatitude(), location.getLongitude())));
-            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(context.getApplicationContext().openFileOutput(PREFERENCES_FILE_NAME, Context.MODE_PRIVATE), StandardCharsets.UTF_8))) {
-                pw.write(PREFERENCES.toString());
-                pw.flush();
-            }
-            updateTileServices(context);
-        } catch (IOException | JSONException e) {
-            throw new RuntimeException(e);
-        }
+        preferencesStore.update(p -> p.withLocation(location.getLatitude(), location.getLongitude()));
     }
 
     public void setLocationGPS(Context context) {
-        try {
-            if (PREFERENCES == null) {
-                PREFERENCES = new JSONObject();
-            }
-            PREFERENCES.put("location", "GPS");
-            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(context.getApplicationContext().openFileOutput(PREFERENCES_FILE_NAME, Context.MODE_PRIVATE), StandardCharsets.UTF_8))) {
-                pw.write(PREFERENCES.toString());
-                pw.flush();
-            }
-            updateTileServices(context);
-        } catch (IOException | JSONException e) {
-            throw new RuntimeException(e);
-        }
+        preferencesStore.update(Preferences::withLocationGPS);
     }
 
     public void clearLocation(Context context) {
-        try {
-            if (PREFERENCES == null) {
-                return;
-            }
-            PREFERENCES.remove("location");
-            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(context.getApplicationContext().openFileOutput(PREFERENCES_FILE_NAME, Context.MODE_PRIVATE), StandardCharsets.UTF_8))) {
-                pw.write(PREFERENCES.toString());
-                pw.flush();
-            }
-            updateTileServices(context);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        preferencesStore.update(Preferences::withoutLocation);
     }
 
-    public List<JSONObject> getWeatherStations() {
-        return WEATHER_STATIONS;
+    public StationIndex<WeatherStation> getWeatherStations() {
+        return Stations.WEATHER_STATIONS;
     }
 
     public double findDistance(double lat1, double lng1, double lat2, double lng2) {
-        lat1 = Math.toRadians(lat1);
-        lat2 = Math.toRadians(lat2);
-        lng1 = Math.toRadians(lng1);
-        lng2 = Math.toRadians(lng2);
-
-        double d_lon = lng2 - lng1;
-        double d_lat = lat2 - lat1;
-        double a = Math.pow(Math.sin(d_lat / 2), 2) + Math.cos(lat1) * Math.cos(lat2) * Math.pow(Math.sin(d_lon / 2), 2);
-
-        double c = 2 * Math.asin(Math.sqrt(a));
-
-        return c * 6371;
+        return StationIndex.findDistance(lat1, lng1, lat2, lng2);
     }
 
-    private void ensureData(Context context) throws IOException {
-        if (PREFERENCES != null) {
-            return;
-        }
+    private static void logFetchTime(Context context, String event, long start) {
+        long end = System.currentTimeMillis();
+        Bundle bundle = new Bundle();
+        bundle.putLong("value", end - start);
+        FirebaseAnalytics.getInstance(context).logEvent(event, bundle);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getResources().openRawResource(R.raw.latest_1min_temperature), StandardCharsets.UTF_8))) {
-            WEATHER_STATIONS = JsonUtils.toList(new JSONObject(reader.lines().collect(Collectors.joining())).optJSONArray("features"), JSONObject.class);
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
-        }
+    private static void cancelWith(CompletableFuture<?> future, Runnable onCancel) {
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) {
+                onCancel.run();
+            }
+        });
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getResources().openRawResource(R.raw.latest_1min_humidity), StandardCharsets.UTF_8))) {
-            HUMIDITY_STATIONS = JsonUtils.toList(new JSONObject(reader.lines().collect(Collectors.joining())).optJSONArray("features"), JSONObject.class);
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
+    private static void logPipelineTimings(Context context, String event, FetchPipeline pipeline) {
+        Bundle bundle = new Bundle();
+        for (FetchPipeline.Stage<?> stage : pipeline.getStages()) {
+            bundle.putLong(stage.getName() + "_ms", stage.getDuration());
         }
+        List<FetchPipeline.Stage<?>> criticalPath = pipeline.getCriticalPath();
+        String path = criticalPath.stream().map(FetchPipeline.Stage::getName).collect(Collectors.joining(">"));
+        bundle.putString("critical_path", path.length() > 100 ? path.substring(0, 100) : path);
+        bundle.putLong("critical_path_ms", criticalPath.isEmpty() ? 0 : criticalPath.get(criticalPath.size() - 1).getEndTime() - pipeline.getCreateTime());
+        FirebaseAnalytics.getInstance(context).logEvent(event, bundle);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getResources().openRawResource(R.raw.latest_10min_wind), StandardCharsets.UTF_8))) {
-            WIND_STATIONS = JsonUtils.toList(new JSONObject(reader.lines().collect(Collectors.joining())).optJSONArray("features"), JSONObject.class);
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
+    private static void logSkippedSections(Context context, String event, FetchPipeline pipeline, int skippedSections) {
+        Set<String> fetched = new HashSet<>();
+        for (FetchPipeline.Stage<?> stage : pipeline.getStages()) {
+            fetched.add(stage.getName());
+            if (stage.isSuccessful()) {
+                STAGE_BYTES_RECEIVED.put(stage.getName(), stage.getBytesReceived());
+            }
         }
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getResources().openRawResource(R.raw.forecast_stations), StandardCharsets.UTF_8))) {
-            FORECAST_STATIONS = new JSONObject(reader.lines().collect(Collectors.joining())).optJSONObject("stations");
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
+        long bytesSaved = 0;
+        for (Map.Entry<String, Long> entry : STAGE_BYTES_RECEIVED.entrySet()) {
+            if (!fetched.contains(entry.getKey())) {
+                bytesSaved += entry.getValue();
+            }
         }
+        Bundle bundle = new Bundle();
+        bundle.putLong("value", skippedSections);
+        bundle.putLong("bytes_saved", bytesSaved);
+        FirebaseAnalytics.getInstance(context).logEvent(event, bundle);
+    }
 
-        List<String> files = Arrays.asList(context.getApplicationContext().fileList());
-        if (files.contains(PREFERENCES_FILE_NAME)) {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getApplicationContext().openFileInput(PREFERENCES_FILE_NAME), StandardCharsets.UTF_8))) {
-                PREFERENCES = new JSONObject(reader.lines().collect(Collectors.joining("\n")));
-            } catch (JSONException e) {
-                throw new RuntimeException(e);
+    private static Double findStationValue(CSVReader csv, int stationColumn, int valueColumn, String station, String defaultStation) throws IOException {
+        Double fallback = null;
+        while (csv.nextRow()) {
+            if (csv.valueEquals(stationColumn, station)) {
+                double value = csv.getDouble(valueColumn);
+                if (!Double.isNaN(value)) {
+                    return value;
+                }
             }
-        } else {
-            try {
-                PREFERENCES = new JSONObject();
-                PREFERENCES.put("language", "zh");
-                PREFERENCES.put("refreshRate", 1800000L);
-            } catch (JSONException e) {
-                throw new RuntimeException(e);
+            if (fallback == null && csv.valueEquals(stationColumn, defaultStation)) {
+                fallback = csv.getDouble(valueColumn);
             }
         }
+        return fallback;
     }
 
     public FutureWithProgress<RainfallMapsInfo> getRainfallMaps(Context context) {
+        return getRainfallMaps(context, FetchPriority.INTERACTIVE);
+    }
+
+    public FutureWithProgress<RainfallMapsInfo> getRainfallMaps(Context context, FetchPriority priority) {
         CompletableFutureWithProgress<RainfallMapsInfo> future = new CompletableFutureWithProgress<>();
         long start = System.currentTimeMillis();
-        new Thread(() -> {
+        FetchExecutor.execute(priority, () -> {
             try {
                 String lang = getLanguage().equals("en") ? "e" : "c";
                 LocalDateTime now = TimeUtils.findClosestUnitInThePast(LocalDateTime.now(Shared.Companion.getHK_TIMEZONE().toZoneId()).minusMinutes(11).withSecond(0).withNano(0), 15, ChronoField.MINUTE_OF_HOUR);
@@ -326,13 +331,12 @@ public class Registry {
                 String yesterdayUrl = "https://www.hko.gov.hk/wxinfo/rainfall/cokrig_barnes/rfmap24hrs0000" + lang + ".png";
 
                 LocalDateTime time = now;
-                List<Future<Pair<LocalDateTime, String>>> hourFutures = new ArrayList<>(24);
-                ExecutorService service = Executors.newCachedThreadPool();
+                List<CompletableFuture<Pair<LocalDateTime, String>>> hourFutures = new ArrayList<>(24);
                 while (Duration.between(time, now).getSeconds() <= 86400) {
                     String timeFormat = time.format(DateTimeFormatter.ofPattern("yyyyMMddHHmm"));
                     String hourUrl = "https://www.hko.gov.hk/wxinfo/rainfall/cokrig_barnes/rfmap" + timeFormat + lang + ".png";
                     LocalDateTime mapTime = time;
-                    hourFutures.add(service.submit(() -> {
+                    hourFutures.add(FetchExecutor.submit(priority, () -> {
                         try {
                             return HTTPRequestUtils.isResponseOk(hourUrl) ? Pair.create(mapTime, hourUrl) : null;
                         } finally {
@@ -345,37 +349,48 @@ public class Registry {
                         time = time.withMinute(0);
                     }
                 }
-                Map<LocalDateTime, String> past1HourUrls = new TreeMap<>();
-                for (Future<Pair<LocalDateTime, String>> hourFuture : hourFutures) {
-                    Pair<LocalDateTime, String> result = hourFuture.get();
-                    if (result != null) {
-                        past1HourUrls.put(result.first, result.second);
-                    }
-                }
-                service.shutdown();
+                CompletableFuture.allOf(hourFutures.toArray(new CompletableFuture[0])).whenComplete((unused, error) -> {
+                    try {
+                        if (error != null) {
+                            throw error;
+                        }
+                        Map<LocalDateTime, String> past1HourUrls = new TreeMap<>();
+                        for (CompletableFuture<Pair<LocalDateTime, String>> hourFuture : hourFutures) {
+                            Pair<LocalDateTime, String> result = hourFuture.join();
+                            if (result != null) {
+                                past1HourUrls.put(result.first, result.second);
+                            }
+                        }
 
-                if (past1HourUrls.isEmpty()) {
-                    throw new IllegalStateException("There are no past 1 hour urls");
-                }
+                        if (past1HourUrls.isEmpty()) {
+                            throw new IllegalStateException("There are no past 1 hour urls");
+                        }
 
-                future.complete(new RainfallMapsInfo(past1HourUrls, past24HoursUrl, todayUrl, yesterdayUrl));
+                        future.complete(new RainfallMapsInfo(past1HourUrls, past24HoursUrl, todayUrl, yesterdayUrl));
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        future.complete(null);
+                    } finally {
+                        logFetchTime(context, "fetch_rainfall_maps_ms", start);
+                    }
+                });
             } catch (Throwable e) {
                 e.printStackTrace();
                 future.complete(null);
-            } finally {
-                long end = System.currentTimeMillis();
-                Bundle bundle = new Bundle();
-                bundle.putLong("value", end - start);
-                FirebaseAnalytics.getInstance(context).logEvent("fetch_rainfall_maps_ms", bundle);
+                logFetchTime(context, "fetch_rainfall_maps_ms", start);
             }
-        }).start();
+        });
         return future;
     }
 
     public Future<List<TropicalCycloneInfo>> getTropicalCycloneInfo(Context context) {
+        return getTropicalCycloneInfo(context, FetchPriority.INTERACTIVE);
+    }
+
+    public Future<List<TropicalCycloneInfo>> getTropicalCycloneInfo(Context context, FetchPriority priority) {
         CompletableFuture<List<TropicalCycloneInfo>> future = new CompletableFuture<>();
         long start = System.currentTimeMillis();
-        new Thread(() -> {
+        FetchExecutor.execute(priority, () -> {
             try {
                 JSONObject data = HTTPRequestUtils.getJSONResponse("https://pda.weather.gov.hk/locspc/android_data/TCTrackData/TC/tcFront.json");
                 if (data == null) {
@@ -402,19 +417,49 @@ public class Registry {
                 e.printStackTrace();
                 future.complete(null);
             } finally {
-                long end = System.currentTimeMillis();
-                Bundle bundle = new Bundle();
-                bundle.putLong("value", end - start);
-                FirebaseAnalytics.getInstance(context).logEvent("fetch_tropical_cyclone_info_ms", bundle);
+                logFetchTime(context, "fetch_tropical_cyclone_info_ms", start);
             }
-        }).start();
+        });
         return future;
     }
 
     public Future<LunarDate> getLunarDate(Context context, LocalDate date) {
+        return getLunarDate(context, date, FetchPriority.INTERACTIVE);
+    }
+
+    public Future<LunarDate> getLunarDate(Context context, LocalDate date, FetchPriority priority) {
+        LunarDate lunarDate = LunarCalendarUtils.toLunarDate(date);
+        if (lunarDate != null) {
+            return CompletableFuture.completedFuture(lunarDate);
+        }
+        return fetchLunarDate(context, date, priority);
+    }
+
+    public CompletableFuture<LunarDate> confirmLunarDate(Context context, LocalDate date, LunarDate local) {
+        CompletableFuture<LunarDate> future = new CompletableFuture<>();
+        fetchLunarDate(context, date, FetchPriority.BACKGROUND).whenComplete((remote, error) -> {
+            if (remote == null) {
+                future.complete(local);
+                return;
+            }
+            if (local != null && local.getYear().equals(remote.getYear()) && local.getZodiac().equals(remote.getZodiac()) && local.getDate().equals(remote.getDate())) {
+                future.complete(local);
+                return;
+            }
+            Bundle bundle = new Bundle();
+            bundle.putString("date", date.toString());
+            bundle.putString("local", String.valueOf(local));
+            bundle.putString("remote", remote.toString());
+            FirebaseAnalytics.getInstance(context).logEvent("lunar_date_mismatch", bundle);
+            future.complete(remote.hasClimatology() || local == null ? remote : new LunarDate(remote.getYear(), remote.getZodiac(), remote.getDate(), local.getClimatology()));
+        });
+        return future;
+    }
+
+    private CompletableFuture<LunarDate> fetchLunarDate(Context context, LocalDate date, FetchPriority priority) {
         CompletableFuture<LunarDate> future = new CompletableFuture<>();
         long start = System.currentTimeMillis();
-        new Thread(() -> {
+        FetchExecutor.execute(priority, () -> {
             try {
                 String climatology = null;
                 if (date.equals(LocalDate.now(Shared.Companion.getHK_TIMEZONE().toZoneId()))) {
@@ -435,29 +480,29 @@ public class Registry {
                 e.printStackTrace();
                 future.complete(null);
             } finally {
-                long end = System.currentTimeMillis();
-                Bundle bundle = new Bundle();
-                bundle.putLong("value", end - start);
-                FirebaseAnalytics.getInstance(context).logEvent("fetch_lunar_date_ms", bundle);
+                logFetchTime(context, "fetch_lunar_date_ms", start);
             }
-        }).start();
+        });
         return future;
     }
 
     public FutureWithProgress<CurrentWeatherInfo> getCurrentWeatherInfo(Context context, LocationUtils.LocationResult locationResult) {
+        return getCurrentWeatherInfo(context, locationResult, null, FetchPriority.INTERACTIVE);
+    }
+
+    public FutureWithProgress<CurrentWeatherInfo> getCurrentWeatherInfo(Context context, LocationUtils.LocationResult locationResult, CurrentWeatherInfo previous, FetchPriority priority) {
         CompletableFutureWithProgress<CurrentWeatherInfo> future = new CompletableFutureWithProgress<>();
-        float totalStages = 16F;
+        float fetchStages = 13F;
+        float totalStages = fetchStages + 3F;
         long start = System.currentTimeMillis();
-        new Thread(() -> {
+        AtomicReference<FetchPipeline> pipelineReference = new AtomicReference<>();
+        CompletableFuture<Void> task = FetchExecutor.execute(priority, () -> {
             try {
                 CurrentWeatherInfo.Builder currentWeatherInfoBuilder = new CurrentWeatherInfo.Builder();
 
                 LocalDate today = LocalDate.now(Shared.Companion.getHK_TIMEZONE().toZoneId());
                 currentWeatherInfoBuilder.setDate(today);
 
-                DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-                DateTimeFormatter dateHourFormatter = DateTimeFormatter.ofPattern("yyyyMMddHH");
                 String lang = getLanguage().equals("en") ? "en" : "tc";
                 String lang2 = getLanguage().equals("en") ? "en" : "uc";
                 Location location;
@@ -470,73 +515,81 @@ public class Registry {
                 }
                 future.addProgress(1 / totalStages);
 
-                AtomicDouble minDistance = new AtomicDouble(Double.MAX_VALUE);
-                JSONObject weatherStation = WEATHER_STATIONS.stream().min(Comparator.comparing(s -> {
-                    JSONArray pos = s.optJSONObject("geometry").optJSONArray("coordinates");
-                    double distance = findDistance(location.getLatitude(), location.getLongitude(), pos.optDouble(1), pos.optDouble(0));
-                    if (distance < minDistance.get()) {
-                        minDistance.set(distance);
-                    }
-                    return distance;
-                })).orElseThrow(RuntimeException::new).optJSONObject("properties");
+                StationIndex.Result<WeatherStation> nearestWeatherStation = Stations.WEATHER_STATIONS.nearest(location.getLatitude(), location.getLongitude(), MAX_WEATHER_STATION_DISTANCE_KM);
+                WeatherStation weatherStation = nearestWeatherStation == null ? null : nearestWeatherStation.getStation();
                 future.addProgress(1 / totalStages);
 
                 String actualWeatherStationName;
-                if (minDistance.get() > 100) {
+                if (weatherStation == null) {
                     tempWeatherStationName = getLanguage().equals("en") ? "Hong Kong" : "香港";
                     actualWeatherStationName = "";
                 } else if (tempWeatherStationName == null) {
-                    tempWeatherStationName = weatherStation.optString("AutomaticWeatherStation_" + lang2);
+                    tempWeatherStationName = weatherStation.getName(lang2);
                     actualWeatherStationName = tempWeatherStationName;
                 } else {
-                    actualWeatherStationName = weatherStation.optString("AutomaticWeatherStation_" + lang2);
+                    actualWeatherStationName = weatherStation.getName(lang2);
                 }
                 currentWeatherInfoBuilder.setWeatherStation(tempWeatherStationName);
+                String weatherStationName = tempWeatherStationName;
                 future.addProgress(1 / totalStages);
 
-                ExecutorService service = Executors.newFixedThreadPool(12);
-                List<Future<?>> subTasks = new ArrayList<>((int) totalStages - 3);
-                try {
-                    subTasks.add(service.submit(() -> {
+                long now = System.currentTimeMillis();
+                Set<CurrentWeatherInfo.Section> dueSections = EnumSet.noneOf(CurrentWeatherInfo.Section.class);
+                for (CurrentWeatherInfo.Section section : CurrentWeatherInfo.Section.values()) {
+                    if (!section.isUpToDate(previous, today, weatherStationName, now)) {
+                        dueSections.add(section);
+                    }
+                }
+                if (dueSections.contains(CurrentWeatherInfo.Section.HOURLY_FORECAST)) {
+                    dueSections.add(CurrentWeatherInfo.Section.CURRENT_CONDITIONS);
+                }
+                for (CurrentWeatherInfo.Section section : CurrentWeatherInfo.Section.values()) {
+                    if (!dueSections.contains(section)) {
+                        currentWeatherInfoBuilder.copySection(section, previous);
+                        currentWeatherInfoBuilder.setSectionStatus(section, previous.getSectionStatus(section));
+                    }
+                }
+                int skippedSections = CurrentWeatherInfo.Section.values().length - dueSections.size();
+
+                FetchPipeline pipeline = new FetchPipeline(priority);
+                pipelineReference.set(pipeline);
+                Map<CurrentWeatherInfo.Section, FetchPipeline.Stage<?>> sectionStages = new EnumMap<>(CurrentWeatherInfo.Section.class);
+                if (dueSections.contains(CurrentWeatherInfo.Section.CURRENT_TEMPERATURE)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.CURRENT_TEMPERATURE, pipeline.stage("temperature", SECTION_FETCH_ATTEMPTS, () -> {
                         String temperatureLang = lang.equals("en") ? "" : "_uc";
-                        List<JSONObject> temperatureData = HTTPRequestUtils.getCSVResponse("https://data.weather.gov.hk/weatherAPI/hko_data/regional-weather/latest_1min_temperature" + temperatureLang + ".csv");
-                        if (temperatureData == null) {
-                            throw new RuntimeException();
-                        }
                         String temperatureStationField = lang.equals("en") ? "Automatic Weather Station" : "自動氣象站";
+                        String temperatureField = lang.equals("en") ? "Air Temperature(degree Celsius)" : "氣溫（攝氏）";
                         String defaultTemperatureStation = lang.equals("en") ? "HK Observatory" : "天文台";
-                        JSONObject temperatureHere = temperatureData.stream().filter(e -> e.optString(temperatureStationField).equals(actualWeatherStationName) && !Double.isNaN(e.optDouble(lang.equals("en") ? "Air Temperature(degree Celsius)" : "氣溫（攝氏）"))).findFirst()
-                                .orElseGet(() -> temperatureData.stream().filter(e -> e.optString(temperatureStationField).equals(defaultTemperatureStation)).findFirst().orElse(null));
+                        Double temperatureHere = HTTPRequestUtils.readCSVResponse("https://data.weather.gov.hk/weatherAPI/hko_data/regional-weather/latest_1min_temperature" + temperatureLang + ".csv", csv -> findStationValue(csv, csv.getColumnIndex(temperatureStationField), csv.getColumnIndex(temperatureField), actualWeatherStationName, defaultTemperatureStation));
                         if (temperatureHere == null) {
                             throw new RuntimeException();
                         }
-                        currentWeatherInfoBuilder.setCurrentTemperature((float) temperatureHere.optDouble(lang.equals("en") ? "Air Temperature(degree Celsius)" : "氣溫（攝氏）"));
+                        currentWeatherInfoBuilder.setCurrentTemperature(temperatureHere.floatValue());
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    subTasks.add(service.submit(() -> {
-                        String humidityStation = HUMIDITY_STATIONS.stream().min(Comparator.comparing(s -> {
-                            JSONArray pos = s.optJSONObject("geometry").optJSONArray("coordinates");
-                            return findDistance(location.getLatitude(), location.getLongitude(), pos.optDouble(1), pos.optDouble(0));
-                        })).map(e -> e.optJSONObject("properties").optString("AutomaticWeatherStation_" + lang2)).orElse("");
+                if (dueSections.contains(CurrentWeatherInfo.Section.CURRENT_HUMIDITY)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.CURRENT_HUMIDITY, pipeline.stage("humidity", SECTION_FETCH_ATTEMPTS, () -> {
+                        StationIndex.Result<WeatherStation> nearestHumidityStation = Stations.HUMIDITY_STATIONS.nearest(location.getLatitude(), location.getLongitude());
+                        String humidityStation = nearestHumidityStation == null ? "" : nearestHumidityStation.getStation().getName(lang2);
 
                         String humidityLang = lang.equals("en") ? "" : "_uc";
-                        List<JSONObject> humidityData = HTTPRequestUtils.getCSVResponse("https://data.weather.gov.hk/weatherAPI/hko_data/regional-weather/latest_1min_humidity" + humidityLang + ".csv");
-                        if (humidityData == null) {
-                            throw new RuntimeException();
-                        }
                         String humidityStationField = lang.equals("en") ? "Automatic Weather Station" : "自動氣象站";
+                        String humidityField = lang.equals("en") ? "Relative Humidity(percent)" : "相對濕度（百分比）";
                         String defaultHumidityStation = lang.equals("en") ? "HK Observatory" : "天文台";
-                        JSONObject humidityHere = humidityData.stream().filter(e -> e.optString(humidityStationField).equals(humidityStation) && !Double.isNaN(e.optDouble(lang.equals("en") ? "Relative Humidity(percent)" : "相對濕度（百分比）"))).findFirst()
-                                .orElseGet(() -> humidityData.stream().filter(e -> e.optString(humidityStationField).equals(defaultHumidityStation)).findFirst().orElse(null));
+                        Double humidityHere = HTTPRequestUtils.readCSVResponse("https://data.weather.gov.hk/weatherAPI/hko_data/regional-weather/latest_1min_humidity" + humidityLang + ".csv", csv -> findStationValue(csv, csv.getColumnIndex(humidityStationField), csv.getColumnIndex(humidityField), humidityStation, defaultHumidityStation));
                         if (humidityHere == null) {
                             throw new RuntimeException();
                         }
-                        currentWeatherInfoBuilder.setCurrentHumidity((float) humidityHere.optDouble(lang.equals("en") ? "Relative Humidity(percent)" : "相對濕度（百分比）"));
+                        currentWeatherInfoBuilder.setCurrentHumidity(humidityHere.floatValue());
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    subTasks.add(service.submit(() -> {
+                FetchPipeline.Stage<WeatherStatusIcon> currentWeatherStage;
+                if (dueSections.contains(CurrentWeatherInfo.Section.CURRENT_CONDITIONS)) {
+                    currentWeatherStage = pipeline.stage("rhrread", SECTION_FETCH_ATTEMPTS, () -> {
                         JSONObject currentWeatherData = HTTPRequestUtils.getJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=rhrread&lang=" + lang);
                         currentWeatherInfoBuilder.setUvIndex(currentWeatherData.opt("uvindex") instanceof JSONObject ? (float) currentWeatherData.optJSONObject("uvindex").optJSONArray("data").optJSONObject(0).optDouble("value") : -1F);
                         JSONArray iconsArray = currentWeatherData.optJSONArray("icon");
@@ -544,181 +597,147 @@ public class Registry {
                         currentWeatherInfoBuilder.setWeatherIcon(weatherIcon);
                         currentWeatherInfoBuilder.setNextWeatherIcon(iconsArray.length() > 1 ? WeatherStatusIcon.getByCode(iconsArray.optInt(1)) : null);
                         future.addProgress(1 / totalStages);
+                        return weatherIcon;
+                    });
+                    sectionStages.put(CurrentWeatherInfo.Section.CURRENT_CONDITIONS, currentWeatherStage);
+                } else {
+                    currentWeatherStage = null;
+                }
 
-                        String forecastStation = StreamSupport.stream(Spliterators.spliteratorUnknownSize(FORECAST_STATIONS.keys(), Spliterator.ORDERED), false).min(Comparator.comparing(k -> {
-                            JSONArray pos = FORECAST_STATIONS.optJSONArray(k);
-                            return findDistance(location.getLatitude(), location.getLongitude(), pos.optDouble(0), pos.optDouble(1));
-                        })).orElse(null);
-                        JSONObject forecastStationData = HTTPRequestUtils.getJSONResponse("https://maps.weather.gov.hk/ocf/dat/" + forecastStation + ".xml");
-                        JSONArray forecastDailyData = forecastStationData.optJSONArray("DailyForecast");
-                        List<JSONObject> dailyForecastArray = JsonUtils.toList(forecastDailyData, JSONObject.class);
-
-                        String chanceOfRainStr = dailyForecastArray.get(0).optString("ForecastChanceOfRain");
-                        WeatherInfo.RangeSign chanceOfRainRangeSign = WeatherInfo.RangeSign.NONE;
-                        for (WeatherInfo.RangeSign rangeSign : WeatherInfo.RangeSign.values()) {
-                            if (chanceOfRainStr.contains(rangeSign.getSymbol())) {
-                                currentWeatherInfoBuilder.setChanceOfRainRangeSign(chanceOfRainRangeSign = rangeSign);
-                                break;
-                            }
+                FetchPipeline.Stage<WeatherDataDecoders.ForecastStationData> forecastStationStage;
+                if (dueSections.contains(CurrentWeatherInfo.Section.DAILY_FORECAST) || dueSections.contains(CurrentWeatherInfo.Section.HOURLY_FORECAST)) {
+                    forecastStationStage = pipeline.stage("forecast_station", SECTION_FETCH_ATTEMPTS, () -> {
+                        StationIndex.Result<String> nearestForecastStation = Stations.FORECAST_STATIONS.nearest(location.getLatitude(), location.getLongitude());
+                        String forecastStation = nearestForecastStation == null ? null : nearestForecastStation.getStation();
+                        WeatherDataDecoders.ForecastStationData forecastStationData = HTTPRequestUtils.readJSONResponse("https://maps.weather.gov.hk/ocf/dat/" + forecastStation + ".xml", WeatherDataDecoders::decodeForecastStationData);
+                        if (forecastStationData == null) {
+                            throw new RuntimeException();
                         }
-                        currentWeatherInfoBuilder.setChanceOfRain(Float.parseFloat(chanceOfRainStr.substring(chanceOfRainRangeSign.getSymbolWithSpace().length(), chanceOfRainStr.length() - 1)));
+
+                        WeatherDataDecoders.ChanceOfRain chanceOfRain = WeatherDataDecoders.parseChanceOfRain(forecastStationData.getFirstChanceOfRain());
+                        currentWeatherInfoBuilder.setChanceOfRainRangeSign(chanceOfRain.getRangeSign());
+                        currentWeatherInfoBuilder.setChanceOfRain(chanceOfRain.getValue());
                         future.addProgress(1 / totalStages);
+                        return forecastStationData;
+                    });
+                } else {
+                    forecastStationStage = null;
+                }
 
-                        JSONObject forecastData = HTTPRequestUtils.getJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=fnd&lang=" + lang);
+                FetchPipeline.Stage<WeatherDataDecoders.NineDayForecastData> nineDayForecastStage;
+                if (dueSections.contains(CurrentWeatherInfo.Section.DAILY_FORECAST)) {
+                    nineDayForecastStage = pipeline.stage("nine_day_forecast", SECTION_FETCH_ATTEMPTS, () -> {
+                        WeatherDataDecoders.NineDayForecastData forecastData = HTTPRequestUtils.readJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=fnd&lang=" + lang, WeatherDataDecoders::decodeNineDayForecast);
                         if (forecastData == null) {
                             throw new RuntimeException();
                         }
-
-                        currentWeatherInfoBuilder.setForecastGeneralSituation(forecastData.optString("generalSituation"));
-
-                        JSONArray dayArray = forecastData.optJSONArray("weatherForecast");
-                        List<ForecastWeatherInfo> forecastInfo = new ArrayList<>(dayArray.length() - 1);
-
-                        JSONObject dayObj = dayArray.optJSONObject(0);
-                        currentWeatherInfoBuilder.setHighestTemperature((float) dayObj.optJSONObject("forecastMaxtemp").optDouble("value", -Float.MAX_VALUE));
-                        currentWeatherInfoBuilder.setLowestTemperature((float) dayObj.optJSONObject("forecastMintemp").optDouble("value", -Float.MAX_VALUE));
-                        currentWeatherInfoBuilder.setMaxRelativeHumidity((float) dayObj.optJSONObject("forecastMaxrh").optDouble("value", -Float.MAX_VALUE));
-                        currentWeatherInfoBuilder.setMinRelativeHumidity((float) dayObj.optJSONObject("forecastMinrh").optDouble("value", -Float.MAX_VALUE));
+                        currentWeatherInfoBuilder.setForecastGeneralSituation(forecastData.getGeneralSituation());
                         future.addProgress(1 / totalStages);
+                        return forecastData;
+                    });
+                } else {
+                    nineDayForecastStage = null;
+                }
 
-                        for (int i = 0; i < dayArray.length(); i++) {
-                            JSONObject forecastDayObj = dayArray.optJSONObject(i);
-
-                            String forecastDateStr = forecastDayObj.optString("forecastDate");
-                            JSONObject forecastStationDayObj = dailyForecastArray.stream().filter(e -> e.optString("ForecastDate").equals(forecastDateStr)).findFirst().orElse(null);
-
-                            LocalDate forecastDate = LocalDate.parse(forecastDateStr, dateFormatter);
-                            float forecastHighestTemperature = (float) forecastDayObj.optJSONObject("forecastMaxtemp").optDouble("value", -Float.MAX_VALUE);
-                            float forecastLowestTemperature = (float) forecastDayObj.optJSONObject("forecastMintemp").optDouble("value", -Float.MAX_VALUE);
-                            float forecastMaxRelativeHumidity = (float) forecastDayObj.optJSONObject("forecastMaxrh").optDouble("value", -Float.MAX_VALUE);
-                            float forecastMinRelativeHumidity = (float) forecastDayObj.optJSONObject("forecastMinrh").optDouble("value", -Float.MAX_VALUE);
-                            WeatherStatusIcon forecastWeatherIcon = WeatherStatusIcon.getByCode(forecastDayObj.optInt("ForecastIcon"));
-                            String forecastWind = forecastDayObj.optString("forecastWind");
-                            String forecastWeather = forecastDayObj.optString("forecastWeather");
-
-                            float forecastChanceOfRain;
-                            WeatherInfo.RangeSign forecastChanceOfRainRangeSign = WeatherInfo.RangeSign.NONE;
-                            if (forecastStationDayObj == null) {
-                                forecastChanceOfRain = -1F;
-                            } else {
-                                String forecastChanceOfRainStr = forecastStationDayObj.optString("ForecastChanceOfRain");
-                                for (WeatherInfo.RangeSign rangeSign : WeatherInfo.RangeSign.values()) {
-                                    if (forecastChanceOfRainStr.contains(rangeSign.getSymbol())) {
-                                        forecastChanceOfRainRangeSign = rangeSign;
-                                        break;
-                                    }
-                                }
-                                forecastChanceOfRain = Float.parseFloat(forecastChanceOfRainStr.substring(forecastChanceOfRainRangeSign.getSymbolWithSpace().length(), forecastChanceOfRainStr.length() - 1));
-                            }
-
-                            forecastInfo.add(new ForecastWeatherInfo(forecastDate, forecastHighestTemperature, forecastLowestTemperature, forecastMaxRelativeHumidity, forecastMinRelativeHumidity, forecastChanceOfRain, forecastChanceOfRainRangeSign, forecastWeatherIcon, forecastWind, forecastWeather));
-                        }
+                if (dueSections.contains(CurrentWeatherInfo.Section.DAILY_FORECAST)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.DAILY_FORECAST, pipeline.stage("daily_forecast", () -> {
+                        List<ForecastWeatherInfo> forecastInfo = WeatherDataDecoders.applyDailyChanceOfRain(nineDayForecastStage.get().getForecastInfo(), forecastStationStage.get().getDailyChanceOfRain());
+                        ForecastWeatherInfo todayForecast = forecastInfo.get(0);
+                        currentWeatherInfoBuilder.setHighestTemperature(todayForecast.getHighestTemperature());
+                        currentWeatherInfoBuilder.setLowestTemperature(todayForecast.getLowestTemperature());
+                        currentWeatherInfoBuilder.setMaxRelativeHumidity(todayForecast.getMaxRelativeHumidity());
+                        currentWeatherInfoBuilder.setMinRelativeHumidity(todayForecast.getMinRelativeHumidity());
                         currentWeatherInfoBuilder.setForecastInfo(forecastInfo);
                         future.addProgress(1 / totalStages);
+                    }, nineDayForecastStage, forecastStationStage));
+                }
 
-                        JSONArray hourArray = forecastStationData.optJSONArray("HourlyWeatherForecast");
-                        List<HourlyWeatherInfo> hourlyWeatherInfo = new ArrayList<>(hourArray.length());
-                        WeatherStatusIcon lastHourIcon = weatherIcon;
-                        for (int i = 0; i < hourArray.length(); i++) {
-                            JSONObject hourObj = hourArray.optJSONObject(i);
-
-                            LocalDateTime hour = LocalDateTime.parse(hourObj.optString("ForecastHour"), dateHourFormatter);
-                            float hourTemperature = (float) hourObj.optDouble("ForecastTemperature", -Float.MAX_VALUE);
-                            float hourHumidity = (float) hourObj.optDouble("ForecastRelativeHumidity", -Float.MAX_VALUE);
-                            float hourWindDirection = (float) hourObj.optDouble("ForecastWindDirection", -Float.MAX_VALUE);
-                            float hourWindSpeed = (float) hourObj.optDouble("ForecastWindSpeed", -Float.MAX_VALUE);
-                            WeatherStatusIcon hourIcon;
-                            if (hourObj.has("ForecastWeather")) {
-                                hourIcon = WeatherStatusIcon.getByCode(hourObj.optInt("ForecastWeather"));
-                                if (hourIcon == null) {
-                                    hourIcon = lastHourIcon;
-                                } else {
-                                    lastHourIcon = hourIcon;
-                                }
-                            } else {
-                                hourIcon = lastHourIcon;
-                            }
-
-                            hourlyWeatherInfo.add(new HourlyWeatherInfo(hour, hourTemperature, hourHumidity, hourWindDirection, hourWindSpeed, hourIcon));
-                        }
+                if (dueSections.contains(CurrentWeatherInfo.Section.HOURLY_FORECAST)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.HOURLY_FORECAST, pipeline.stage("hourly_forecast", () -> {
+                        List<HourlyWeatherInfo> hourlyWeatherInfo = WeatherDataDecoders.fillMissingHourlyIcons(forecastStationStage.get().getHourlyWeatherInfo(), currentWeatherStage.get());
                         currentWeatherInfoBuilder.setHourlyWeatherInfo(hourlyWeatherInfo);
                         future.addProgress(1 / totalStages);
-                    }));
+                    }, forecastStationStage, currentWeatherStage));
+                }
 
-                    subTasks.add(service.submit(() -> {
+                if (dueSections.contains(CurrentWeatherInfo.Section.WIND)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.WIND, pipeline.stage("wind", SECTION_FETCH_ATTEMPTS, () -> {
                         String windLang = lang.equals("en") ? "" : "_uc";
-                        List<JSONObject> windData = HTTPRequestUtils.getCSVResponse("https://data.weather.gov.hk/weatherAPI/hko_data/regional-weather/latest_10min_wind" + windLang + ".csv");
-                        if (windData == null) {
-                            throw new RuntimeException();
-                        }
-
                         String windStationField = lang.equals("en") ? "Automatic Weather Station" : "自動氣象站";
+                        String windDirectionField = lang.equals("en") ? "10-Minute Mean Wind Direction(Compass points)" : "十分鐘平均風向（方位點）";
+                        String windSpeedField = lang.equals("en") ? "10-Minute Mean Speed(km/hour)" : "十分鐘平均風速（公里/小時）";
+                        String gustField = lang.equals("en") ? "10-Minute Maximum Gust(km/hour)" : "十分鐘最高陣風風速（公里/小時）";
                         String defaultWindStation = lang.equals("en") ? "Star Ferry" : "天星碼頭";
-                        JSONObject windHere = WIND_STATIONS.stream().min(Comparator.comparing(s -> {
-                            JSONArray pos = s.optJSONObject("geometry").optJSONArray("coordinates");
-                            return findDistance(location.getLatitude(), location.getLongitude(), pos.optDouble(1), pos.optDouble(0));
-                        })).map(e -> {
-                            String stationName = e.optJSONObject("properties").optString("AutomaticWeatherStation_" + lang2);
-                            return windData.stream().filter(s -> s.optString(windStationField).equals(stationName)).findFirst().orElse(null);
-                        }).filter(e -> {
-                            return !Double.isNaN(e.optDouble(lang.equals("en") ? "10-Minute Mean Wind Direction(Compass points)" : "十分鐘平均風向（方位點）"));
-                        }).orElseGet(() -> {
-                            return windData.stream().filter(e -> e.optString(windStationField).equals(defaultWindStation)).findFirst().orElse(null);
+                        StationIndex.Result<WeatherStation> nearestWindStation = Stations.WIND_STATIONS.nearest(location.getLatitude(), location.getLongitude());
+                        String windStation = nearestWindStation == null ? "" : nearestWindStation.getStation().getName(lang2);
+                        WindReading windHere = HTTPRequestUtils.readCSVResponse("https://data.weather.gov.hk/weatherAPI/hko_data/regional-weather/latest_10min_wind" + windLang + ".csv", csv -> {
+                            int stationColumn = csv.getColumnIndex(windStationField);
+                            int directionColumn = csv.getColumnIndex(windDirectionField);
+                            int speedColumn = csv.getColumnIndex(windSpeedField);
+                            int gustColumn = csv.getColumnIndex(gustField);
+                            WindReading fallback = null;
+                            while (csv.nextRow()) {
+                                if (csv.valueEquals(stationColumn, windStation) && !Double.isNaN(csv.getDouble(speedColumn))) {
+                                    return new WindReading(csv.getString(directionColumn), csv.getFloat(speedColumn, 0F), csv.getFloat(gustColumn, 0F));
+                                }
+                                if (fallback == null && csv.valueEquals(stationColumn, defaultWindStation)) {
+                                    fallback = new WindReading(csv.getString(directionColumn), csv.getFloat(speedColumn, 0F), csv.getFloat(gustColumn, 0F));
+                                }
+                            }
+                            return fallback == null ? WindReading.NONE : fallback;
                         });
+                        if (windHere == null) {
+                            throw new RuntimeException();
+                        }
                         String windDirection;
                         float windSpeed;
                         float gust;
-                        if (windHere == null) {
+                        if (windHere.direction == null || windHere.direction.equals("N/A")) {
                             windDirection = null;
                             windSpeed = -1F;
                             gust = -1F;
                         } else {
-                            String tempWindDirection = windHere.optString(lang.equals("en") ? "10-Minute Mean Wind Direction(Compass points)" : "十分鐘平均風向（方位點）");
-                            if (tempWindDirection.equals("N/A")) {
-                                windDirection = null;
-                                windSpeed = -1F;
-                                gust = -1F;
-                            } else {
-                                windDirection = tempWindDirection;
-                                windSpeed = (float) windHere.optDouble(lang.equals("en") ? "10-Minute Mean Speed(km/hour)" : "十分鐘平均風速（公里/小時）", 0);
-                                gust = (float) windHere.optDouble(lang.equals("en") ? "10-Minute Maximum Gust(km/hour)" : "十分鐘最高陣風風速（公里/小時）", 0);
-                                if (windDirection.equals("無風") || windDirection.equals("Calm")) {
-                                    gust = windSpeed;
-                                    windSpeed = 0F;
-                                }
+                            windDirection = windHere.direction;
+                            windSpeed = windHere.speed;
+                            gust = windHere.gust;
+                            if (windDirection.equals("無風") || windDirection.equals("Calm")) {
+                                gust = windSpeed;
+                                windSpeed = 0F;
                             }
                         }
                         currentWeatherInfoBuilder.setWindDirection(windDirection).setWindSpeed(windSpeed).setGust(gust);
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    String todayDateStr = today.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                    subTasks.add(service.submit(() -> {
-                        List<JSONObject> sunData = HTTPRequestUtils.getCSVResponse("https://data.weather.gov.hk/weatherAPI/opendata/opendata.php?dataType=SRS&year=" + today.getYear() + "&rformat=csv", s -> s.replaceAll("[^a-zA-Z.0-9:\\-,]", ""));
-                        if (sunData == null) {
+                if (dueSections.contains(CurrentWeatherInfo.Section.SUN_TIMES)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.SUN_TIMES, pipeline.stage("sun", SECTION_FETCH_ATTEMPTS, () -> {
+                        LocalTime[] todaySun = AstronomicalTableCache.getTimes(context, AstronomicalTable.Type.SUN, today);
+                        AstronomicalTableCache.getTimes(context, AstronomicalTable.Type.SUN, today.plusDays(1));
+                        if (todaySun == null) {
+                            todaySun = AstronomyUtils.computeSunTimes(today, location.getLatitude(), location.getLongitude());
+                        }
+                        if (todaySun == null || todaySun[0] == null || todaySun[1] == null || todaySun[2] == null) {
                             throw new RuntimeException();
                         }
-                        JSONObject todaySun = sunData.stream().filter(e -> e.optString("YYYY-MM-DD").equals(todayDateStr)).findFirst().orElse(null);
-                        LocalTime sunriseTime = LocalTime.parse(todaySun.optString("RISE"), timeFormatter);
-                        LocalTime sunTransitTime = LocalTime.parse(todaySun.optString("TRAN."), timeFormatter);
-                        LocalTime sunsetTime = LocalTime.parse(todaySun.optString("SET"), timeFormatter);
-                        currentWeatherInfoBuilder.setSunriseTime(sunriseTime).setSunTransitTime(sunTransitTime).setSunsetTime(sunsetTime);
+                        currentWeatherInfoBuilder.setSunriseTime(todaySun[0]).setSunTransitTime(todaySun[1]).setSunsetTime(todaySun[2]);
                         future.addProgress(1 / totalStages);
                     }));
-                    subTasks.add(service.submit(() -> {
-                        List<JSONObject> moonData = HTTPRequestUtils.getCSVResponse("https://data.weather.gov.hk/weatherAPI/opendata/opendata.php?dataType=MRS&year=" + today.getYear() + "&rformat=csv", s -> s.replaceAll("[^a-zA-Z.0-9:\\-,]", ""));
-                        if (moonData == null) {
-                            throw new RuntimeException();
+                }
+                if (dueSections.contains(CurrentWeatherInfo.Section.MOON_TIMES)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.MOON_TIMES, pipeline.stage("moon", SECTION_FETCH_ATTEMPTS, () -> {
+                        LocalTime[] todayMoon = AstronomicalTableCache.getTimes(context, AstronomicalTable.Type.MOON, today);
+                        AstronomicalTableCache.getTimes(context, AstronomicalTable.Type.MOON, today.plusDays(1));
+                        if (todayMoon == null) {
+                            todayMoon = AstronomyUtils.computeMoonTimes(today, location.getLatitude(), location.getLongitude());
                         }
-                        JSONObject todayMoon = moonData.stream().filter(e -> e.optString("YYYY-MM-DD").equals(todayDateStr)).findFirst().orElse(null);
-                        LocalTime moonriseTime = todayMoon.optString("RISE").isEmpty() ? null : LocalTime.parse(todayMoon.optString("RISE"), timeFormatter);
-                        LocalTime moonTransitTime = todayMoon.optString("TRAN.").isEmpty() ? null : LocalTime.parse(todayMoon.optString("TRAN."), timeFormatter);
-                        LocalTime moonsetTime = todayMoon.optString("SET").isEmpty() ? null : LocalTime.parse(todayMoon.optString("SET"), timeFormatter);
-                        currentWeatherInfoBuilder.setMoonriseTime(moonriseTime).setMoonTransitTime(moonTransitTime).setMoonsetTime(moonsetTime);
+                        currentWeatherInfoBuilder.setMoonriseTime(todayMoon[0]).setMoonTransitTime(todayMoon[1]).setMoonsetTime(todayMoon[2]);
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    subTasks.add(service.submit(() -> {
+                if (dueSections.contains(CurrentWeatherInfo.Section.LOCAL_FORECAST)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.LOCAL_FORECAST, pipeline.stage("local_forecast", SECTION_FETCH_ATTEMPTS, () -> {
                         JSONObject localForecastData = HTTPRequestUtils.getJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=flw&lang=" + lang);
                         if (localForecastData == null) {
                             throw new RuntimeException();
@@ -734,8 +753,10 @@ public class Registry {
                         currentWeatherInfoBuilder.setLocalForecastInfo(localForecastInfo);
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    subTasks.add(service.submit(() -> {
+                if (dueSections.contains(CurrentWeatherInfo.Section.HEAT_STRESS)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.HEAT_STRESS, pipeline.stage("heat_stress", SECTION_FETCH_ATTEMPTS, () -> {
                         JSONObject heatStressAtWorkData = HTTPRequestUtils.getJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/hsww.php?lang=" + lang);
                         if (heatStressAtWorkData == null) {
                             throw new RuntimeException();
@@ -755,8 +776,10 @@ public class Registry {
                         currentWeatherInfoBuilder.setHeatStressAtWorkInfo(heatStressAtWorkInfo);
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    subTasks.add(service.submit(() -> {
+                if (dueSections.contains(CurrentWeatherInfo.Section.SPECIAL_TYPHOON)) {
+                    sectionStages.put(CurrentWeatherInfo.Section.SPECIAL_TYPHOON, pipeline.stage("special_typhoon", SECTION_FETCH_ATTEMPTS, () -> {
                         String specialTyphoonInfoLang = lang.equals("en") ? "" : "_tc";
                         JSONObject specialTyphoonInfoData = HTTPRequestUtils.getJSONResponse("https://pda.weather.gov.hk/locspc/android_data/tc_part2" + specialTyphoonInfoLang + ".json");
                         SpecialTyphoonInfo specialTyphoonInfo;
@@ -791,31 +814,67 @@ public class Registry {
                         currentWeatherInfoBuilder.setSpecialTyphoonInfo(specialTyphoonInfo);
                         future.addProgress(1 / totalStages);
                     }));
+                }
 
-                    for (Future<?> subTask : subTasks) {
-                        subTask.get();
-                    }
-                    future.complete(currentWeatherInfoBuilder.build());
-                } finally {
-                    service.shutdown();
+                future.addProgress((fetchStages - pipeline.getStages().size()) / totalStages);
+                if (future.isCancelled()) {
+                    pipeline.cancel();
                 }
+                pipeline.whenAllComplete().whenComplete((unused, error) -> {
+                    try {
+                        for (Map.Entry<CurrentWeatherInfo.Section, FetchPipeline.Stage<?>> entry : sectionStages.entrySet()) {
+                            CurrentWeatherInfo.Section section = entry.getKey();
+                            FetchPipeline.Stage<?> stage = entry.getValue();
+                            if (stage.isSuccessful()) {
+                                currentWeatherInfoBuilder.setSectionStatus(section, new CurrentWeatherInfo.SectionStatus(stage.getEndTime(), true));
+                                continue;
+                            }
+                            if (stage.getFailure() != null) {
+                                stage.getFailure().printStackTrace();
+                            }
+                            if (section.canReuse(previous, today, weatherStationName)) {
+                                currentWeatherInfoBuilder.copySection(section, previous);
+                                currentWeatherInfoBuilder.setSectionStatus(section, new CurrentWeatherInfo.SectionStatus(previous.getSectionStatus(section).getUpdateTime(), false));
+                            } else if (section.isOptional()) {
+                                currentWeatherInfoBuilder.setSectionStatus(section, CurrentWeatherInfo.SectionStatus.UNKNOWN);
+                            } else {
+                                throw new IllegalStateException("Section " + section + " failed and has no previous value");
+                            }
+                        }
+                        future.complete(currentWeatherInfoBuilder.build());
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        future.complete(null);
+                    } finally {
+                        logFetchTime(context, "fetch_current_weather_info_ms", start);
+                        logPipelineTimings(context, "fetch_current_weather_info_stages", pipeline);
+                        logSkippedSections(context, "fetch_current_weather_info_skipped", pipeline, skippedSections);
+                    }
+                });
             } catch (Throwable e) {
                 e.printStackTrace();
                 future.complete(null);
-            } finally {
-                long end = System.currentTimeMillis();
-                Bundle bundle = new Bundle();
-                bundle.putLong("value", end - start);
-                FirebaseAnalytics.getInstance(context).logEvent("fetch_current_weather_info_ms", bundle);
+                logFetchTime(context, "fetch_current_weather_info_ms", start);
+            }
+        });
+        cancelWith(future, () -> {
+            task.cancel(true);
+            FetchPipeline pipeline = pipelineReference.get();
+            if (pipeline != null) {
+                pipeline.cancel();
             }
-        }).start();
+        });
         return future;
     }
 
     public Future<Map<WeatherWarningsType, String>> getActiveWarnings(Context context) {
+        return getActiveWarnings(context, FetchPriority.INTERACTIVE);
+    }
+
+    public Future<Map<WeatherWarningsType, String>> getActiveWarnings(Context context, FetchPriority priority) {
         CompletableFuture<Map<WeatherWarningsType, String>> future = new CompletableFuture<>();
         long start = System.currentTimeMillis();
-        new Thread(() -> {
+        CompletableFuture<Void> task = FetchExecutor.execute(priority, () -> {
             try {
                 String lang = getLanguage().equals("en") ? "en" : "tc";
 
@@ -832,40 +891,10 @@ public class Registry {
                     }
                 }
 
-                JSONObject data = HTTPRequestUtils.getJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=warningInfo&lang=" + lang);
-                if (data != null) {
-                    JSONArray array = data.optJSONArray("details");
-                    if (array != null) {
-                        for (int i = 0; i < array.length(); i++) {
-                            JSONObject details = array.optJSONObject(i);
-                            try {
-                                WeatherWarningsType warningType = WeatherWarningsType.valueOf((details.has("subtype") ? details.optString("subtype") : details.optString("warningStatementCode")).toUpperCase());
-                                if (warnings.containsKey(warningType)) {
-                                    String warningName = getLanguage().equals("en") ? warningType.getNameEn() : warningType.getNameZh();
-                                    JSONArray contentsArray = details.optJSONArray("contents");
-                                    String contents;
-                                    if (contentsArray == null || contentsArray.length() == 0) {
-                                        contents = null;
-                                    } else {
-                                        List<String> lines = JsonUtils.toList(contentsArray, String.class);
-                                        if (!lines.get(0).trim().equalsIgnoreCase(warningName)) {
-                                            lines.add(0, warningName);
-                                        }
-                                        contents = String.join("\n", lines);
-                                        OffsetDateTime time = OffsetDateTime.parse(details.optString("updateTime"));
-                                        if (getLanguage().equals("en")) {
-                                            contents += "\nDispatched by the Hong Kong Observatory at " + DateTimeFormatter.ofPattern("HH:mm' HKT on 'dd.MM.yyyy", Locale.ENGLISH).format(time);
-                                        } else {
-                                            contents += "\n以上天氣稿由天文台於" + DateTimeFormatter.ofPattern("yyyy年MM月dd日HH時mm分", Locale.TRADITIONAL_CHINESE).format(time) + "發出";
-                                        }
-                                    }
-                                    warnings.put(warningType, contents);
-                                }
-                            } catch (Throwable e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
+                boolean english = getLanguage().equals("en");
+                Map<WeatherWarningsType, String> details = HTTPRequestUtils.readJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=warningInfo&lang=" + lang, reader -> WeatherDataDecoders.decodeWarningInfo(reader, warnings.keySet(), english));
+                if (details != null) {
+                    warnings.putAll(details);
                 }
 
                 future.complete(warnings);
@@ -873,21 +902,22 @@ public class Registry {
                 e.printStackTrace();
                 future.complete(null);
             } finally {
-                long end = System.currentTimeMillis();
-                Bundle bundle = new Bundle();
-                bundle.putLong("value", end - start);
-                FirebaseAnalytics.getInstance(context).logEvent("fetch_active_warnings_ms", bundle);
+                logFetchTime(context, "fetch_active_warnings_ms", start);
             }
-        }).start();
+        });
+        cancelWith(future, () -> task.cancel(true));
         return future;
     }
 
     public Future<List<Pair<String, Long>>> getWeatherTips(Context context) {
+        return getWeatherTips(context, FetchPriority.INTERACTIVE);
+    }
+
+    public Future<List<Pair<String, Long>>> getWeatherTips(Context context, FetchPriority priority) {
         CompletableFuture<List<Pair<String, Long>>> future = new CompletableFuture<>();
         long start = System.currentTimeMillis();
-        new Thread(() -> {
+        CompletableFuture<Object> task = FetchExecutor.schedule(priority, WEATHER_TIPS_FETCH_DELAY_SECONDS, TimeUnit.SECONDS, () -> {
             try {
-                TimeUnit.SECONDS.sleep(5);
                 String lang = getLanguage().equals("en") ? "en" : "tc";
                 JSONObject data = HTTPRequestUtils.getJSONResponse("https://data.weather.gov.hk/weatherAPI/opendata/weather.php?dataType=swt&lang=" + lang);
                 if (data == null) {
@@ -895,7 +925,7 @@ public class Registry {
                 }
                 if (!data.has("swt")) {
                     future.complete(Collections.emptyList());
-                    return;
+                    return null;
                 }
                 JSONArray array = data.getJSONArray("swt");
                 List<Pair<String, Long>> tips = new ArrayList<>();
@@ -909,13 +939,28 @@ public class Registry {
                 e.printStackTrace();
                 future.complete(null);
             } finally {
-                long end = System.currentTimeMillis();
-                Bundle bundle = new Bundle();
-                bundle.putLong("value", end - start);
-                FirebaseAnalytics.getInstance(context).logEvent("fetch_weather_tips_ms", bundle);
+                logFetchTime(context, "fetch_weather_tips_ms", start);
             }
-        }).start();
+            return null;
+        });
+        cancelWith(future, () -> task.cancel(true));
         return future;
     }
 
+    private static class WindReading {
+
+        private static final WindReading NONE = new WindReading(null, -1F, -1F);
+
+        private final String direction;
+        private final float speed;
+        private final float gust;
+
+        private WindReading(String direction, float speed, float gust) {
+            this.direction = direction;
+            this.speed = speed;
+            this.gust = gust;
+        }
+
+    }
+
 }
@@ -20,51 +20,28 @@
 
 package com.loohp.hkweatherwarnings.shared
 
-import android.content.ComponentName
 import android.content.Context
 import android.util.Pair
-import androidx.wear.tiles.TileService
-import androidx.wear.watchface.complications.datasource.ComplicationDataSourceUpdateRequester
-import androidx.work.Constraints
-import androidx.work.ExistingPeriodicWorkPolicy
-import androidx.work.NetworkType
-import androidx.work.PeriodicWorkRequest
-import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.ExistingWorkPolicy
 import androidx.work.WorkManager
-import com.loohp.hkweatherwarnings.background.PeriodicUpdateWorker
-import com.loohp.hkweatherwarnings.complications.ChanceOfRainComplication
-import com.loohp.hkweatherwarnings.complications.HumidityComplication
-import com.loohp.hkweatherwarnings.complications.MoonriseMoonsetComplication
-import com.loohp.hkweatherwarnings.complications.SunriseSunsetComplication
-import com.loohp.hkweatherwarnings.complications.TemperatureRangeComplication
-import com.loohp.hkweatherwarnings.complications.UVIndexComplication
-import com.loohp.hkweatherwarnings.complications.WeatherAlertsComplication
-import com.loohp.hkweatherwarnings.complications.WeatherTemperatureComplication
-import com.loohp.hkweatherwarnings.complications.WindComplication
-import com.loohp.hkweatherwarnings.tiles.WeatherOverviewTile
-import com.loohp.hkweatherwarnings.tiles.WeatherTipsTile
-import com.loohp.hkweatherwarnings.tiles.WeatherWarningsTile
+import com.loohp.hkweatherwarnings.background.RefreshScheduler
+import com.loohp.hkweatherwarnings.cache.BinaryCacheUtils
+import com.loohp.hkweatherwarnings.cache.CacheFile
+import com.loohp.hkweatherwarnings.cache.CacheSnapshot
+import com.loohp.hkweatherwarnings.cache.CacheWriter
 import com.loohp.hkweatherwarnings.utils.LocationUtils
 import com.loohp.hkweatherwarnings.utils.LocationUtils.LocationResult
+import com.loohp.hkweatherwarnings.utils.LunarCalendarUtils
 import com.loohp.hkweatherwarnings.utils.orElse
 import com.loohp.hkweatherwarnings.weather.CurrentWeatherInfo
 import com.loohp.hkweatherwarnings.weather.LunarDate
 import com.loohp.hkweatherwarnings.weather.WeatherWarningsType
-import org.json.JSONArray
-import org.json.JSONObject
-import java.io.BufferedReader
-import java.io.InputStreamReader
-import java.io.OutputStreamWriter
-import java.io.PrintWriter
 import java.lang.Long.min
-import java.nio.charset.StandardCharsets
 import java.time.LocalDate
 import java.time.ZoneId
 import java.util.EnumMap
 import java.util.TimeZone
-import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
-import java.util.stream.Collectors
 
 class Shared {
 
@@ -80,187 +57,147 @@ class Shared {
         val REFRESH_INTERVAL: (Context) -> Long = { min(Registry.getInstance(it).refreshRate, NEVER_REFRESH_INTERVAL) }
         val FRESHNESS_TIME: (Context) -> Long = { REFRESH_INTERVAL.invoke(it) + 600000L }
 
-        private const val WEATHER_CACHE_FILE = "weather_cache.json"
-        private const val WARNINGS_CACHE_FILE = "warnings_cache.json"
-        private const val TIPS_CACHE_FILE = "tips_cache.json"
+        private const val LUNAR_DATE_CACHE_SIZE = 32
+        private const val LUNAR_DATE_CACHE_EXPIRY = 86400000L
 
-        val currentWeatherInfo: DataState<CurrentWeatherInfo?> = DataState(null, {
-            if (it.applicationContext.fileList().contains(WEATHER_CACHE_FILE)) {
-                try {
-                    BufferedReader(InputStreamReader(it.applicationContext.openFileInput(WEATHER_CACHE_FILE), StandardCharsets.UTF_8)).use { reader ->
-                        val json = JSONObject(reader.lines().collect(Collectors.joining()))
-                        val data = if (json.has("weather")) CurrentWeatherInfo.deserialize(json.optJSONObject("weather")!!) else null
-                        val updateTime = json.optLong("updateTime")
-                        val updateSuccessful = json.optBoolean("updateSuccessful")
-                        return@DataState DataStateInitializeResult(data, updateTime, updateSuccessful, false)
-                    }
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                    it.applicationContext.deleteFile(WEATHER_CACHE_FILE)
+        private const val CACHE_VERSION = 1
+        private const val WEATHER_CACHE_VERSION = 2
+
+        private val WEATHER_CACHE: CacheFile<CurrentWeatherInfo?> = CacheFile("weather_cache", WEATHER_CACHE_VERSION, { out, value ->
+            value!!.serialize(out)
+        }, {
+            CurrentWeatherInfo.deserialize(it)
+        }, "weather_cache.json") { json ->
+            val data = if (json.has("weather")) CurrentWeatherInfo.deserialize(json.optJSONObject("weather")!!) else null
+            CacheSnapshot(data, json.optLong("updateTime"), json.optBoolean("updateSuccessful"))
+        }
+
+        private val WARNINGS_CACHE: CacheFile<Map<WeatherWarningsType, String?>> = CacheFile("warnings_cache", CACHE_VERSION, { out, value ->
+            out.writeShort(value.size)
+            for ((type, text) in value.entries) {
+                out.writeUTF(type.name)
+                BinaryCacheUtils.writeString(out, text)
+            }
+        }, {
+            val map: MutableMap<WeatherWarningsType, String?> = EnumMap(WeatherWarningsType::class.java)
+            for (i in 0 until it.readUnsignedShort()) {
+                map[WeatherWarningsType.valueOf(it.readUTF())] = BinaryCacheUtils.readString(it)
+            }
+            map
+        }, "warnings_cache.json") { json ->
+            val entries = json.optJSONArray("warnings")!!
+            val map: MutableMap<WeatherWarningsType, String?> = EnumMap(WeatherWarningsType::class.java)
+            for (i in 0 until entries.length()) {
+                val entry = entries.optJSONObject(i)!!
+                val type = WeatherWarningsType.valueOf(entry.optString("type").uppercase())
+                val text = entry.optString("text").ifEmpty { null }
+                map[type] = text
+            }
+            CacheSnapshot(map, json.optLong("updateTime"), json.optBoolean("updateSuccessful"))
+        }
+
+        private val TIPS_CACHE: CacheFile<List<Pair<String, Long>>> = CacheFile("tips_cache", CACHE_VERSION, { out, value ->
+            out.writeShort(value.size)
+            for (pair in value) {
+                out.writeUTF(pair.first)
+                out.writeLong(pair.second)
+            }
+        }, {
+            buildList {
+                for (i in 0 until it.readUnsignedShort()) {
+                    add(Pair.create(it.readUTF(), it.readLong()))
+                }
+            }
+        }, "tips_cache.json") { json ->
+            val entries = json.optJSONArray("tips")!!
+            val list = buildList<Pair<String, Long>> {
+                for (i in 0 until entries.length()) {
+                    val entry = entries.optJSONObject(i)!!
+                    add(Pair.create(entry.optString("tip"), entry.optLong("time")))
                 }
             }
-            DataStateInitializeResult.defaultEmpty(null)
+            CacheSnapshot(list, json.optLong("updateTime"), json.optBoolean("updateSuccessful"))
+        }
+
+        private fun <T> readCache(context: Context, cache: CacheFile<T>, defaultValue: T): DataStateInitializeResult<T> {
+            val snapshot = cache.read(context) ?: return DataStateInitializeResult.defaultEmpty(defaultValue)
+            return DataStateInitializeResult(snapshot.value ?: defaultValue, snapshot.updateTime, snapshot.isUpdateSuccessful, false)
+        }
+
+        private fun <T> writeCache(context: Context, cache: CacheFile<T>, self: DataState<*>, value: T) {
+            CacheWriter.write(context, cache, CacheSnapshot(value, self.getLastSuccessfulUpdateTime(context), self.isLastUpdateSuccess(context)))
+        }
+
+        val currentWeatherInfo: DataState<CurrentWeatherInfo?> = DataState("weather", null, {
+            readCache(it, WEATHER_CACHE, null)
         }, {
-            it.applicationContext.deleteFile(WEATHER_CACHE_FILE)
-        }, FRESHNESS_TIME, { context, _, updateProgress ->
+            CacheWriter.delete(it, WEATHER_CACHE)
+        }, FRESHNESS_TIME, { context, self, updateProgress, priority, track ->
             val locationType = Registry.getInstance(context).location
             val location = if (locationType.first == "GPS") LocationUtils.getGPSLocation(context).get() else LocationResult.ofNullable(locationType.second)
-            val result = Registry.getInstance(context).getCurrentWeatherInfo(context, location).listen { _, value -> updateProgress.value = value }.orElse(60, TimeUnit.SECONDS, null)
+            val result = Registry.getInstance(context).getCurrentWeatherInfo(context, location, self.getCachedValue(context), priority).also(track).listen { _, value -> updateProgress.value = value }.orElse(60, TimeUnit.SECONDS, null)
             if (result == null) UpdateResult.failed() else UpdateResult.success(result)
         }, { context, self, value ->
-            TileService.getUpdater(context).requestUpdate(WeatherOverviewTile::class.java)
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, WeatherTemperatureComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, TemperatureRangeComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, HumidityComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, UVIndexComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, ChanceOfRainComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, SunriseSunsetComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, MoonriseMoonsetComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, WindComplication::class.java)).requestUpdateAll()
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, WeatherAlertsComplication::class.java)).requestUpdateAll()
-            try {
-                PrintWriter(OutputStreamWriter(context.applicationContext.openFileOutput(WEATHER_CACHE_FILE, Context.MODE_PRIVATE), StandardCharsets.UTF_8)).use {
-                    val json = JSONObject()
-                    value?.let { v -> json.put("weather", v.serialize()) }
-                    json.put("updateTime", self.getLastSuccessfulUpdateTime(context))
-                    json.put("updateSuccessful", self.isLastUpdateSuccess(context))
-                    it.write(json.toString())
-                    it.flush()
-                }
-            } catch (e: Exception) {
-                e.printStackTrace()
-            }
-        }, { context, _ ->
-            TileService.getUpdater(context).requestUpdate(WeatherOverviewTile::class.java)
+            UpdateFanOut.publish(context, self)
+            writeCache(context, WEATHER_CACHE, self, value)
+        }, { context, self ->
+            UpdateFanOut.publish(context, self)
         })
 
-        val currentWarnings: DataState<Map<WeatherWarningsType, String?>> = DataState(emptyMap(), {
-            if (it.applicationContext.fileList().contains(WARNINGS_CACHE_FILE)) {
-                try {
-                    BufferedReader(InputStreamReader(it.applicationContext.openFileInput(WARNINGS_CACHE_FILE), StandardCharsets.UTF_8)).use { reader ->
-                        val json = JSONObject(reader.lines().collect(Collectors.joining()))
-                        val entries = json.optJSONArray("warnings")!!
-                        val map: MutableMap<WeatherWarningsType, String?> = EnumMap(WeatherWarningsType::class.java)
-                        for (i in 0 until entries.length()) {
-                            val entry = entries.optJSONObject(i)!!
-                            val type = WeatherWarningsType.valueOf(entry.optString("type").uppercase())
-                            val text = entry.optString("text").ifEmpty { null }
-                            map[type] = text
-                        }
-                        val updateTime = json.optLong("updateTime")
-                        val updateSuccessful = json.optBoolean("updateSuccessful")
-                        return@DataState DataStateInitializeResult(map, updateTime, updateSuccessful, false)
-                    }
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                    it.applicationContext.deleteFile(WARNINGS_CACHE_FILE)
-                }
-            }
-            DataStateInitializeResult.defaultEmpty(emptyMap())
+        val currentWarnings: DataState<Map<WeatherWarningsType, String?>> = DataState("warnings", emptyMap(), {
+            readCache(it, WARNINGS_CACHE, emptyMap())
         }, {
-            it.applicationContext.deleteFile(WARNINGS_CACHE_FILE)
-        }, FRESHNESS_TIME, { context, _, _ ->
-            val result = Registry.getInstance(context).getActiveWarnings(context).orElse(60, TimeUnit.SECONDS, null)
+            CacheWriter.delete(it, WARNINGS_CACHE)
+        }, FRESHNESS_TIME, { context, _, _, priority, track ->
+            val result = Registry.getInstance(context).getActiveWarnings(context, priority).also(track).orElse(60, TimeUnit.SECONDS, null)
             if (result == null) UpdateResult.failed() else UpdateResult.success(result)
         }, { context, self, value ->
-            TileService.getUpdater(context).requestUpdate(WeatherWarningsTile::class.java)
-            TileService.getUpdater(context).requestUpdate(WeatherOverviewTile::class.java)
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, WeatherAlertsComplication::class.java)).requestUpdateAll()
-            PrintWriter(OutputStreamWriter(context.applicationContext.openFileOutput(WARNINGS_CACHE_FILE, Context.MODE_PRIVATE), StandardCharsets.UTF_8)).use {
-                try {
-                    val array = JSONArray()
-                    for ((type, text) in value.entries) {
-                        val obj = JSONObject()
-                        obj.put("type", type.name)
-                        obj.put("text", text?: "")
-                        array.put(obj)
-                    }
-                    val json = JSONObject()
-                    json.put("warnings", array)
-                    json.put("updateTime", self.getLastSuccessfulUpdateTime(context))
-                    json.put("updateSuccessful", self.isLastUpdateSuccess(context))
-                    it.write(json.toString())
-                    it.flush()
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                }
-            }
-        }, { context, _ ->
-            TileService.getUpdater(context).requestUpdate(WeatherWarningsTile::class.java)
-            TileService.getUpdater(context).requestUpdate(WeatherOverviewTile::class.java)
+            UpdateFanOut.publish(context, self)
+            writeCache(context, WARNINGS_CACHE, self, value)
+        }, { context, self ->
+            UpdateFanOut.publish(context, self)
         })
 
-        val currentTips: DataState<List<Pair<String, Long>>> = DataState(emptyList(), {
-            if (it.applicationContext.fileList().contains(TIPS_CACHE_FILE)) {
-                try {
-                    BufferedReader(InputStreamReader(it.applicationContext.openFileInput(TIPS_CACHE_FILE), StandardCharsets.UTF_8)).use { reader ->
-                        val json = JSONObject(reader.lines().collect(Collectors.joining()))
-                        val entries = json.optJSONArray("tips")!!
-                        val list = buildList<Pair<String, Long>> {
-                            for (i in 0 until entries.length()) {
-                                val entry = entries.optJSONObject(i)!!
-                                val tip = entry.optString("tip")
-                                val time = entry.optLong("time")
-                                add(Pair.create(tip, time))
-                            }
-                        }
-                        val updateTime = json.optLong("updateTime")
-                        val updateSuccessful = json.optBoolean("updateSuccessful")
-                        return@DataState DataStateInitializeResult(list, updateTime, updateSuccessful, false)
-                    }
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                    it.applicationContext.deleteFile(TIPS_CACHE_FILE)
-                }
-            }
-            DataStateInitializeResult.defaultEmpty(emptyList())
+        val currentTips: DataState<List<Pair<String, Long>>> = DataState("tips", emptyList(), {
+            readCache(it, TIPS_CACHE, emptyList())
         }, {
-            it.applicationContext.deleteFile(TIPS_CACHE_FILE)
-        }, FRESHNESS_TIME, { context, _, _ ->
-            val result = Registry.getInstance(context).getWeatherTips(context).orElse(60, TimeUnit.SECONDS, null)
+            CacheWriter.delete(it, TIPS_CACHE)
+        }, FRESHNESS_TIME, { context, _, _, priority, track ->
+            val result = Registry.getInstance(context).getWeatherTips(context, priority).also(track).orElse(60, TimeUnit.SECONDS, null)
             if (result == null) UpdateResult.failed() else UpdateResult.success(result)
         }, { context, self, value ->
-            TileService.getUpdater(context).requestUpdate(WeatherTipsTile::class.java)
-            TileService.getUpdater(context).requestUpdate(WeatherOverviewTile::class.java)
-            ComplicationDataSourceUpdateRequester.create(context, ComponentName(context, WeatherAlertsComplication::class.java)).requestUpdateAll()
-            PrintWriter(OutputStreamWriter(context.applicationContext.openFileOutput(TIPS_CACHE_FILE, Context.MODE_PRIVATE), StandardCharsets.UTF_8)).use {
-                try {
-                    val array = JSONArray()
-                    for (pair in value) {
-                        val obj = JSONObject()
-                        obj.put("tip", pair.first)
-                        obj.put("time", pair.second)
-                        array.put(obj)
+            UpdateFanOut.publish(context, self)
+            writeCache(context, TIPS_CACHE, self, value)
+        }, { context, self ->
+            UpdateFanOut.publish(context, self)
+        })
+
+        val convertedLunarDates: MapValueState<LocalDate, LunarDate> = MapValueState(LUNAR_DATE_CACHE_SIZE, LUNAR_DATE_CACHE_EXPIRY) { key, context, self, priority ->
+            val registry = Registry.getInstance(context)
+            val result = registry.getLunarDate(context, key, priority).orElse(60, TimeUnit.SECONDS, null)
+            if (result != null && LunarCalendarUtils.isSupported(key)) {
+                registry.confirmLunarDate(context, key, result).thenAccept { confirmed ->
+                    if (confirmed != null && confirmed != result) {
+                        self.updateValue(key, confirmed)
                     }
-                    val json = JSONObject()
-                    json.put("tips", array)
-                    json.put("updateTime", self.getLastSuccessfulUpdateTime(context))
-                    json.put("updateSuccessful", self.isLastUpdateSuccess(context))
-                    it.write(json.toString())
-                    it.flush()
-                } catch (e: Exception) {
-                    e.printStackTrace()
                 }
             }
-        }, { context, _ ->
-            TileService.getUpdater(context).requestUpdate(WeatherTipsTile::class.java)
-            TileService.getUpdater(context).requestUpdate(WeatherOverviewTile::class.java)
-        })
-
-        val convertedLunarDates: MapValueState<LocalDate, LunarDate> = MapValueState(ConcurrentHashMap(), ConcurrentHashMap()) { key, context, _ ->
-            val result = Registry.getInstance(context).getLunarDate(context, key).orElse(60, TimeUnit.SECONDS, null)
             if (result == null) UpdateResult.failed() else UpdateResult.success(result)
         }
 
-        fun startBackgroundService(context: Context) {
-            val interval = REFRESH_INTERVAL.invoke(context)
-            if (interval >= NEVER_REFRESH_INTERVAL) {
-                WorkManager.getInstance(context).cancelUniqueWork(BACKGROUND_SERVICE_REQUEST_TAG)
+        fun initializeDataStates(context: Context) {
+            currentWeatherInfo.initialize(context)
+            currentWarnings.initialize(context)
+            currentTips.initialize(context)
+        }
+
+        fun startBackgroundService(context: Context, reschedule: Boolean = false) {
+            val workManager = WorkManager.getInstance(context)
+            workManager.cancelUniqueWork(BACKGROUND_SERVICE_REQUEST_TAG)
+            if (REFRESH_INTERVAL.invoke(context) >= NEVER_REFRESH_INTERVAL) {
+                RefreshScheduler.cancel(context)
             } else {
-                val updateRequest = PeriodicWorkRequestBuilder<PeriodicUpdateWorker>(interval, TimeUnit.MILLISECONDS, PeriodicWorkRequest.MIN_PERIODIC_FLEX_MILLIS, TimeUnit.MILLISECONDS)
-                    .setConstraints(Constraints(requiredNetworkType = NetworkType.CONNECTED))
-                    .build()
-                WorkManager.getInstance(context).enqueueUniquePeriodicWork(BACKGROUND_SERVICE_REQUEST_TAG, ExistingPeriodicWorkPolicy.UPDATE, updateRequest)
+                RefreshScheduler.schedule(context, 0, if (reschedule) ExistingWorkPolicy.REPLACE else ExistingWorkPolicy.KEEP)
             }
         }
 
@@ -21,14 +21,27 @@
 package com.loohp.hkweatherwarnings.shared
 
 import android.content.Context
+import android.os.Bundle
+import com.google.firebase.analytics.FirebaseAnalytics
 import com.loohp.hkweatherwarnings.utils.CompletableFutureWithIntermediateValue
 import com.loohp.hkweatherwarnings.utils.FutureWithIntermediateValue
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asExecutor
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
-import java.util.concurrent.Callable
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.math.max
 
 
 class UpdateResult<T> private constructor(
@@ -50,26 +63,18 @@ class UpdateResult<T> private constructor(
 
 
 class MapValueState<K, V>(
-    private val map: MutableMap<K, V>,
-    private val stateMap: MutableMap<K, MutableStateFlow<V?>>,
-    private val fetchFunction: (K, Context, MapValueState<K, V>) -> UpdateResult<V>
+    private val maxSize: Int,
+    private val expireAfterAccessMillis: Long,
+    private val fetchFunction: (K, Context, MapValueState<K, V>, FetchPriority) -> UpdateResult<V>
 ) {
 
-    constructor(map: MutableMap<K, V>, stateMap: MutableMap<K, MutableStateFlow<V?>>, fetchFunction: (K, Context, MapValueState<K, V>, Nothing?) -> UpdateResult<Map<K, V>>): this(map, stateMap, { key, context, state ->
-        val result = fetchFunction.invoke(key, context, state, null)
+    constructor(maxSize: Int, expireAfterAccessMillis: Long, fetchFunction: (K, Context, MapValueState<K, V>, FetchPriority, Nothing?) -> UpdateResult<Map<K, V>>): this(maxSize, expireAfterAccessMillis, { key, context, state, priority ->
+        val result = fetchFunction.invoke(key, context, state, priority, null)
         if (result.isSuccessful) {
             for ((k, v) in result.value!!) {
-                state.map[k] = v
-                stateMap.compute(k) { _, s ->
-                    if (s == null) {
-                        MutableStateFlow(v)
-                    } else {
-                        s.value = v
-                        s
-                    }
-                }
+                state.updateValue(k, v)
             }
-            val value = state.map[key]
+            val value = result.value!![key]
             if (value == null) {
                 UpdateResult.failed()
             } else {
@@ -80,32 +85,104 @@ class MapValueState<K, V>(
         }
     })
 
-    fun getValue(key: K, context: Context, executor: ExecutorService): Future<V> {
-        val state = stateMap.computeIfAbsent(key) { MutableStateFlow(map[key]) }
-        val value = map[key]
-        return if (value == null) {
-            executor.submit(Callable {
-                val newValue = try {
-                    val result = fetchFunction.invoke(key, context, this)
-                    if (result.isSuccessful) result.value else null
-                } catch (e: Throwable) {
-                    e.printStackTrace()
-                    null
-                }
-                if (newValue != null) {
-                    map[key] = newValue
-                    state.value = newValue
-                }
-                return@Callable newValue
-            })
-        } else {
-            state.value = value
-            CompletableFuture.completedFuture(value)
+    data class Stats(
+        val size: Int,
+        val hits: Long,
+        val misses: Long,
+        val coalesced: Long,
+        val evictions: Long
+    )
+
+    private class Entry<V>(
+        val state: MutableStateFlow<V?>
+    ) {
+        @Volatile var value: V? = null
+        @Volatile var lastAccess: Long = System.currentTimeMillis()
+    }
+
+    private val entries: LinkedHashMap<K, Entry<V>> = LinkedHashMap(16, 0.75F, true)
+    private val inFlight: ConcurrentHashMap<K, CompletableFuture<V>> = ConcurrentHashMap()
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val coalesced = AtomicLong()
+    private val evictions = AtomicLong()
+
+    private fun entry(key: K): Entry<V> {
+        val now = System.currentTimeMillis()
+        val entry = synchronized (entries) {
+            entries.getOrPut(key) { Entry(MutableStateFlow(null)) }
+        }
+        entry.lastAccess = now
+        return entry
+    }
+
+    fun getValue(key: K, context: Context, executor: ExecutorService, priority: FetchPriority = FetchPriority.INTERACTIVE): Future<V> {
+        val entry = entry(key)
+        val value = entry.value
+        if (value != null) {
+            hits.incrementAndGet()
+            return CompletableFuture.completedFuture(value)
+        }
+        val future = CompletableFuture<V>()
+        val existing = inFlight.putIfAbsent(key, future)
+        if (existing != null) {
+            coalesced.incrementAndGet()
+            return existing
+        }
+        misses.incrementAndGet()
+        executor.execute {
+            val newValue = try {
+                val result = fetchFunction.invoke(key, context, this, priority)
+                if (result.isSuccessful) result.value else null
+            } catch (e: Throwable) {
+                e.printStackTrace()
+                null
+            }
+            if (newValue != null) {
+                updateValue(key, newValue)
+            }
+            inFlight.remove(key, future)
+            future.complete(newValue)
+            trim()
         }
+        return future
     }
 
     fun getValueState(key: K): StateFlow<V?> {
-        return stateMap.computeIfAbsent(key) { MutableStateFlow(map[key]) }
+        return entry(key).state
+    }
+
+    fun updateValue(key: K, value: V) {
+        val entry = entry(key)
+        entry.value = value
+        entry.state.value = value
+    }
+
+    fun getStats(): Stats {
+        val size = synchronized (entries) { entries.size }
+        return Stats(size, hits.get(), misses.get(), coalesced.get(), evictions.get())
+    }
+
+    private fun trim() {
+        val now = System.currentTimeMillis()
+        synchronized (entries) {
+            var size = entries.size
+            val itr = entries.entries.iterator()
+            while (itr.hasNext()) {
+                val (key, entry) = itr.next()
+                val expired = now - entry.lastAccess > expireAfterAccessMillis
+                if (!expired && size <= maxSize) {
+                    break
+                }
+                if (entry.state.subscriptionCount.value > 0 || inFlight.containsKey(key)) {
+                    continue
+                }
+                itr.remove()
+                size--
+                evictions.incrementAndGet()
+            }
+        }
     }
 
 }
@@ -133,132 +210,311 @@ data class DataStateInitializeResult<T> (
 
 
 class DataState<T>(
+    private val name: String,
     private val defaultValue: T,
     private val initializer: (Context) -> DataStateInitializeResult<T>,
     private val resetCallback: (Context) -> Unit,
     private val freshness: (Context) -> Long,
-    private val updateFunction: (Context, DataState<T>, MutableStateFlow<Float>) -> UpdateResult<T>,
+    private val updateFunction: (Context, DataState<T>, MutableStateFlow<Float>, FetchPriority, (Future<*>) -> Unit) -> UpdateResult<T>,
     private val updateSuccessCallback: (Context, DataState<T>, T) -> Unit = { _, _, _ -> },
     private val updateFailedCallback: (Context, DataState<T>) -> Unit = { _, _ -> }
 ) {
 
-    private var state: MutableStateFlow<T>? = null
-    private var lastSuccessfulUpdateTime: MutableStateFlow<Long>? = null
-    private var isLastUpdateSuccessful: MutableStateFlow<Boolean>? = null
-    private var isCurrentlyUpdating: MutableStateFlow<Boolean>? = null
-
-    private var updateProgress: MutableStateFlow<Float>? = null
-    private var latestFuture: FutureWithIntermediateValue<T>? = null
-
-    private fun initializeStateIfNotAlready(context: Context) {
-        synchronized (this) {
-            if (state == null) {
-                val (v, t, s, c) = initializer.invoke(context)
-                state = MutableStateFlow(v)
-                lastSuccessfulUpdateTime = MutableStateFlow(t)
-                isLastUpdateSuccessful = MutableStateFlow(s)
-                isCurrentlyUpdating = MutableStateFlow(c)
-                updateProgress = MutableStateFlow(if (s) 1F else 0F)
+    private data class Record<T>(
+        val value: T,
+        val lastSuccessfulUpdateTime: Long,
+        val isLastUpdateSuccessful: Boolean,
+        val isCurrentlyUpdating: Boolean,
+        val isLoaded: Boolean,
+        val generation: Long,
+        val refresh: Refresh<T>?
+    )
+
+    private class Refresh<T>(
+        val generation: Long,
+        val future: CompletableFutureWithIntermediateValue<T>
+    ) {
+        private val fetches: MutableList<Future<*>> = ArrayList()
+        private var cancelled = false
+
+        fun track(fetch: Future<*>) {
+            synchronized(this) {
+                if (!cancelled) {
+                    fetches.add(fetch)
+                    return
+                }
             }
+            fetch.cancel(true)
+        }
+
+        fun cancel() {
+            val tracked = synchronized(this) {
+                cancelled = true
+                fetches.toList().also { fetches.clear() }
+            }
+            tracked.forEach { it.cancel(true) }
         }
     }
 
-    fun getLatestValue(context: Context, executor: ExecutorService, forceReload: Boolean = freshness.invoke(context) >= Shared.NEVER_REFRESH_INTERVAL): FutureWithIntermediateValue<T> {
-        initializeStateIfNotAlready(context)
-        synchronized (this) {
-            latestFuture?.let { if (!it.isDone) return it }
-            latestFuture = if (forceReload || System.currentTimeMillis() - lastSuccessfulUpdateTime!!.value > freshness.invoke(context)) {
-                updateProgress!!.value = 0F
-                update(context, executor)
-            } else {
-                CompletableFutureWithIntermediateValue.completedFuture(state!!.value)
+    private val record: MutableStateFlow<Record<T>> = MutableStateFlow(Record(defaultValue, 0, false, true, false, 0, null))
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Unconfined)
+
+    private val state: StateFlow<T> = record.map { it.value }.stateIn(scope, SharingStarted.Eagerly, defaultValue)
+    private val lastSuccessfulUpdateTime: StateFlow<Long> = record.map { it.lastSuccessfulUpdateTime }.stateIn(scope, SharingStarted.Eagerly, 0)
+    private val isLastUpdateSuccessful: StateFlow<Boolean> = record.map { it.isLastUpdateSuccessful }.stateIn(scope, SharingStarted.Eagerly, false)
+    private val isCurrentlyUpdating: StateFlow<Boolean> = record.map { it.isCurrentlyUpdating }.stateIn(scope, SharingStarted.Eagerly, true)
+    private val isLoaded: StateFlow<Boolean> = record.map { it.isLoaded }.stateIn(scope, SharingStarted.Eagerly, false)
+
+    private val updateProgress: MutableStateFlow<Float> = MutableStateFlow(0F)
+    private val initializeFuture: AtomicReference<CompletableFuture<Void>?> = AtomicReference(null)
+
+    private inline fun updateRecord(function: (Record<T>) -> Record<T>?): Pair<Record<T>, Record<T>>? {
+        while (true) {
+            val current = record.value
+            val next = function.invoke(current) ?: return null
+            if (record.compareAndSet(current, next)) {
+                return current to next
             }
-            return latestFuture!!
         }
     }
 
-    private fun update(context: Context, executor: ExecutorService): FutureWithIntermediateValue<T> {
-        isCurrentlyUpdating!!.value = true
-        val future: CompletableFutureWithIntermediateValue<T> = CompletableFutureWithIntermediateValue(getCachedValue(context))
-        executor.execute {
+    fun initialize(context: Context): CompletableFuture<Void> {
+        initializeFuture.get()?.let { return it }
+        val future = CompletableFuture<Void>()
+        if (!initializeFuture.compareAndSet(null, future)) {
+            return initializeFuture.get()!!
+        }
+        val applicationContext = context.applicationContext
+        Dispatchers.IO.asExecutor().execute {
             try {
-                val result = updateFunction.invoke(context, this, updateProgress!!)
-                if (result.isSuccessful) {
-                    state!!.value = result.value!!
-                    lastSuccessfulUpdateTime!!.value = System.currentTimeMillis()
-                    isLastUpdateSuccessful!!.value = true
-                    updateProgress!!.value = 1F
-                    updateSuccessCallback.invoke(context, this, result.value)
-                } else {
-                    isLastUpdateSuccessful!!.value = false
-                    updateFailedCallback.invoke(context, this)
-                }
-                future.complete(state!!.value)
+                load(applicationContext)
             } finally {
-                isCurrentlyUpdating!!.value = false
+                future.complete(null)
             }
         }
         return future
     }
 
+    private fun load(context: Context) {
+        val start = System.nanoTime()
+        val generation = record.value.generation
+        val (v, t, s, c) = try {
+            initializer.invoke(context)
+        } catch (e: Throwable) {
+            e.printStackTrace()
+            DataStateInitializeResult.defaultEmpty(defaultValue)
+        }
+        updateRecord {
+            if (it.generation == generation) {
+                it.copy(value = v, lastSuccessfulUpdateTime = t, isLastUpdateSuccessful = s, isCurrentlyUpdating = c, isLoaded = true)
+            } else {
+                it.copy(isLoaded = true)
+            }
+        }
+        if (record.value.generation == generation) {
+            updateProgress.value = if (s) 1F else 0F
+        }
+        FirebaseAnalytics.getInstance(context).logEvent("data_state_init_us", Bundle().apply {
+            putString("state", name)
+            putLong("value", (System.nanoTime() - start) / 1000)
+        })
+    }
+
+    private fun awaitInitialized(context: Context) {
+        initialize(context).join()
+    }
+
+    fun getLatestValue(context: Context, executor: ExecutorService, forceReload: Boolean = freshness.invoke(context) >= Shared.NEVER_REFRESH_INTERVAL, priority: FetchPriority = FetchPriority.INTERACTIVE, supersede: Boolean = false): FutureWithIntermediateValue<T> {
+        val initialize = initialize(context)
+        if (!initialize.isDone) {
+            return DeferredFutureWithIntermediateValue(initialize.thenApply { getLatestValue(context, executor, forceReload, priority, supersede) })
+        }
+        while (true) {
+            val current = record.value
+            val inFlight = current.refresh
+            if (inFlight != null && !supersede) {
+                return inFlight.future
+            }
+            if (inFlight == null && !forceReload && System.currentTimeMillis() - current.lastSuccessfulUpdateTime <= freshness.invoke(context)) {
+                return CompletableFutureWithIntermediateValue.completedFuture(current.value)
+            }
+            val refresh = Refresh(current.generation + 1, CompletableFutureWithIntermediateValue(current.value))
+            if (record.compareAndSet(current, current.copy(isCurrentlyUpdating = true, generation = refresh.generation, refresh = refresh))) {
+                if (inFlight != null) {
+                    supersedeRefresh(inFlight, refresh.future)
+                }
+                updateProgress.value = 0F
+                executor.execute { update(context, refresh, priority) }
+                return refresh.future
+            }
+        }
+    }
+
+    private fun supersedeRefresh(refresh: Refresh<T>, replacement: CompletableFuture<T>?) {
+        refresh.cancel()
+        if (replacement == null) {
+            refresh.future.complete(defaultValue)
+        } else {
+            replacement.whenComplete { value, error -> if (error == null) refresh.future.complete(value) else refresh.future.completeExceptionally(error) }
+        }
+    }
+
+    private fun update(context: Context, refresh: Refresh<T>, priority: FetchPriority) {
+        if (record.value.refresh !== refresh) {
+            return
+        }
+        val result = try {
+            updateFunction.invoke(context, this, updateProgress, priority) { refresh.track(it) }
+        } catch (e: Throwable) {
+            if (record.value.refresh === refresh) {
+                e.printStackTrace()
+            }
+            UpdateResult.failed()
+        }
+        val (_, next) = updateRecord {
+            if (it.refresh !== refresh) {
+                null
+            } else if (result.isSuccessful) {
+                it.copy(value = result.value!!, lastSuccessfulUpdateTime = System.currentTimeMillis(), isLastUpdateSuccessful = true, isCurrentlyUpdating = false, refresh = null)
+            } else {
+                it.copy(isLastUpdateSuccessful = false, isCurrentlyUpdating = false, refresh = null)
+            }
+        } ?: return
+        if (result.isSuccessful) {
+            updateProgress.value = 1F
+            updateSuccessCallback.invoke(context, this, next.value)
+        } else {
+            updateFailedCallback.invoke(context, this)
+        }
+        refresh.future.complete(next.value)
+    }
+
+    fun cancelUpdate(future: Future<*>): Boolean {
+        val (previous, _) = updateRecord {
+            if (it.refresh != null && it.refresh.future === future) it.copy(isCurrentlyUpdating = false, generation = it.generation + 1, refresh = null) else null
+        } ?: return false
+        val refresh = previous.refresh!!
+        refresh.cancel()
+        refresh.future.complete(previous.value)
+        return true
+    }
+
     fun reset(context: Context) {
-        initializeStateIfNotAlready(context)
-        state!!.value = defaultValue
-        lastSuccessfulUpdateTime!!.value = 0
-        isLastUpdateSuccessful!!.value = false
-        isCurrentlyUpdating!!.value = true
-        updateProgress!!.value = 0F
+        initialize(context)
+        val (previous, _) = updateRecord {
+            Record(defaultValue, 0, false, true, it.isLoaded, it.generation + 1, null)
+        }!!
+        previous.refresh?.let { supersedeRefresh(it, null) }
+        updateProgress.value = 0F
         resetCallback.invoke(context)
     }
 
+    fun getGeneration(): Long {
+        return record.value.generation
+    }
+
+    fun isLoaded(): Boolean {
+        return record.value.isLoaded
+    }
+
+    fun getLoadedState(context: Context): StateFlow<Boolean> {
+        initialize(context)
+        return isLoaded
+    }
+
     fun getCurrentProgress(context: Context): Float {
-        initializeStateIfNotAlready(context)
-        return updateProgress!!.value
+        awaitInitialized(context)
+        return updateProgress.value
     }
 
     fun getCurrentProgressState(context: Context): StateFlow<Float> {
-        initializeStateIfNotAlready(context)
-        return updateProgress!!
+        initialize(context)
+        return updateProgress
     }
 
     fun getCachedValue(context: Context): T {
-        initializeStateIfNotAlready(context)
-        return state!!.value
+        awaitInitialized(context)
+        return record.value.value
     }
 
     fun getLastSuccessfulUpdateTime(context: Context): Long {
-        initializeStateIfNotAlready(context)
-        return lastSuccessfulUpdateTime!!.value
+        awaitInitialized(context)
+        return record.value.lastSuccessfulUpdateTime
     }
 
     fun isLastUpdateSuccess(context: Context): Boolean {
-        initializeStateIfNotAlready(context)
-        return isLastUpdateSuccessful!!.value
+        awaitInitialized(context)
+        return record.value.isLastUpdateSuccessful
     }
 
     fun isCurrentlyUpdating(context: Context): Boolean {
-        initializeStateIfNotAlready(context)
-        return isCurrentlyUpdating!!.value
+        awaitInitialized(context)
+        return record.value.isCurrentlyUpdating
     }
 
     fun getLastSuccessfulUpdateTimeState(context: Context): StateFlow<Long> {
-        initializeStateIfNotAlready(context)
-        return lastSuccessfulUpdateTime!!
+        initialize(context)
+        return lastSuccessfulUpdateTime
     }
 
     fun getLastUpdateSuccessState(context: Context): StateFlow<Boolean> {
-        initializeStateIfNotAlready(context)
-        return isLastUpdateSuccessful!!
+        initialize(context)
+        return isLastUpdateSuccessful
     }
 
     fun getCurrentlyUpdatingState(context: Context): StateFlow<Boolean> {
-        initializeStateIfNotAlready(context)
-        return isCurrentlyUpdating!!
+        initialize(context)
+        return isCurrentlyUpdating
     }
 
     fun getState(context: Context): StateFlow<T> {
-        initializeStateIfNotAlready(context)
-        return state!!
+        initialize(context)
+        return state
     }
 
-}
\ No newline at end of file
+}
+
+
+private class DeferredFutureWithIntermediateValue<T>(
+    private val source: CompletableFuture<FutureWithIntermediateValue<T>>
+) : FutureWithIntermediateValue<T> {
+
+    override fun getIntermediateValue(): T? {
+        return source.getNow(null)?.intermediateValue
+    }
+
+    override fun getOrIntermediateValueNow(): T? {
+        return source.getNow(null)?.orIntermediateValueNow
+    }
+
+    override fun getOrIntermediateValue(): T {
+        return source.get().orIntermediateValue
+    }
+
+    override fun hasIntermediateValue(): Boolean {
+        return source.getNow(null)?.hasIntermediateValue() ?: false
+    }
+
+    override fun cancel(mayInterruptIfRunning: Boolean): Boolean {
+        return source.getNow(null)?.cancel(mayInterruptIfRunning) ?: source.cancel(mayInterruptIfRunning)
+    }
+
+    override fun isCancelled(): Boolean {
+        return source.isCancelled || source.getNow(null)?.isCancelled ?: false
+    }
+
+    override fun isDone(): Boolean {
+        return source.isDone && (source.isCompletedExceptionally || source.join().isDone)
+    }
+
+    override fun get(): T {
+        return source.get().get()
+    }
+
+    override fun get(timeout: Long, unit: TimeUnit): T {
+        val deadline = System.nanoTime() + unit.toNanos(timeout)
+        val future = source.get(timeout, unit)
+        return future.get(max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+    }
+
+}
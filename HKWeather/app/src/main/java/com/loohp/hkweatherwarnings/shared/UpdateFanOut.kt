@@ -0,0 +1,153 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.shared
+
+import android.content.ComponentName
+import android.content.Context
+import android.os.Bundle
+import androidx.wear.tiles.TileService
+import androidx.wear.watchface.complications.datasource.ComplicationDataSourceService
+import androidx.wear.watchface.complications.datasource.ComplicationDataSourceUpdateRequester
+import com.google.firebase.analytics.FirebaseAnalytics
+import com.loohp.hkweatherwarnings.complications.ChanceOfRainComplication
+import com.loohp.hkweatherwarnings.complications.HumidityComplication
+import com.loohp.hkweatherwarnings.complications.MoonriseMoonsetComplication
+import com.loohp.hkweatherwarnings.complications.SunriseSunsetComplication
+import com.loohp.hkweatherwarnings.complications.TemperatureRangeComplication
+import com.loohp.hkweatherwarnings.complications.UVIndexComplication
+import com.loohp.hkweatherwarnings.complications.WeatherAlertsComplication
+import com.loohp.hkweatherwarnings.complications.WeatherTemperatureComplication
+import com.loohp.hkweatherwarnings.complications.WindComplication
+import com.loohp.hkweatherwarnings.tiles.OverviewWeatherInfo
+import com.loohp.hkweatherwarnings.tiles.WeatherOverviewTile
+import com.loohp.hkweatherwarnings.tiles.WeatherTipsTile
+import com.loohp.hkweatherwarnings.tiles.WeatherWarningsTile
+import com.loohp.hkweatherwarnings.weather.AstronomicalTable
+import java.time.LocalDateTime
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+object UpdateFanOut {
+
+    private class Target(
+        val component: Class<*>,
+        val sources: List<DataState<*>>,
+        val fingerprint: (Context) -> List<Any?>,
+        val notify: (Context) -> Unit
+    )
+
+    private val targets: List<Target> by lazy { listOf(
+        tile(WeatherOverviewTile::class.java, Shared.currentWeatherInfo, Shared.currentWarnings, Shared.currentTips) {
+            listOf(OverviewWeatherInfo.of(Shared.currentWeatherInfo.getCachedValue(it)), Shared.currentWarnings.getCachedValue(it).keys.toList(), Shared.currentTips.getCachedValue(it).size, updateStatus(it, Shared.currentWeatherInfo))
+        },
+        tile(WeatherWarningsTile::class.java, Shared.currentWarnings) {
+            listOf(Shared.currentWarnings.getCachedValue(it), updateStatus(it, Shared.currentWarnings))
+        },
+        tile(WeatherTipsTile::class.java, Shared.currentTips) {
+            listOf(Shared.currentTips.getCachedValue(it), updateStatus(it, Shared.currentTips))
+        },
+        complication(WeatherTemperatureComplication::class.java, Shared.currentWeatherInfo) {
+            val weatherInfo = Shared.currentWeatherInfo.getCachedValue(it)
+            listOf(weatherInfo?.currentTemperature, weatherInfo?.weatherIcon)
+        },
+        complication(TemperatureRangeComplication::class.java, Shared.currentWeatherInfo) {
+            val weatherInfo = Shared.currentWeatherInfo.getCachedValue(it)
+            listOf(weatherInfo?.highestTemperature, weatherInfo?.lowestTemperature, weatherInfo?.weatherIcon)
+        },
+        complication(HumidityComplication::class.java, Shared.currentWeatherInfo) {
+            listOf(Shared.currentWeatherInfo.getCachedValue(it)?.currentHumidity)
+        },
+        complication(UVIndexComplication::class.java, Shared.currentWeatherInfo) {
+            listOf(Shared.currentWeatherInfo.getCachedValue(it)?.uvIndex)
+        },
+        complication(ChanceOfRainComplication::class.java, Shared.currentWeatherInfo) {
+            listOf(Shared.currentWeatherInfo.getCachedValue(it)?.chanceOfRain)
+        },
+        complication(SunriseSunsetComplication::class.java, Shared.currentWeatherInfo) {
+            val weatherInfo = Shared.currentWeatherInfo.getCachedValue(it)
+            listOf(weatherInfo?.sunriseTime, weatherInfo?.sunsetTime, nextRiseOrSet(it, AstronomicalTable.Type.SUN))
+        },
+        complication(MoonriseMoonsetComplication::class.java, Shared.currentWeatherInfo) {
+            val weatherInfo = Shared.currentWeatherInfo.getCachedValue(it)
+            listOf(weatherInfo?.moonriseTime, weatherInfo?.moonsetTime, nextRiseOrSet(it, AstronomicalTable.Type.MOON))
+        },
+        complication(WindComplication::class.java, Shared.currentWeatherInfo) {
+            val weatherInfo = Shared.currentWeatherInfo.getCachedValue(it)
+            listOf(weatherInfo?.windDirection, weatherInfo?.windSpeed, weatherInfo?.gust)
+        },
+        complication(WeatherAlertsComplication::class.java, Shared.currentWeatherInfo, Shared.currentWarnings, Shared.currentTips) {
+            listOf(Shared.currentWarnings.getCachedValue(it).size, Shared.currentTips.getCachedValue(it).size, Shared.currentWeatherInfo.getCachedValue(it)?.weatherIcon)
+        }
+    ) }
+
+    private val published: MutableMap<Class<*>, List<Any?>> = ConcurrentHashMap()
+    private val avoidedWakes = AtomicLong()
+
+    private fun tile(tileClass: Class<out TileService>, vararg sources: DataState<*>, fingerprint: (Context) -> List<Any?>): Target {
+        return Target(tileClass, sources.asList(), fingerprint) { TileService.getUpdater(it).requestUpdate(tileClass) }
+    }
+
+    private fun complication(complicationClass: Class<out ComplicationDataSourceService>, vararg sources: DataState<*>, fingerprint: (Context) -> List<Any?>): Target {
+        return Target(complicationClass, sources.asList(), fingerprint) { ComplicationDataSourceUpdateRequester.create(it, ComponentName(it, complicationClass)).requestUpdateAll() }
+    }
+
+    private fun updateStatus(context: Context, state: DataState<*>): Pair<Long, Boolean> {
+        return (state.getLastSuccessfulUpdateTime(context) / 60000) to state.isLastUpdateSuccess(context)
+    }
+
+    private fun nextRiseOrSet(context: Context, type: AstronomicalTable.Type): Pair<LocalDateTime, Boolean>? {
+        return AstronomicalTableCache.findNextRiseOrSet(context, type, LocalDateTime.now(Shared.HK_TIMEZONE.toZoneId()))?.let { it.time to it.isRise }
+    }
+
+    fun publish(context: Context, source: DataState<*>) {
+        val language = Registry.getInstance(context).language
+        var notified = 0
+        var avoided = 0
+        for (target in targets) {
+            if (source !in target.sources) {
+                continue
+            }
+            val fingerprint = listOf(language) + target.fingerprint.invoke(context)
+            if (published.put(target.component, fingerprint) == fingerprint) {
+                avoided++
+            } else {
+                target.notify.invoke(context)
+                notified++
+            }
+        }
+        if (avoided > 0) {
+            avoidedWakes.addAndGet(avoided.toLong())
+        }
+        FirebaseAnalytics.getInstance(context).logEvent("update_fan_out", Bundle().apply {
+            putLong("value", avoided.toLong())
+            putLong("notified", notified.toLong())
+        })
+    }
+
+    fun invalidate(component: Class<*>) {
+        published.remove(component)
+    }
+
+    fun getAvoidedWakes(): Long {
+        return avoidedWakes.get()
+    }
+
+}
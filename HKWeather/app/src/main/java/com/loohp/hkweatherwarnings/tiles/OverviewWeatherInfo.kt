@@ -0,0 +1,69 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.tiles
+
+import androidx.compose.runtime.Immutable
+import com.loohp.hkweatherwarnings.weather.CurrentWeatherInfo
+import com.loohp.hkweatherwarnings.weather.ForecastWeatherInfo
+import com.loohp.hkweatherwarnings.weather.WeatherInfo.RangeSign
+import com.loohp.hkweatherwarnings.weather.WeatherStatusIcon
+
+private const val FORECAST_DAYS = 4
+
+@Immutable
+data class OverviewWeatherInfo(
+    val weatherStation: String,
+    val weatherIcon: WeatherStatusIcon,
+    val nextWeatherIcon: WeatherStatusIcon?,
+    val currentTemperature: Float,
+    val highestTemperature: Float,
+    val lowestTemperature: Float,
+    val chanceOfRain: Float,
+    val chanceOfRainRangeSign: RangeSign,
+    val currentHumidity: Float,
+    val uvIndex: Float,
+    val forecastInfo: List<ForecastWeatherInfo>
+) {
+
+    companion object {
+
+        fun of(weatherInfo: CurrentWeatherInfo?): OverviewWeatherInfo? {
+            if (weatherInfo == null) {
+                return null
+            }
+            return OverviewWeatherInfo(
+                weatherInfo.weatherStation,
+                weatherInfo.weatherIcon,
+                weatherInfo.nextWeatherIcon,
+                weatherInfo.currentTemperature,
+                weatherInfo.highestTemperature,
+                weatherInfo.lowestTemperature,
+                weatherInfo.chanceOfRain,
+                weatherInfo.chanceOfRainRangeSign,
+                weatherInfo.currentHumidity,
+                weatherInfo.uvIndex,
+                weatherInfo.forecastInfo.take(FORECAST_DAYS)
+            )
+        }
+
+    }
+
+}
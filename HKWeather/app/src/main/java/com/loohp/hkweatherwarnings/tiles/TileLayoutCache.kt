@@ -0,0 +1,54 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.tiles
+
+import android.content.Context
+import android.os.Bundle
+import androidx.wear.tiles.TileBuilders
+import com.google.firebase.analytics.FirebaseAnalytics
+
+class TileLayoutCache<M : Any>(private val name: String, private val maxSize: Int) {
+
+    private val tiles = object : LinkedHashMap<M, TileBuilders.Tile>(maxSize, 0.75F, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<M, TileBuilders.Tile>?): Boolean {
+            return size > maxSize
+        }
+    }
+
+    fun getOrBuild(context: Context, model: M, builder: (M) -> TileBuilders.Tile): TileBuilders.Tile {
+        return getOrBuild(model, builder) { micros, warm ->
+            FirebaseAnalytics.getInstance(context).logEvent("tile_build_us", Bundle().apply {
+                putString("tile", name)
+                putLong("value", micros)
+                putString("cache", if (warm) "warm" else "cold")
+            })
+        }
+    }
+
+    fun getOrBuild(model: M, builder: (M) -> TileBuilders.Tile, report: (Long, Boolean) -> Unit): TileBuilders.Tile {
+        val start = System.nanoTime()
+        val cached = synchronized(tiles) { tiles[model] }
+        val tile = cached ?: builder.invoke(model).also { synchronized(tiles) { tiles[model] = it } }
+        report.invoke((System.nanoTime() - start) / 1000, cached != null)
+        return tile
+    }
+
+}
@@ -23,6 +23,7 @@ package com.loohp.hkweatherwarnings.tiles
 import android.text.format.DateFormat
 import android.util.Pair
 import androidx.annotation.OptIn
+import androidx.compose.runtime.Immutable
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.toArgb
 import androidx.wear.protolayout.ActionBuilders
@@ -47,12 +48,14 @@ import com.google.common.util.concurrent.ListenableFuture
 import com.loohp.hkweatherwarnings.MainActivity
 import com.loohp.hkweatherwarnings.R
 import com.loohp.hkweatherwarnings.Section
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Registry
 import com.loohp.hkweatherwarnings.shared.Shared
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.FRESHNESS_TIME
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.currentTips
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.currentWarnings
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.currentWeatherInfo
+import com.loohp.hkweatherwarnings.shared.UpdateFanOut
 import com.loohp.hkweatherwarnings.utils.ConnectionUtils
 import com.loohp.hkweatherwarnings.utils.ScreenSizeUtils
 import com.loohp.hkweatherwarnings.utils.StringUtils
@@ -73,7 +76,23 @@ import java.util.concurrent.ForkJoinPool
 
 private const val RESOURCES_VERSION = "0"
 private var tileUpdatedTime: Long = 0
-private var state = false
+private val layoutCache = TileLayoutCache<OverviewTileModel>("overview", 4)
+
+@Immutable
+private data class OverviewTileModel(
+    val language: String,
+    val gps: Boolean,
+    val is24HourFormat: Boolean,
+    val backgroundRestriction: ConnectionUtils.BackgroundRestrictionType,
+    val today: LocalDate,
+    val updateTime: Long,
+    val updateSuccess: Boolean,
+    val updating: Boolean,
+    val weatherInfo: OverviewWeatherInfo?,
+    val warnings: List<WeatherWarningsType>,
+    val tipCount: Int,
+    val freshness: Long
+)
 
 class WeatherOverviewTile : TileService() {
 
@@ -88,9 +107,9 @@ class WeatherOverviewTile : TileService() {
         return Futures.submit(Callable {
             val isReload = requestParams.currentState.keyToValueMapping.containsKey(AppDataKey<DynamicBuilders.DynamicString>("reload"))
             val futures = Triple(
-                currentWeatherInfo.getLatestValue(this, ForkJoinPool.commonPool(), isReload),
-                currentWarnings.getLatestValue(this, ForkJoinPool.commonPool(), isReload),
-                currentTips.getLatestValue(this, ForkJoinPool.commonPool(), isReload)
+                currentWeatherInfo.getLatestValue(this, ForkJoinPool.commonPool(), isReload, FetchPriority.TILE, supersede = isReload),
+                currentWarnings.getLatestValue(this, ForkJoinPool.commonPool(), isReload, FetchPriority.TILE, supersede = isReload),
+                currentTips.getLatestValue(this, ForkJoinPool.commonPool(), isReload, FetchPriority.TILE, supersede = isReload)
             )
             val data: Triple<CurrentWeatherInfo?, Map<WeatherWarningsType, String?>, List<Pair<String, Long>>> = futures.map { it.orIntermediateValue }
             val (weatherInfo, warnings, tips) = data
@@ -98,60 +117,12 @@ class WeatherOverviewTile : TileService() {
             val updateSuccess = currentWeatherInfo.isLastUpdateSuccess(this)
             val updateTime = currentWeatherInfo.getLastSuccessfulUpdateTime(this)
             tileUpdatedTime = System.currentTimeMillis()
-
-            var element: LayoutElementBuilders.LayoutElement =
-                LayoutElementBuilders.Column.Builder()
-                    .setWidth(DimensionBuilders.expand())
-                    .setHeight(DimensionBuilders.expand())
-                    .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
-                    .setModifiers(
-                        ModifiersBuilders.Modifiers.Builder()
-                            .setClickable(
-                                ModifiersBuilders.Clickable.Builder()
-                                    .setOnClick(
-                                        ActionBuilders.LaunchAction.Builder()
-                                            .setAndroidActivity(
-                                                ActionBuilders.AndroidActivity.Builder()
-                                                    .setClassName(MainActivity::class.java.name)
-                                                    .addKeyToExtraMapping("launchSection", ActionBuilders.stringExtra(Section.MAIN.name))
-                                                    .setPackageName(packageName)
-                                                    .build()
-                                            ).build()
-                                    )
-                                    .setId("open")
-                                    .build()
-                            )
-                            .build()
-                    )
-                    .addContent(
-                        buildContent(updateTime, updateSuccess, weatherInfo, warnings, tips, updating)
-                    )
-                    .build()
-
-            element = if (state) {
-                state = false
-                element
-            } else {
-                state = true
-                LayoutElementBuilders.Box.Builder()
-                    .setWidth(DimensionBuilders.expand())
-                    .setHeight(DimensionBuilders.expand())
-                    .addContent(element)
-                    .build()
+            if (updating) {
+                UpdateFanOut.invalidate(javaClass)
             }
 
-            TileBuilders.Tile.Builder()
-                .setResourcesVersion(RESOURCES_VERSION)
-                .setFreshnessIntervalMillis(FRESHNESS_TIME.invoke(this))
-                .setTileTimeline(
-                    TimelineBuilders.Timeline.Builder().addTimelineEntry(
-                        TimelineBuilders.TimelineEntry.Builder().setLayout(
-                            LayoutElementBuilders.Layout.Builder().setRoot(
-                                element
-                            ).build()
-                        ).build()
-                    ).build()
-                ).build()
+            val model = OverviewTileModel(Registry.getInstance(this).language, Registry.getInstance(this).location.first == "GPS", DateFormat.is24HourFormat(this), ConnectionUtils.isBackgroundRestricted(this), LocalDate.now(Shared.HK_TIMEZONE.toZoneId()), updateTime, updateSuccess, updating, OverviewWeatherInfo.of(weatherInfo), warnings.keys.toList(), tips.size, FRESHNESS_TIME.invoke(this))
+            layoutCache.getOrBuild(this, model) { buildTile(it) }
         }, ForkJoinPool.commonPool())
     }
 
@@ -225,18 +196,62 @@ class WeatherOverviewTile : TileService() {
         return Futures.immediateFuture(bundle.build())
     }
 
+    private fun buildTile(model: OverviewTileModel): TileBuilders.Tile {
+        val element: LayoutElementBuilders.LayoutElement =
+            LayoutElementBuilders.Column.Builder()
+                .setWidth(DimensionBuilders.expand())
+                .setHeight(DimensionBuilders.expand())
+                .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
+                .setModifiers(
+                    ModifiersBuilders.Modifiers.Builder()
+                        .setClickable(
+                            ModifiersBuilders.Clickable.Builder()
+                                .setOnClick(
+                                    ActionBuilders.LaunchAction.Builder()
+                                        .setAndroidActivity(
+                                            ActionBuilders.AndroidActivity.Builder()
+                                                .setClassName(MainActivity::class.java.name)
+                                                .addKeyToExtraMapping("launchSection", ActionBuilders.stringExtra(Section.MAIN.name))
+                                                .setPackageName(packageName)
+                                                .build()
+                                        ).build()
+                                )
+                                .setId("open")
+                                .build()
+                        )
+                        .build()
+                )
+                .addContent(
+                    buildContent(model)
+                )
+                .build()
+
+        return TileBuilders.Tile.Builder()
+            .setResourcesVersion(RESOURCES_VERSION)
+            .setFreshnessIntervalMillis(model.freshness)
+            .setTileTimeline(
+                TimelineBuilders.Timeline.Builder().addTimelineEntry(
+                    TimelineBuilders.TimelineEntry.Builder().setLayout(
+                        LayoutElementBuilders.Layout.Builder().setRoot(
+                            element
+                        ).build()
+                    ).build()
+                ).build()
+            ).build()
+    }
+
     @OptIn(ProtoLayoutExperimental::class)
-    private fun buildTitle(updateTime: Long, updateSuccess: Boolean, weatherInfo: CurrentWeatherInfo?, updating: Boolean): LayoutElementBuilders.LayoutElement {
-        var lastUpdateText = (if (Registry.getInstance(this).language == "en") "Updated: " else "更新時間: ").plus(
-            DateFormat.getTimeFormat(this).timeZone(Shared.HK_TIMEZONE).format(Date(updateTime)))
-        if (!updateSuccess) {
-            lastUpdateText = lastUpdateText.plus(if (Registry.getInstance(this).language == "en") " (Failed)" else " (無法更新)")
+    private fun buildTitle(model: OverviewTileModel, weatherInfo: OverviewWeatherInfo?): LayoutElementBuilders.LayoutElement {
+        var lastUpdateText = (if (model.language == "en") "Updated: " else "更新時間: ").plus(
+            DateFormat.getTimeFormat(this).timeZone(Shared.HK_TIMEZONE).format(Date(model.updateTime)))
+        if (!model.updateSuccess) {
+            lastUpdateText = lastUpdateText.plus(if (model.language == "en") " (Failed)" else " (無法更新)")
         }
         val text = if (weatherInfo == null) "-" else weatherInfo.weatherStation
         val textSize = clampSp(this, UnitUtils.dpToSp(this, StringUtils.findOptimalSp(this, text, StringUtils.scaledSize(230, this), 1, 1F, 17F)), dpMax = 18F)
         val imageSize = UnitUtils.spToDp(this, textSize)
 
-        val titleLayout = if (Registry.getInstance(this).location.first == "GPS") {
+        val titleLayout = if (model.gps) {
             LayoutElementBuilders.Row.Builder()
                 .setWidth(DimensionBuilders.wrap())
                 .setHeight(DimensionBuilders.wrap())
@@ -274,7 +289,7 @@ class WeatherOverviewTile : TileService() {
                         .addContent(
                             LayoutElementBuilders.Box.Builder()
                                 .setWidth(DimensionBuilders.wrap())
-                                .setHeight(DimensionBuilders.DpProp.Builder(imageSize * (if (Registry.getInstance(this).language == "en") 1.25F else 1.1F)).build())
+                                .setHeight(DimensionBuilders.DpProp.Builder(imageSize * (if (model.language == "en") 1.25F else 1.1F)).build())
                                 .setVerticalAlignment(LayoutElementBuilders.VERTICAL_ALIGN_TOP)
                                 .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
                                 .addContent(
@@ -389,7 +404,7 @@ class WeatherOverviewTile : TileService() {
                                             )
                                             .build()
                                     )
-                                    .setResourceId(if (updating) "reloading" else "reload")
+                                    .setResourceId(if (model.updating) "reloading" else "reload")
                                     .build()
                             )
                             .build()
@@ -400,16 +415,16 @@ class WeatherOverviewTile : TileService() {
                             .setHeight(DimensionBuilders.wrap())
                             .addContent(
                                 LayoutElementBuilders.Text.Builder()
-                                    .setText(if (!updateSuccess) {
-                                        when (ConnectionUtils.isBackgroundRestricted(this)) {
+                                    .setText(if (!model.updateSuccess) {
+                                        when (model.backgroundRestriction) {
                                             ConnectionUtils.BackgroundRestrictionType.RESTRICT_BACKGROUND_STATUS -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Data Saver" else "背景網絡存取被限制 - 數據節省器"
+                                                if (model.language == "en") "Background Internet Restricted - Data Saver" else "背景網絡存取被限制 - 數據節省器"
                                             }
                                             ConnectionUtils.BackgroundRestrictionType.POWER_SAVE_MODE -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Power Saving" else "背景網絡存取被限制 - 省電模式"
+                                                if (model.language == "en") "Background Internet Restricted - Power Saving" else "背景網絡存取被限制 - 省電模式"
                                             }
                                             ConnectionUtils.BackgroundRestrictionType.LOW_POWER_STANDBY -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Low Power Standby" else "背景網絡存取被限制 - 低耗電待機"
+                                                if (model.language == "en") "Background Internet Restricted - Low Power Standby" else "背景網絡存取被限制 - 低耗電待機"
                                             }
                                             else -> {
                                                 ""
@@ -438,7 +453,8 @@ class WeatherOverviewTile : TileService() {
             .build()
     }
 
-    private fun buildContent(updateTime: Long, updateSuccess: Boolean, weatherInfo: CurrentWeatherInfo?, warnings: Map<WeatherWarningsType, String?>, tips: List<Pair<String, Long>>, updating: Boolean): LayoutElementBuilders.LayoutElement {
+    private fun buildContent(model: OverviewTileModel): LayoutElementBuilders.LayoutElement {
+        val weatherInfo = model.weatherInfo
         return if (weatherInfo == null) {
             LayoutElementBuilders.Column.Builder()
                 .setWidth(DimensionBuilders.expand())
@@ -456,7 +472,7 @@ class WeatherOverviewTile : TileService() {
                         ).build()
                 )
                 .addContent(
-                    buildTitle(updateTime, updateSuccess, null, updating)
+                    buildTitle(model, null)
                 )
                 .addContent(
                     LayoutElementBuilders.Box.Builder()
@@ -474,7 +490,7 @@ class WeatherOverviewTile : TileService() {
                         )
                         .addContent(
                             LayoutElementBuilders.Text.Builder()
-                                .setText(if (Registry.getInstance(this).language == "en") "Unable to get weather information." else "無法取得天氣資訊")
+                                .setText(if (model.language == "en") "Unable to get weather information." else "無法取得天氣資訊")
                                 .setFontStyle(
                                     LayoutElementBuilders.FontStyle.Builder()
                                         .setSize(
@@ -488,7 +504,7 @@ class WeatherOverviewTile : TileService() {
                 )
                 .build()
         } else {
-            val today = LocalDate.now(Shared.HK_TIMEZONE.toZoneId())
+            val today = model.today
             val forecastIndex = if (weatherInfo.forecastInfo[0].date.equals(today)) 1 else 0
 
             val weatherBox = LayoutElementBuilders.Box.Builder()
@@ -573,7 +589,7 @@ class WeatherOverviewTile : TileService() {
                                 .build()
                         )
                         .addContent(
-                            buildTitle(updateTime, updateSuccess, weatherInfo, updating)
+                            buildTitle(model, weatherInfo)
                         )
                         .build()
                 )
@@ -735,7 +751,7 @@ class WeatherOverviewTile : TileService() {
                                                 )
                                                 .addContent(
                                                     LayoutElementBuilders.Text.Builder()
-                                                        .setText(weatherInfo.forecastInfo[forecastIndex + 0].dayOfWeek.getDisplayName(TextStyle.SHORT, if (Registry.getInstance(this).language == "en") Locale.ENGLISH else Locale.TRADITIONAL_CHINESE))
+                                                        .setText(weatherInfo.forecastInfo[forecastIndex + 0].dayOfWeek.getDisplayName(TextStyle.SHORT, if (model.language == "en") Locale.ENGLISH else Locale.TRADITIONAL_CHINESE))
                                                         .setFontStyle(
                                                             LayoutElementBuilders.FontStyle.Builder()
                                                                 .setSize(
@@ -784,7 +800,7 @@ class WeatherOverviewTile : TileService() {
                                                 )
                                                 .addContent(
                                                     LayoutElementBuilders.Text.Builder()
-                                                        .setText(weatherInfo.forecastInfo[forecastIndex + 1].dayOfWeek.getDisplayName(TextStyle.SHORT, if (Registry.getInstance(this).language == "en") Locale.ENGLISH else Locale.TRADITIONAL_CHINESE))
+                                                        .setText(weatherInfo.forecastInfo[forecastIndex + 1].dayOfWeek.getDisplayName(TextStyle.SHORT, if (model.language == "en") Locale.ENGLISH else Locale.TRADITIONAL_CHINESE))
                                                         .setFontStyle(
                                                             LayoutElementBuilders.FontStyle.Builder()
                                                                 .setSize(
@@ -833,7 +849,7 @@ class WeatherOverviewTile : TileService() {
                                                 )
                                                 .addContent(
                                                     LayoutElementBuilders.Text.Builder()
-                                                        .setText(weatherInfo.forecastInfo[forecastIndex + 2].dayOfWeek.getDisplayName(TextStyle.SHORT, if (Registry.getInstance(this).language == "en") Locale.ENGLISH else Locale.TRADITIONAL_CHINESE))
+                                                        .setText(weatherInfo.forecastInfo[forecastIndex + 2].dayOfWeek.getDisplayName(TextStyle.SHORT, if (model.language == "en") Locale.ENGLISH else Locale.TRADITIONAL_CHINESE))
                                                         .setFontStyle(
                                                             LayoutElementBuilders.FontStyle.Builder()
                                                                 .setSize(
@@ -1062,7 +1078,7 @@ class WeatherOverviewTile : TileService() {
                         )
                         .build()
                 )
-            if (updateSuccess) {
+            if (model.updateSuccess) {
                 layout.addContent(
                     LayoutElementBuilders.Box.Builder()
                         .setWidth(DimensionBuilders.expand())
@@ -1097,7 +1113,7 @@ class WeatherOverviewTile : TileService() {
                         .build()
                 )
             }
-            for ((i, value) in warnings.keys.withIndex()) {
+            for ((i, value) in model.warnings.withIndex()) {
                 layout.addContent(
                     LayoutElementBuilders.Arc.Builder()
                         .setAnchorAngle(
@@ -1118,7 +1134,7 @@ class WeatherOverviewTile : TileService() {
                         ).build()
                     )
             }
-            if (warnings.isNotEmpty()) {
+            if (model.warnings.isNotEmpty()) {
                 layout.addContent(
                     LayoutElementBuilders.Box.Builder()
                         .setWidth(DimensionBuilders.expand())
@@ -1153,7 +1169,7 @@ class WeatherOverviewTile : TileService() {
                         .build()
                 )
             }
-            for (i in tips.indices) {
+            for (i in 0 until model.tipCount) {
                 layout.addContent(
                     LayoutElementBuilders.Arc.Builder()
                         .setAnchorAngle(
@@ -1174,7 +1190,7 @@ class WeatherOverviewTile : TileService() {
                         ).build()
                 )
             }
-            if (tips.isNotEmpty()) {
+            if (model.tipCount > 0) {
                 layout.addContent(
                     LayoutElementBuilders.Box.Builder()
                         .setWidth(DimensionBuilders.expand())
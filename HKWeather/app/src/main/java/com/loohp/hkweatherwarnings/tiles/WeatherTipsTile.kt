@@ -23,6 +23,7 @@ package com.loohp.hkweatherwarnings.tiles
 import android.text.format.DateFormat
 import android.util.Pair
 import androidx.annotation.OptIn
+import androidx.compose.runtime.Immutable
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.toArgb
 import androidx.wear.protolayout.ActionBuilders
@@ -48,10 +49,12 @@ import com.google.common.util.concurrent.ListenableFuture
 import com.loohp.hkweatherwarnings.MainActivity
 import com.loohp.hkweatherwarnings.R
 import com.loohp.hkweatherwarnings.Section
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Registry
 import com.loohp.hkweatherwarnings.shared.Shared
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.FRESHNESS_TIME
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.currentTips
+import com.loohp.hkweatherwarnings.shared.UpdateFanOut
 import com.loohp.hkweatherwarnings.utils.ConnectionUtils
 import com.loohp.hkweatherwarnings.utils.ScreenSizeUtils
 import com.loohp.hkweatherwarnings.utils.StringUtils
@@ -66,7 +69,20 @@ import kotlin.math.roundToInt
 private const val RESOURCES_VERSION = "0"
 private var tileUpdatedTime: Long = 0
 private var currentIndex: Int = 0
-private var state = false
+private val layoutCache = TileLayoutCache<TipsTileModel>("tips", 4)
+
+@Immutable
+private data class TipsTileModel(
+    val language: String,
+    val is24HourFormat: Boolean,
+    val backgroundRestriction: ConnectionUtils.BackgroundRestrictionType,
+    val updateTime: Long,
+    val updateSuccess: Boolean,
+    val updating: Boolean,
+    val tips: List<Pair<String, Long>>,
+    val index: Int,
+    val freshness: Long
+)
 
 
 class WeatherTipsTile : TileService() {
@@ -84,107 +100,19 @@ class WeatherTipsTile : TileService() {
                 currentIndex++
             }
             val isReload = requestParams.currentState.keyToValueMapping.containsKey(AppDataKey<DynamicString>("reload"))
-            val future = currentTips.getLatestValue(this, ForkJoinPool.commonPool(), isReload)
+            val future = currentTips.getLatestValue(this, ForkJoinPool.commonPool(), isReload, FetchPriority.TILE, supersede = isReload)
             val tips = future.orIntermediateValue
             val updating = !future.isDone
             val updateSuccess = currentTips.isLastUpdateSuccess(this)
             val updateTime = currentTips.getLastSuccessfulUpdateTime(this)
             tileUpdatedTime = System.currentTimeMillis()
-
-            val content = buildContent(tips)
-            val elementBuilder = LayoutElementBuilders.Box.Builder()
-                .setWidth(DimensionBuilders.expand())
-                .setHeight(DimensionBuilders.expand())
-                .setModifiers(
-                    ModifiersBuilders.Modifiers.Builder()
-                        .setClickable(
-                            if (tips.size <= 1) {
-                                ModifiersBuilders.Clickable.Builder()
-                                    .setOnClick(
-                                        ActionBuilders.LaunchAction.Builder()
-                                            .setAndroidActivity(
-                                                ActionBuilders.AndroidActivity.Builder()
-                                                    .setClassName(MainActivity::class.java.name)
-                                                    .addKeyToExtraMapping("launchSection", ActionBuilders.stringExtra(Section.TIPS.name))
-                                                    .setPackageName(packageName)
-                                                    .build()
-                                            ).build()
-                                    )
-                                    .setId("open")
-                                    .build()
-                            } else {
-                                ModifiersBuilders.Clickable.Builder()
-                                    .setOnClick(
-                                        LoadAction.Builder()
-                                            .setRequestState(
-                                                StateBuilders.State.Builder()
-                                                    .addKeyToValueMapping(
-                                                        AppDataKey<DynamicString>("next"),
-                                                        DynamicDataBuilders.DynamicDataValue.fromString("")
-                                                    )
-                                                    .build()
-                                            )
-                                            .build()
-                                    )
-                                    .setId("open")
-                                    .build()
-                            }
-                        )
-                        .build()
-                )
-                .addContent(
-                    LayoutElementBuilders.Column.Builder()
-                        .setWidth(DimensionBuilders.expand())
-                        .setHeight(DimensionBuilders.expand())
-                        .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
-                        .setModifiers(
-                            ModifiersBuilders.Modifiers.Builder()
-                                .setPadding(
-                                    ModifiersBuilders.Padding.Builder()
-                                        .setTop(DimensionBuilders.DpProp.Builder(30F).build())
-                                        .setBottom(DimensionBuilders.DpProp.Builder(30F).build())
-                                        .setStart(DimensionBuilders.DpProp.Builder(15F).build())
-                                        .setEnd(DimensionBuilders.DpProp.Builder(15F).build())
-                                        .build()
-                                )
-                                .build()
-                        )
-                        .addContent(
-                            buildTitle(updateSuccess, updateTime, updating)
-                        )
-                        .addContent(
-                            content[0]
-                        )
-                        .build()
-                )
-            if (content.size > 1) {
-                elementBuilder.addContent(content[1])
+            if (updating) {
+                UpdateFanOut.invalidate(javaClass)
             }
 
-            val element = if (state) {
-                state = false
-                elementBuilder.build()
-            } else {
-                state = true
-                LayoutElementBuilders.Box.Builder()
-                    .setWidth(DimensionBuilders.expand())
-                    .setHeight(DimensionBuilders.expand())
-                    .addContent(elementBuilder.build())
-                    .build()
-            }
-
-            TileBuilders.Tile.Builder()
-                .setResourcesVersion(RESOURCES_VERSION)
-                .setFreshnessIntervalMillis(FRESHNESS_TIME.invoke(this))
-                .setTileTimeline(
-                    TimelineBuilders.Timeline.Builder().addTimelineEntry(
-                        TimelineBuilders.TimelineEntry.Builder().setLayout(
-                            LayoutElementBuilders.Layout.Builder().setRoot(
-                                element
-                            ).build()
-                        ).build()
-                    ).build()
-                ).build()
+            currentIndex = if (currentIndex < tips.size) currentIndex else 0
+            val model = TipsTileModel(Registry.getInstance(this).language, DateFormat.is24HourFormat(this), ConnectionUtils.isBackgroundRestricted(this), updateTime, updateSuccess, updating, tips, currentIndex, FRESHNESS_TIME.invoke(this))
+            layoutCache.getOrBuild(this, model) { buildTile(it) }
         }, ForkJoinPool.commonPool())
     }
 
@@ -207,12 +135,98 @@ class WeatherTipsTile : TileService() {
                 ).build())
     }
 
+    private fun buildTile(model: TipsTileModel): TileBuilders.Tile {
+        val content = buildContent(model)
+        val elementBuilder = LayoutElementBuilders.Box.Builder()
+            .setWidth(DimensionBuilders.expand())
+            .setHeight(DimensionBuilders.expand())
+            .setModifiers(
+                ModifiersBuilders.Modifiers.Builder()
+                    .setClickable(
+                        if (model.tips.size <= 1) {
+                            ModifiersBuilders.Clickable.Builder()
+                                .setOnClick(
+                                    ActionBuilders.LaunchAction.Builder()
+                                        .setAndroidActivity(
+                                            ActionBuilders.AndroidActivity.Builder()
+                                                .setClassName(MainActivity::class.java.name)
+                                                .addKeyToExtraMapping("launchSection", ActionBuilders.stringExtra(Section.TIPS.name))
+                                                .setPackageName(packageName)
+                                                .build()
+                                        ).build()
+                                )
+                                .setId("open")
+                                .build()
+                        } else {
+                            ModifiersBuilders.Clickable.Builder()
+                                .setOnClick(
+                                    LoadAction.Builder()
+                                        .setRequestState(
+                                            StateBuilders.State.Builder()
+                                                .addKeyToValueMapping(
+                                                    AppDataKey<DynamicString>("next"),
+                                                    DynamicDataBuilders.DynamicDataValue.fromString("")
+                                                )
+                                                .build()
+                                        )
+                                        .build()
+                                )
+                                .setId("open")
+                                .build()
+                        }
+                    )
+                    .build()
+            )
+            .addContent(
+                LayoutElementBuilders.Column.Builder()
+                    .setWidth(DimensionBuilders.expand())
+                    .setHeight(DimensionBuilders.expand())
+                    .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
+                    .setModifiers(
+                        ModifiersBuilders.Modifiers.Builder()
+                            .setPadding(
+                                ModifiersBuilders.Padding.Builder()
+                                    .setTop(DimensionBuilders.DpProp.Builder(30F).build())
+                                    .setBottom(DimensionBuilders.DpProp.Builder(30F).build())
+                                    .setStart(DimensionBuilders.DpProp.Builder(15F).build())
+                                    .setEnd(DimensionBuilders.DpProp.Builder(15F).build())
+                                    .build()
+                            )
+                            .build()
+                    )
+                    .addContent(
+                        buildTitle(model)
+                    )
+                    .addContent(
+                        content[0]
+                    )
+                    .build()
+            )
+        if (content.size > 1) {
+            elementBuilder.addContent(content[1])
+        }
+        val element = elementBuilder.build()
+
+        return TileBuilders.Tile.Builder()
+            .setResourcesVersion(RESOURCES_VERSION)
+            .setFreshnessIntervalMillis(model.freshness)
+            .setTileTimeline(
+                TimelineBuilders.Timeline.Builder().addTimelineEntry(
+                    TimelineBuilders.TimelineEntry.Builder().setLayout(
+                        LayoutElementBuilders.Layout.Builder().setRoot(
+                            element
+                        ).build()
+                    ).build()
+                ).build()
+            ).build()
+    }
+
     @OptIn(ProtoLayoutExperimental::class)
-    private fun buildTitle(updateSuccess: Boolean, updatedTime: Long, updating: Boolean): LayoutElementBuilders.LayoutElement {
-        var lastUpdateText = (if (Registry.getInstance(this).language == "en") "Updated: " else "更新時間: ").plus(
-            DateFormat.getTimeFormat(this).timeZone(Shared.HK_TIMEZONE).format(Date(updatedTime)))
-        if (!updateSuccess) {
-            lastUpdateText = lastUpdateText.plus(if (Registry.getInstance(this).language == "en") " (Failed)" else " (無法更新)")
+    private fun buildTitle(model: TipsTileModel): LayoutElementBuilders.LayoutElement {
+        var lastUpdateText = (if (model.language == "en") "Updated: " else "更新時間: ").plus(
+            DateFormat.getTimeFormat(this).timeZone(Shared.HK_TIMEZONE).format(Date(model.updateTime)))
+        if (!model.updateSuccess) {
+            lastUpdateText = lastUpdateText.plus(if (model.language == "en") " (Failed)" else " (無法更新)")
         }
         return LayoutElementBuilders.Box.Builder()
             .setWidth(DimensionBuilders.wrap())
@@ -234,7 +248,7 @@ class WeatherTipsTile : TileService() {
                     .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
                     .addContent(
                         LayoutElementBuilders.Text.Builder()
-                            .setText(if (Registry.getInstance(this).language == "en") "Special Weather Tips" else "特別天氣提示")
+                            .setText(if (model.language == "en") "Special Weather Tips" else "特別天氣提示")
                             .setFontStyle(
                                 LayoutElementBuilders.FontStyle.Builder()
                                     .setSize(
@@ -302,7 +316,7 @@ class WeatherTipsTile : TileService() {
                                             )
                                             .build()
                                     )
-                                    .setResourceId(if (updating) "reloading" else "reload")
+                                    .setResourceId(if (model.updating) "reloading" else "reload")
                                     .build()
                             )
                             .build()
@@ -313,16 +327,16 @@ class WeatherTipsTile : TileService() {
                             .setHeight(DimensionBuilders.wrap())
                             .addContent(
                                 LayoutElementBuilders.Text.Builder()
-                                    .setText(if (!updateSuccess) {
-                                        when (ConnectionUtils.isBackgroundRestricted(this)) {
+                                    .setText(if (!model.updateSuccess) {
+                                        when (model.backgroundRestriction) {
                                             ConnectionUtils.BackgroundRestrictionType.RESTRICT_BACKGROUND_STATUS -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Data Saver" else "背景網絡存取被限制 - 數據節省器"
+                                                if (model.language == "en") "Background Internet Restricted - Data Saver" else "背景網絡存取被限制 - 數據節省器"
                                             }
                                             ConnectionUtils.BackgroundRestrictionType.POWER_SAVE_MODE -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Power Saving" else "背景網絡存取被限制 - 省電模式"
+                                                if (model.language == "en") "Background Internet Restricted - Power Saving" else "背景網絡存取被限制 - 省電模式"
                                             }
                                             ConnectionUtils.BackgroundRestrictionType.LOW_POWER_STANDBY -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Low Power Standby" else "背景網絡存取被限制 - 低耗電待機"
+                                                if (model.language == "en") "Background Internet Restricted - Low Power Standby" else "背景網絡存取被限制 - 低耗電待機"
                                             }
                                             else -> {
                                                 ""
@@ -351,17 +365,16 @@ class WeatherTipsTile : TileService() {
             .build()
     }
 
-    private fun buildContent(tips: List<Pair<String, Long>>): List<LayoutElementBuilders.LayoutElement> {
+    private fun buildContent(model: TipsTileModel): List<LayoutElementBuilders.LayoutElement> {
         val layouts: MutableList<LayoutElementBuilders.LayoutElement> = ArrayList(2)
-        val tip = if (tips.isEmpty()) {
+        val tip = if (model.tips.isEmpty()) {
             null
         } else {
-            currentIndex = if (currentIndex < tips.size) currentIndex else 0
-            tips[currentIndex]
+            model.tips[model.index]
         }
-        val tipText = if (tip == null) (if (Registry.getInstance(this).language == "en") "There are currently no active special weather tips." else "目前沒有任何特別天氣提示") else tip.first
-        val heightMultiplier = if (Registry.getInstance(this).language == "en") 0.45F else 0.35F
-        val maxLines = (ScreenSizeUtils.getScreenHeight(this) * (if (Registry.getInstance(this).language == "en") 0.0155F else 0.0133F)).floorToInt()
+        val tipText = if (tip == null) (if (model.language == "en") "There are currently no active special weather tips." else "目前沒有任何特別天氣提示") else tip.first
+        val heightMultiplier = if (model.language == "en") 0.45F else 0.35F
+        val maxLines = (ScreenSizeUtils.getScreenHeight(this) * (if (model.language == "en") 0.0155F else 0.0133F)).floorToInt()
         val tipTextSize = UnitUtils.dpToSp(this, StringUtils.findOptimalSpForHeight(this, tipText, ScreenSizeUtils.getScreenWidth(this) - 50, (ScreenSizeUtils.getScreenHeight(this).toFloat() * heightMultiplier).roundToInt(), 11F, 15F))
 
         layouts.add(
@@ -467,7 +480,7 @@ class WeatherTipsTile : TileService() {
                             )
                             .addContent(
                                 LayoutElementBuilders.Text.Builder()
-                                    .setText((currentIndex + 1).toString().plus(" / ").plus(tips.size))
+                                    .setText((model.index + 1).toString().plus(" / ").plus(model.tips.size))
                                     .setFontStyle(
                                         LayoutElementBuilders.FontStyle.Builder()
                                             .setSize(
@@ -22,6 +22,7 @@ package com.loohp.hkweatherwarnings.tiles
 
 import android.text.format.DateFormat
 import androidx.annotation.OptIn
+import androidx.compose.runtime.Immutable
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.toArgb
 import androidx.wear.protolayout.ActionBuilders
@@ -45,10 +46,12 @@ import com.google.common.util.concurrent.ListenableFuture
 import com.loohp.hkweatherwarnings.MainActivity
 import com.loohp.hkweatherwarnings.R
 import com.loohp.hkweatherwarnings.Section
+import com.loohp.hkweatherwarnings.shared.FetchPriority
 import com.loohp.hkweatherwarnings.shared.Registry
 import com.loohp.hkweatherwarnings.shared.Shared
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.FRESHNESS_TIME
 import com.loohp.hkweatherwarnings.shared.Shared.Companion.currentWarnings
+import com.loohp.hkweatherwarnings.shared.UpdateFanOut
 import com.loohp.hkweatherwarnings.utils.ConnectionUtils
 import com.loohp.hkweatherwarnings.utils.ScreenSizeUtils
 import com.loohp.hkweatherwarnings.utils.StringUtils
@@ -62,7 +65,19 @@ import java.util.stream.Collectors
 
 private const val RESOURCES_VERSION = "0"
 private var tileUpdatedTime: Long = 0
-private var state = false
+private val layoutCache = TileLayoutCache<WarningsTileModel>("warnings", 4)
+
+@Immutable
+private data class WarningsTileModel(
+    val language: String,
+    val is24HourFormat: Boolean,
+    val backgroundRestriction: ConnectionUtils.BackgroundRestrictionType,
+    val updateTime: Long,
+    val updateSuccess: Boolean,
+    val updating: Boolean,
+    val warnings: Map<WeatherWarningsType, String?>,
+    val freshness: Long
+)
 
 class WeatherWarningsTile : TileService() {
 
@@ -76,77 +91,18 @@ class WeatherWarningsTile : TileService() {
     override fun onTileRequest(requestParams: RequestBuilders.TileRequest): ListenableFuture<TileBuilders.Tile> {
         return Futures.submit(Callable {
             val isReload = requestParams.currentState.keyToValueMapping.containsKey(AppDataKey<DynamicBuilders.DynamicString>("reload"))
-            val future = currentWarnings.getLatestValue(this, ForkJoinPool.commonPool(), isReload)
+            val future = currentWarnings.getLatestValue(this, ForkJoinPool.commonPool(), isReload, FetchPriority.TILE, supersede = isReload)
             val warnings = future.orIntermediateValue
             val updating = !future.isDone
             val updateSuccess = currentWarnings.isLastUpdateSuccess(this)
             val updateTime = currentWarnings.getLastSuccessfulUpdateTime(this)
             tileUpdatedTime = System.currentTimeMillis()
-
-            var element: LayoutElementBuilders.LayoutElement =
-                LayoutElementBuilders.Column.Builder()
-                    .setWidth(DimensionBuilders.expand())
-                    .setHeight(DimensionBuilders.expand())
-                    .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
-                    .setModifiers(
-                        ModifiersBuilders.Modifiers.Builder()
-                            .setPadding(
-                                ModifiersBuilders.Padding.Builder()
-                                    .setTop(DimensionBuilders.DpProp.Builder(30F).build())
-                                    .setBottom(DimensionBuilders.DpProp.Builder(30F).build())
-                                    .setStart(DimensionBuilders.DpProp.Builder(15F).build())
-                                    .setEnd(DimensionBuilders.DpProp.Builder(15F).build())
-                                    .build()
-                            )
-                            .setClickable(
-                                ModifiersBuilders.Clickable.Builder()
-                                    .setOnClick(
-                                        ActionBuilders.LaunchAction.Builder()
-                                            .setAndroidActivity(
-                                                ActionBuilders.AndroidActivity.Builder()
-                                                    .setClassName(MainActivity::class.java.name)
-                                                    .addKeyToExtraMapping("launchSection", ActionBuilders.stringExtra(Section.WARNINGS.name))
-                                                    .setPackageName(packageName)
-                                                    .build()
-                                            ).build()
-                                    )
-                                    .setId("open")
-                                    .build()
-                            )
-                            .build()
-                    )
-                    .addContent(
-                        buildTitle(updateTime, updateSuccess, updating)
-                    )
-                    .addContent(
-                        buildContent(warnings)
-                    )
-                    .build()
-
-            element = if (state) {
-                state = false
-                element
-            } else {
-                state = true
-                LayoutElementBuilders.Box.Builder()
-                    .setWidth(DimensionBuilders.expand())
-                    .setHeight(DimensionBuilders.expand())
-                    .addContent(element)
-                    .build()
+            if (updating) {
+                UpdateFanOut.invalidate(javaClass)
             }
 
-            TileBuilders.Tile.Builder()
-                .setResourcesVersion(RESOURCES_VERSION)
-                .setFreshnessIntervalMillis(FRESHNESS_TIME.invoke(this))
-                .setTileTimeline(
-                    TimelineBuilders.Timeline.Builder().addTimelineEntry(
-                        TimelineBuilders.TimelineEntry.Builder().setLayout(
-                            LayoutElementBuilders.Layout.Builder().setRoot(
-                                element
-                            ).build()
-                        ).build()
-                    ).build()
-                ).build()
+            val model = WarningsTileModel(Registry.getInstance(this).language, DateFormat.is24HourFormat(this), ConnectionUtils.isBackgroundRestricted(this), updateTime, updateSuccess, updating, warnings, FRESHNESS_TIME.invoke(this))
+            layoutCache.getOrBuild(this, model) { buildTile(it) }
         }, ForkJoinPool.commonPool())
     }
 
@@ -178,12 +134,67 @@ class WeatherWarningsTile : TileService() {
         return Futures.immediateFuture(bundle.build())
     }
 
+    private fun buildTile(model: WarningsTileModel): TileBuilders.Tile {
+        val element: LayoutElementBuilders.LayoutElement =
+            LayoutElementBuilders.Column.Builder()
+                .setWidth(DimensionBuilders.expand())
+                .setHeight(DimensionBuilders.expand())
+                .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
+                .setModifiers(
+                    ModifiersBuilders.Modifiers.Builder()
+                        .setPadding(
+                            ModifiersBuilders.Padding.Builder()
+                                .setTop(DimensionBuilders.DpProp.Builder(30F).build())
+                                .setBottom(DimensionBuilders.DpProp.Builder(30F).build())
+                                .setStart(DimensionBuilders.DpProp.Builder(15F).build())
+                                .setEnd(DimensionBuilders.DpProp.Builder(15F).build())
+                                .build()
+                        )
+                        .setClickable(
+                            ModifiersBuilders.Clickable.Builder()
+                                .setOnClick(
+                                    ActionBuilders.LaunchAction.Builder()
+                                        .setAndroidActivity(
+                                            ActionBuilders.AndroidActivity.Builder()
+                                                .setClassName(MainActivity::class.java.name)
+                                                .addKeyToExtraMapping("launchSection", ActionBuilders.stringExtra(Section.WARNINGS.name))
+                                                .setPackageName(packageName)
+                                                .build()
+                                        ).build()
+                                )
+                                .setId("open")
+                                .build()
+                        )
+                        .build()
+                )
+                .addContent(
+                    buildTitle(model)
+                )
+                .addContent(
+                    buildContent(model)
+                )
+                .build()
+
+        return TileBuilders.Tile.Builder()
+            .setResourcesVersion(RESOURCES_VERSION)
+            .setFreshnessIntervalMillis(model.freshness)
+            .setTileTimeline(
+                TimelineBuilders.Timeline.Builder().addTimelineEntry(
+                    TimelineBuilders.TimelineEntry.Builder().setLayout(
+                        LayoutElementBuilders.Layout.Builder().setRoot(
+                            element
+                        ).build()
+                    ).build()
+                ).build()
+            ).build()
+    }
+
     @OptIn(ProtoLayoutExperimental::class)
-    private fun buildTitle(updateTime: Long, updateSuccess: Boolean, updating: Boolean): LayoutElementBuilders.LayoutElement {
-        var lastUpdateText = (if (Registry.getInstance(this).language == "en") "Updated: " else "更新時間: ").plus(
-            DateFormat.getTimeFormat(this).timeZone(Shared.HK_TIMEZONE).format(Date(updateTime)))
-        if (!updateSuccess) {
-            lastUpdateText = lastUpdateText.plus(if (Registry.getInstance(this).language == "en") " (Failed)" else " (無法更新)")
+    private fun buildTitle(model: WarningsTileModel): LayoutElementBuilders.LayoutElement {
+        var lastUpdateText = (if (model.language == "en") "Updated: " else "更新時間: ").plus(
+            DateFormat.getTimeFormat(this).timeZone(Shared.HK_TIMEZONE).format(Date(model.updateTime)))
+        if (!model.updateSuccess) {
+            lastUpdateText = lastUpdateText.plus(if (model.language == "en") " (Failed)" else " (無法更新)")
         }
         return LayoutElementBuilders.Box.Builder()
             .setWidth(DimensionBuilders.wrap())
@@ -205,7 +216,7 @@ class WeatherWarningsTile : TileService() {
                     .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
                     .addContent(
                         LayoutElementBuilders.Text.Builder()
-                            .setText(if (Registry.getInstance(this).language == "en") "Weather Warnings" else "天氣警告")
+                            .setText(if (model.language == "en") "Weather Warnings" else "天氣警告")
                             .setFontStyle(
                                 LayoutElementBuilders.FontStyle.Builder()
                                     .setSize(
@@ -273,7 +284,7 @@ class WeatherWarningsTile : TileService() {
                                             )
                                             .build()
                                     )
-                                    .setResourceId(if (updating) "reloading" else "reload")
+                                    .setResourceId(if (model.updating) "reloading" else "reload")
                                     .build()
                             )
                             .build()
@@ -284,16 +295,16 @@ class WeatherWarningsTile : TileService() {
                             .setHeight(DimensionBuilders.wrap())
                             .addContent(
                                 LayoutElementBuilders.Text.Builder()
-                                    .setText(if (!updateSuccess) {
-                                        when (ConnectionUtils.isBackgroundRestricted(this)) {
+                                    .setText(if (!model.updateSuccess) {
+                                        when (model.backgroundRestriction) {
                                             ConnectionUtils.BackgroundRestrictionType.RESTRICT_BACKGROUND_STATUS -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Data Saver" else "背景網絡存取被限制 - 數據節省器"
+                                                if (model.language == "en") "Background Internet Restricted - Data Saver" else "背景網絡存取被限制 - 數據節省器"
                                             }
                                             ConnectionUtils.BackgroundRestrictionType.POWER_SAVE_MODE -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Power Saving" else "背景網絡存取被限制 - 省電模式"
+                                                if (model.language == "en") "Background Internet Restricted - Power Saving" else "背景網絡存取被限制 - 省電模式"
                                             }
                                             ConnectionUtils.BackgroundRestrictionType.LOW_POWER_STANDBY -> {
-                                                if (Registry.getInstance(this).language == "en") "Background Internet Restricted - Low Power Standby" else "背景網絡存取被限制 - 低耗電待機"
+                                                if (model.language == "en") "Background Internet Restricted - Low Power Standby" else "背景網絡存取被限制 - 低耗電待機"
                                             }
                                             else -> {
                                                 ""
@@ -322,7 +333,7 @@ class WeatherWarningsTile : TileService() {
             .build()
     }
 
-    private fun buildContent(warnings: Map<WeatherWarningsType, String?>): LayoutElementBuilders.LayoutElement {
+    private fun buildContent(model: WarningsTileModel): LayoutElementBuilders.LayoutElement {
         return LayoutElementBuilders.Box.Builder()
             .setWidth(DimensionBuilders.wrap())
             .setHeight(DimensionBuilders.expand())
@@ -337,9 +348,9 @@ class WeatherWarningsTile : TileService() {
                     .build()
             )
             .addContent(
-                if (warnings.isEmpty()) {
+                if (model.warnings.isEmpty()) {
                     LayoutElementBuilders.Text.Builder()
-                        .setText(if (Registry.getInstance(this).language == "en") "There are currently no active warning signals." else "目前沒有任何天氣警告信號")
+                        .setText(if (model.language == "en") "There are currently no active warning signals." else "目前沒有任何天氣警告信號")
                         .setFontStyle(
                             LayoutElementBuilders.FontStyle.Builder()
                                 .setSize(
@@ -350,7 +361,7 @@ class WeatherWarningsTile : TileService() {
                         .setMaxLines(Int.MAX_VALUE)
                         .build()
                 } else {
-                    val images = warnings.entries.stream().map {
+                    val images = model.warnings.entries.stream().map {
                         val modifiers = ModifiersBuilders.Modifiers.Builder()
                             .setPadding(
                                 ModifiersBuilders.Padding.Builder()
@@ -370,7 +381,7 @@ class WeatherWarningsTile : TileService() {
                                                     .setClassName(MainActivity::class.java.name)
                                                     .addKeyToExtraMapping("imageDrawable", ActionBuilders.AndroidIntExtra.Builder().setValue(it.key.iconId).build())
                                                     .addKeyToExtraMapping("imageWidth", ActionBuilders.AndroidIntExtra.Builder().setValue(StringUtils.scaledSize(60, this)).build())
-                                                    .addKeyToExtraMapping("imageDescription", ActionBuilders.AndroidStringExtra.Builder().setValue(if (Registry.getInstance(this).language == "en") it.key.nameEn else it.key.nameZh).build())
+                                                    .addKeyToExtraMapping("imageDescription", ActionBuilders.AndroidStringExtra.Builder().setValue(if (model.language == "en") it.key.nameEn else it.key.nameZh).build())
                                                     .addKeyToExtraMapping("text", ActionBuilders.AndroidStringExtra.Builder().setValue(it.value!!).build())
                                                     .addKeyToExtraMapping("warningInfo", ActionBuilders.AndroidIntExtra.Builder().setValue(1).build())
                                                     .setPackageName(packageName)
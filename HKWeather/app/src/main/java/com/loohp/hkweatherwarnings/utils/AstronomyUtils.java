@@ -0,0 +1,241 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+public class AstronomyUtils {
+
+    public static final double HONG_KONG_OBSERVATORY_LATITUDE = 22.3022;
+    public static final double HONG_KONG_OBSERVATORY_LONGITUDE = 114.1742;
+    public static final ZoneOffset HONG_KONG_OFFSET = ZoneOffset.ofHours(8);
+
+    private static final double J2000 = 2451545.0;
+    private static final double SUN_STANDARD_ALTITUDE = -0.8333;
+    private static final double SCAN_STEP_DAYS = 10.0 / 1440.0;
+    private static final int REFINE_ITERATIONS = 14;
+
+    private static final int[][] MOON_LONGITUDE_ARGUMENTS = {
+            {0, 0, 1, 0}, {2, 0, -1, 0}, {2, 0, 0, 0}, {0, 0, 2, 0}, {0, 1, 0, 0}, {0, 0, 0, 2}, {2, 0, -2, 0}, {2, -1, -1, 0},
+            {2, 0, 1, 0}, {2, -1, 0, 0}, {0, 1, -1, 0}, {1, 0, 0, 0}, {0, 1, 1, 0}, {2, 0, 0, -2}, {0, 0, 1, 2}, {0, 0, 1, -2},
+            {4, 0, -1, 0}, {0, 0, 3, 0}, {4, 0, -2, 0}, {2, 1, -1, 0}, {2, 1, 0, 0}, {1, 0, -1, 0}, {1, 1, 0, 0}, {2, -1, 1, 0},
+            {2, 0, 2, 0}, {4, 0, 0, 0}, {2, 0, -3, 0}
+    };
+    private static final double[] MOON_LONGITUDE_COEFFICIENTS = {
+            6.288774, 1.274027, 0.658314, 0.213618, -0.185116, -0.114332, 0.058793, 0.057066,
+            0.053322, 0.045758, -0.040923, -0.034720, -0.030383, 0.015327, -0.012528, 0.010980,
+            0.010675, 0.010034, 0.008548, -0.007888, -0.006766, -0.005163, 0.004987, 0.004036,
+            0.003994, 0.003861, 0.003665
+    };
+    private static final double[] MOON_DISTANCE_COEFFICIENTS = {
+            -20905.355, -3699.111, -2955.968, -569.925, 48.888, -3.149, 246.158, -152.138,
+            -170.733, -204.586, -129.620, 108.743, 104.755, 10.321, 0, 79.661,
+            -34.782, -23.210, -21.636, 24.208, 30.824, -8.379, -16.675, -12.831,
+            -10.445, -11.650, 14.403
+    };
+    private static final int[][] MOON_LATITUDE_ARGUMENTS = {
+            {0, 0, 0, 1}, {0, 0, 1, 1}, {0, 0, 1, -1}, {2, 0, 0, -1}, {2, 0, -1, 1}, {2, 0, -1, -1}, {2, 0, 0, 1},
+            {0, 0, 2, 1}, {2, 0, 1, -1}, {0, 0, 2, -1}, {2, -1, 0, -1}, {2, 0, -2, -1}, {2, 0, 1, 1}
+    };
+    private static final double[] MOON_LATITUDE_COEFFICIENTS = {
+            5.128122, 0.280602, 0.277693, 0.173237, 0.055413, 0.046271, 0.032573,
+            0.017198, 0.009266, 0.008822, 0.008216, 0.004324, 0.004200
+    };
+
+    public static LocalTime[] computeSunTimes(LocalDate date, double latitude, double longitude) {
+        return computeTimes(date, latitude, longitude, false);
+    }
+
+    public static LocalTime[] computeMoonTimes(LocalDate date, double latitude, double longitude) {
+        return computeTimes(date, latitude, longitude, true);
+    }
+
+    public static double toJulianDay(Instant instant) {
+        return instant.getEpochSecond() / 86400.0 + instant.getNano() / 86400e9 + 2440587.5;
+    }
+
+    public static double toJulianDay(LocalDate date, ZoneOffset offset) {
+        return toJulianDay(date.atStartOfDay().toInstant(offset));
+    }
+
+    public static double getSunApparentLongitude(double julianDay) {
+        double t = (julianDay - J2000) / 36525.0;
+        double l0 = 280.46646 + t * (36000.76983 + t * 0.0003032);
+        double m = Math.toRadians(357.52911 + t * (35999.05029 - t * 0.0001537));
+        double c = (1.914602 - t * (0.004817 + t * 0.000014)) * Math.sin(m) + (0.019993 - t * 0.000101) * Math.sin(2 * m) + 0.000289 * Math.sin(3 * m);
+        double omega = Math.toRadians(125.04 - 1934.136 * t);
+        return normalizeDegrees(l0 + c - 0.00569 - 0.00478 * Math.sin(omega));
+    }
+
+    private static LocalTime[] computeTimes(LocalDate date, double latitude, double longitude, boolean moon) {
+        double start = toJulianDay(date, HONG_KONG_OFFSET);
+        double[] position = new double[3];
+        double previousTime = start;
+        double previousAltitude = altitudeAboveHorizon(previousTime, latitude, longitude, moon, position);
+        double previousHourAngle = position[2];
+        double rise = Double.NaN;
+        double transit = Double.NaN;
+        double set = Double.NaN;
+        int steps = (int) Math.round(1.0 / SCAN_STEP_DAYS);
+        for (int i = 1; i <= steps; i++) {
+            double time = start + i * SCAN_STEP_DAYS;
+            double altitude = altitudeAboveHorizon(time, latitude, longitude, moon, position);
+            double hourAngle = position[2];
+            if (Double.isNaN(rise) && previousAltitude < 0 && altitude >= 0) {
+                rise = refineAltitudeCrossing(previousTime, time, latitude, longitude, moon);
+            } else if (Double.isNaN(set) && previousAltitude >= 0 && altitude < 0) {
+                set = refineAltitudeCrossing(previousTime, time, latitude, longitude, moon);
+            }
+            if (Double.isNaN(transit) && previousHourAngle < 0 && hourAngle >= 0) {
+                transit = refineTransit(previousTime, time, latitude, longitude, moon);
+            }
+            previousTime = time;
+            previousAltitude = altitude;
+            previousHourAngle = hourAngle;
+        }
+        return new LocalTime[] {toLocalTime(rise, start), toLocalTime(transit, start), toLocalTime(set, start)};
+    }
+
+    private static double refineAltitudeCrossing(double low, double high, double latitude, double longitude, boolean moon) {
+        double[] position = new double[3];
+        boolean rising = altitudeAboveHorizon(low, latitude, longitude, moon, position) < 0;
+        for (int i = 0; i < REFINE_ITERATIONS; i++) {
+            double mid = (low + high) / 2;
+            double altitude = altitudeAboveHorizon(mid, latitude, longitude, moon, position);
+            if ((altitude < 0) == rising) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private static double refineTransit(double low, double high, double latitude, double longitude, boolean moon) {
+        double[] position = new double[3];
+        for (int i = 0; i < REFINE_ITERATIONS; i++) {
+            double mid = (low + high) / 2;
+            altitudeAboveHorizon(mid, latitude, longitude, moon, position);
+            if (position[2] < 0) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private static LocalTime toLocalTime(double julianDay, double start) {
+        if (Double.isNaN(julianDay)) {
+            return null;
+        }
+        int minutes = (int) Math.round((julianDay - start) * 1440.0);
+        return LocalTime.of(Math.min(minutes, 1439) / 60, Math.min(minutes, 1439) % 60);
+    }
+
+    private static double altitudeAboveHorizon(double julianDay, double latitude, double longitude, boolean moon, double[] position) {
+        double standardAltitude;
+        if (moon) {
+            double distance = moonEquatorialPosition(julianDay, position);
+            double parallax = Math.toDegrees(Math.asin(6378.14 / distance));
+            standardAltitude = 0.7275 * parallax - 0.5667;
+        } else {
+            sunEquatorialPosition(julianDay, position);
+            standardAltitude = SUN_STANDARD_ALTITUDE;
+        }
+        double rightAscension = position[0];
+        double declination = position[1];
+        double t = (julianDay - J2000) / 36525.0;
+        double siderealTime = 280.46061837 + 360.98564736629 * (julianDay - J2000) + t * t * (0.000387933 - t / 38710000.0);
+        double hourAngle = normalizeDegrees(siderealTime + longitude - rightAscension);
+        if (hourAngle > 180) {
+            hourAngle -= 360;
+        }
+        position[2] = hourAngle;
+        double phi = Math.toRadians(latitude);
+        double delta = Math.toRadians(declination);
+        double altitude = Math.toDegrees(Math.asin(Math.sin(phi) * Math.sin(delta) + Math.cos(phi) * Math.cos(delta) * Math.cos(Math.toRadians(hourAngle))));
+        return altitude - standardAltitude;
+    }
+
+    private static void sunEquatorialPosition(double julianDay, double[] position) {
+        double lambda = Math.toRadians(getSunApparentLongitude(julianDay));
+        double epsilon = Math.toRadians(obliquity(julianDay));
+        position[0] = normalizeDegrees(Math.toDegrees(Math.atan2(Math.cos(epsilon) * Math.sin(lambda), Math.cos(lambda))));
+        position[1] = Math.toDegrees(Math.asin(Math.sin(epsilon) * Math.sin(lambda)));
+    }
+
+    private static double moonEquatorialPosition(double julianDay, double[] position) {
+        double t = (julianDay - J2000) / 36525.0;
+        double meanLongitude = 218.3164477 + 481267.88123421 * t;
+        double[] arguments = {
+                Math.toRadians(297.8501921 + 445267.1114034 * t),
+                Math.toRadians(357.5291092 + 35999.0502909 * t),
+                Math.toRadians(134.9633964 + 477198.8675055 * t),
+                Math.toRadians(93.2720950 + 483202.0175233 * t)
+        };
+        double e = 1 - 0.002516 * t;
+        double longitude = meanLongitude;
+        double distance = 385000.56;
+        for (int i = 0; i < MOON_LONGITUDE_ARGUMENTS.length; i++) {
+            int[] multipliers = MOON_LONGITUDE_ARGUMENTS[i];
+            double argument = combine(multipliers, arguments);
+            double factor = Math.pow(e, Math.abs(multipliers[1]));
+            longitude += MOON_LONGITUDE_COEFFICIENTS[i] * factor * Math.sin(argument);
+            distance += MOON_DISTANCE_COEFFICIENTS[i] * factor * Math.cos(argument);
+        }
+        double latitude = 0;
+        for (int i = 0; i < MOON_LATITUDE_ARGUMENTS.length; i++) {
+            int[] multipliers = MOON_LATITUDE_ARGUMENTS[i];
+            latitude += MOON_LATITUDE_COEFFICIENTS[i] * Math.pow(e, Math.abs(multipliers[1])) * Math.sin(combine(multipliers, arguments));
+        }
+        double omega = Math.toRadians(125.04 - 1934.136 * t);
+        double lambda = Math.toRadians(longitude - 0.00478 * Math.sin(omega));
+        double beta = Math.toRadians(latitude);
+        double epsilon = Math.toRadians(obliquity(julianDay));
+        position[0] = normalizeDegrees(Math.toDegrees(Math.atan2(Math.sin(lambda) * Math.cos(epsilon) - Math.tan(beta) * Math.sin(epsilon), Math.cos(lambda))));
+        position[1] = Math.toDegrees(Math.asin(Math.sin(beta) * Math.cos(epsilon) + Math.cos(beta) * Math.sin(epsilon) * Math.sin(lambda)));
+        return distance;
+    }
+
+    private static double combine(int[] multipliers, double[] arguments) {
+        double sum = 0;
+        for (int i = 0; i < multipliers.length; i++) {
+            sum += multipliers[i] * arguments[i];
+        }
+        return sum;
+    }
+
+    private static double obliquity(double julianDay) {
+        double t = (julianDay - J2000) / 36525.0;
+        double omega = Math.toRadians(125.04 - 1934.136 * t);
+        return 23.0 + (26.0 + (21.448 - t * (46.815 + t * (0.00059 - t * 0.001813))) / 60.0) / 60.0 + 0.00256 * Math.cos(omega);
+    }
+
+    private static double normalizeDegrees(double degrees) {
+        degrees %= 360;
+        return degrees < 0 ? degrees + 360 : degrees;
+    }
+
+}
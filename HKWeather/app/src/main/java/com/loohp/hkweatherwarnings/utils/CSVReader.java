@@ -0,0 +1,286 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+public class CSVReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int bufferPosition;
+    private int bufferLimit;
+    private boolean endOfStream;
+
+    private char[] line;
+    private int lineLength;
+    private int[] columnStarts;
+    private int[] columnEnds;
+    private int columnCount;
+
+    private final Map<String, Integer> header;
+
+    public CSVReader(Reader reader) throws IOException {
+        this(reader, UnaryOperator.identity());
+    }
+
+    public CSVReader(Reader reader, UnaryOperator<String> headerFilter) throws IOException {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.bufferPosition = 0;
+        this.bufferLimit = 0;
+        this.endOfStream = false;
+        this.line = new char[256];
+        this.lineLength = 0;
+        this.columnStarts = new int[16];
+        this.columnEnds = new int[16];
+        this.columnCount = 0;
+        this.header = new HashMap<>();
+        if (nextRow()) {
+            for (int i = 0; i < columnCount; i++) {
+                header.putIfAbsent(headerFilter.apply(new String(line, columnStarts[i], columnEnds[i] - columnStarts[i])), i);
+            }
+        }
+    }
+
+    public boolean hasHeader() {
+        return !header.isEmpty();
+    }
+
+    public int getColumnIndex(String name) {
+        Integer index = header.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public boolean nextRow() throws IOException {
+        while (true) {
+            if (!readLine()) {
+                columnCount = 0;
+                return false;
+            }
+            if (lineLength > 0) {
+                splitColumns();
+                return true;
+            }
+        }
+    }
+
+    public boolean isEmpty(int column) {
+        return column < 0 || column >= columnCount || columnStarts[column] == columnEnds[column];
+    }
+
+    public boolean valueEquals(int column, String value) {
+        if (column < 0 || column >= columnCount) {
+            return false;
+        }
+        int start = columnStarts[column];
+        int length = columnEnds[column] - start;
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getString(int column) {
+        if (column < 0 || column >= columnCount) {
+            return null;
+        }
+        return new String(line, columnStarts[column], columnEnds[column] - columnStarts[column]);
+    }
+
+    public double getDouble(int column) {
+        if (isEmpty(column)) {
+            return Double.NaN;
+        }
+        int position = columnStarts[column];
+        int end = columnEnds[column];
+        boolean negative = false;
+        if (line[position] == '-' || line[position] == '+') {
+            negative = line[position] == '-';
+            position++;
+        }
+        if (position >= end) {
+            return Double.NaN;
+        }
+        long integral = 0;
+        long fraction = 0;
+        long fractionScale = 1;
+        boolean inFraction = false;
+        for (; position < end; position++) {
+            char c = line[position];
+            if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else if (c >= '0' && c <= '9') {
+                if (inFraction) {
+                    if (fractionScale < 1000000000000L) {
+                        fraction = fraction * 10 + (c - '0');
+                        fractionScale *= 10;
+                    }
+                } else {
+                    integral = integral * 10 + (c - '0');
+                }
+            } else {
+                return Double.NaN;
+            }
+        }
+        double value = integral + (double) fraction / fractionScale;
+        return negative ? -value : value;
+    }
+
+    public double getDouble(int column, double defaultValue) {
+        double value = getDouble(column);
+        return Double.isNaN(value) ? defaultValue : value;
+    }
+
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    public float getFloat(int column, float defaultValue) {
+        return (float) getDouble(column, defaultValue);
+    }
+
+    public LocalTime getLocalTime(int column) {
+        if (isEmpty(column)) {
+            return null;
+        }
+        int hour = -1;
+        int minute = -1;
+        boolean inMinute = false;
+        for (int i = columnStarts[column]; i < columnEnds[column]; i++) {
+            char c = line[i];
+            if (c >= '0' && c <= '9') {
+                if (inMinute) {
+                    minute = (minute < 0 ? 0 : minute * 10) + (c - '0');
+                } else {
+                    hour = (hour < 0 ? 0 : hour * 10) + (c - '0');
+                }
+            } else if (c == ':' && !inMinute) {
+                inMinute = true;
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute);
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            endOfStream = true;
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = read;
+        return true;
+    }
+
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean readAnything = false;
+        while (true) {
+            if (bufferPosition >= bufferLimit && !fill()) {
+                return readAnything;
+            }
+            readAnything = true;
+            char c = buffer[bufferPosition++];
+            if (c == '\n') {
+                return true;
+            }
+            if (c == '\r') {
+                if (bufferPosition < bufferLimit || fill()) {
+                    if (buffer[bufferPosition] == '\n') {
+                        bufferPosition++;
+                    }
+                }
+                return true;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[lineLength++] = c;
+        }
+    }
+
+    private void splitColumns() {
+        columnCount = 0;
+        int start = 0;
+        for (int i = 0; i <= lineLength; i++) {
+            if (i == lineLength || line[i] == ',') {
+                int columnStart = start;
+                int columnEnd = i;
+                while (columnStart < columnEnd && isTrimmable(line[columnStart])) {
+                    columnStart++;
+                }
+                while (columnEnd > columnStart && isTrimmable(line[columnEnd - 1])) {
+                    columnEnd--;
+                }
+                if (columnCount == columnStarts.length) {
+                    columnStarts = Arrays.copyOf(columnStarts, columnCount * 2);
+                    columnEnds = Arrays.copyOf(columnEnds, columnCount * 2);
+                }
+                columnStarts[columnCount] = columnStart;
+                columnEnds[columnCount] = columnEnd;
+                columnCount++;
+                start = i + 1;
+            }
+        }
+    }
+
+    private static boolean isTrimmable(char c) {
+        return c <= ' ' || c == '\uFEFF';
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    @FunctionalInterface
+    public interface CSVFunction<T> {
+
+        T apply(CSVReader reader) throws IOException;
+
+    }
+
+}
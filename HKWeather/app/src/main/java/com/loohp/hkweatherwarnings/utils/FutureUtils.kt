@@ -20,12 +20,19 @@
 
 package com.loohp.hkweatherwarnings.utils
 
+import java.util.concurrent.CancellationException
 import java.util.concurrent.Future
 import java.util.concurrent.TimeUnit
 
 fun <T> Future<T>.orElseGet(timeout: Long, unit: TimeUnit, elseGet: () -> T, printErr: Boolean = true): T {
     return try {
         get(timeout, unit)
+    } catch (e: InterruptedException) {
+        cancel(true)
+        Thread.currentThread().interrupt()
+        elseGet.invoke()
+    } catch (e: CancellationException) {
+        elseGet.invoke()
     } catch (e: Throwable) {
         if (printErr) {
             e.printStackTrace()
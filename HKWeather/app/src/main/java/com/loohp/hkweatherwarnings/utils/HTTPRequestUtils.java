@@ -20,214 +20,402 @@
 
 package com.loohp.hkweatherwarnings.utils;
 
+import android.util.JsonReader;
+
+import androidx.annotation.NonNull;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
-import javax.net.ssl.HttpsURLConnection;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
 
 public class HTTPRequestUtils {
 
-    public static boolean isResponseOk(String link) {
+    private static final long CACHE_MAX_SIZE = 4 * 1024 * 1024;
+
+    private static final AtomicLong CALLS = new AtomicLong();
+    private static final AtomicLong CONNECTIONS_ACQUIRED = new AtomicLong();
+    private static final AtomicLong CONNECTIONS_OPENED = new AtomicLong();
+    private static final AtomicLong TLS_HANDSHAKES = new AtomicLong();
+    private static final AtomicLong BYTES_RECEIVED = new AtomicLong();
+    private static final AtomicLong CACHE_HITS = new AtomicLong();
+    private static final AtomicLong CACHE_MISSES = new AtomicLong();
+    private static final AtomicLong CACHE_NOT_MODIFIED = new AtomicLong();
+    private static final AtomicLong BYTES_SERVED_FROM_CACHE = new AtomicLong();
+    private static final ThreadLocal<long[]> THREAD_BYTES_RECEIVED = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static volatile OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(20, TimeUnit.SECONDS)
+            .readTimeout(20, TimeUnit.SECONDS)
+            .connectionPool(new ConnectionPool(6, 5, TimeUnit.MINUTES))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .retryOnConnectionFailure(true)
+            .addInterceptor(chain -> {
+                Response response = chain.proceed(chain.request().newBuilder()
+                        .header("User-Agent", "Mozilla/5.0")
+                        .header("Cache-Control", "max-age=0, must-revalidate")
+                        .build());
+                Response networkResponse = response.networkResponse();
+                if (response.cacheResponse() != null && response.body() != null && (networkResponse == null || networkResponse.code() == 304)) {
+                    return response.newBuilder().body(new CountingResponseBody(response.body(), BYTES_SERVED_FROM_CACHE)).build();
+                }
+                return response;
+            })
+            .eventListenerFactory(call -> new StatsEventListener())
+            .build();
+
+    public static synchronized void initCache(File directory) {
+        if (client.cache() == null) {
+            client = client.newBuilder().cache(new Cache(directory, CACHE_MAX_SIZE)).build();
+        }
+    }
+
+    public static OkHttpClient getClient() {
+        return client;
+    }
+
+    public static ConnectionStats getConnectionStats() {
+        OkHttpClient client = HTTPRequestUtils.client;
+        Cache cache = client.cache();
+        long cacheSize;
         try {
-            URL url = new URL(link);
-            HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setConnectTimeout(20000);
-            connection.setReadTimeout(20000);
-            connection.setUseCaches(false);
-            connection.setDefaultUseCaches(false);
-            connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-            connection.addRequestProperty("Pragma", "no-cache");
-            return connection.getResponseCode() == HttpsURLConnection.HTTP_OK;
+            cacheSize = cache == null ? 0 : cache.size();
         } catch (IOException e) {
+            cacheSize = -1;
+        }
+        return new ConnectionStats(CALLS.get(), CONNECTIONS_ACQUIRED.get(), CONNECTIONS_OPENED.get(), TLS_HANDSHAKES.get(), BYTES_RECEIVED.get(), client.connectionPool().idleConnectionCount(), client.connectionPool().connectionCount(), CACHE_HITS.get(), CACHE_MISSES.get(), CACHE_NOT_MODIFIED.get(), BYTES_SERVED_FROM_CACHE.get(), cacheSize);
+    }
+
+    public static long getThreadBytesReceived() {
+        return THREAD_BYTES_RECEIVED.get()[0];
+    }
+
+    private static Response execute(Request request) throws IOException {
+        return client.newCall(request).execute();
+    }
+
+    public static boolean isResponseOk(String link) {
+        try (Response response = execute(new Request.Builder().url(link).head().build())) {
+            return response.code() == 200;
+        } catch (IOException | IllegalArgumentException e) {
             return false;
         }
     }
 
     public static String getTextResponse(String link) {
-        try {
-            URL url = new URL(link);
-            HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setConnectTimeout(20000);
-            connection.setReadTimeout(20000);
-            connection.setUseCaches(false);
-            connection.setDefaultUseCaches(false);
-            connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-            connection.addRequestProperty("Pragma", "no-cache");
-            if (connection.getResponseCode() == HttpsURLConnection.HTTP_OK) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+        try (Response response = execute(new Request.Builder().url(link).build())) {
+            if (response.code() == 200) {
+                try (BufferedReader reader = new BufferedReader(response.body().charStream())) {
                     return reader.lines().collect(Collectors.joining("\n"));
                 }
             } else {
                 return null;
             }
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             return null;
         }
     }
 
-    public static List<JSONObject> getCSVResponse(String link) {
-        return getCSVResponse(link, UnaryOperator.identity());
+    public static <T> T readCSVResponse(String link, CSVReader.CSVFunction<T> function) {
+        return readCSVResponse(link, UnaryOperator.identity(), function);
     }
 
-    public static List<JSONObject> getCSVResponse(String link, UnaryOperator<String> filter) {
-        try {
-            String result = getTextResponse(link);
-            if (result == null) {
+    public static <T> T readCSVResponse(String link, UnaryOperator<String> headerFilter, CSVReader.CSVFunction<T> function) {
+        try (Response response = execute(new Request.Builder().url(link).build())) {
+            if (response.code() == 200) {
+                try (CSVReader reader = new CSVReader(response.body().charStream(), headerFilter)) {
+                    if (!reader.hasHeader()) {
+                        return null;
+                    }
+                    return function.apply(reader);
+                }
+            } else {
                 return null;
             }
-            String[] lines = result.split("\\R");
-            if (lines.length < 2) {
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static JSONObject getJSONResponse(String link) {
+        try (Response response = execute(new Request.Builder().url(link).build())) {
+            if (response.code() == 200) {
+                return new JSONObject(response.body().string());
+            } else {
                 return null;
             }
-            String[] keys = lines[0].split(",");
-            List<JSONObject> list = new ArrayList<>(lines.length - 1);
-            for (int i = 1; i < lines.length; i++) {
-                String[] values = lines[i].split(",");
-                JSONObject obj = new JSONObject();
-                for (int k = 0; k < keys.length && k < values.length; k++) {
-                    obj.put(filter.apply(keys[k]), filter.apply(values[k]));
-                }
-                list.add(obj);
-            }
-            return list;
-        } catch (JSONException e) {
+        } catch (IOException | JSONException | IllegalArgumentException e) {
             return null;
         }
     }
 
-    public static JSONObject getJSONResponse(String link) {
-        try {
-            URL url = new URL(link);
-            HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setConnectTimeout(20000);
-            connection.setReadTimeout(20000);
-            connection.setUseCaches(false);
-            connection.setDefaultUseCaches(false);
-            connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-            connection.addRequestProperty("Pragma", "no-cache");
-            if (connection.getResponseCode() == HttpsURLConnection.HTTP_OK) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    String reply = reader.lines().collect(Collectors.joining());
-                    return new JSONObject(reply);
+    public static <T> T readJSONResponse(String link, JSONReaderFunction<T> function) {
+        try (Response response = execute(new Request.Builder().url(link).build())) {
+            if (response.code() == 200) {
+                try (JsonReader reader = new JsonReader(response.body().charStream())) {
+                    return function.apply(reader);
                 }
             } else {
                 return null;
             }
-        } catch (IOException | JSONException e) {
+        } catch (IOException | IllegalStateException | IllegalArgumentException e) {
             return null;
         }
     }
 
     public static JSONObject postJSONResponse(String link, JSONObject body) {
-        try {
-            URL url = new URL(link);
-            HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setConnectTimeout(20000);
-            connection.setReadTimeout(20000);
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setDoOutput(true);
-            connection.setUseCaches(false);
-            connection.setDefaultUseCaches(false);
-            connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-            connection.addRequestProperty("Pragma", "no-cache");
-            try (OutputStream os = connection.getOutputStream()) {
-                byte[] input = body.toString().getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
-            }
-            if (connection.getResponseCode() == HttpsURLConnection.HTTP_OK) {
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    String reply = reader.lines().collect(Collectors.joining());
-                    return new JSONObject(reply);
-                }
+        RequestBody requestBody = RequestBody.create(body.toString(), MediaType.get("application/json"));
+        try (Response response = execute(new Request.Builder().url(link).post(requestBody).build())) {
+            if (response.code() == 200) {
+                return new JSONObject(response.body().string());
             } else {
                 return null;
             }
-        } catch (IOException | JSONException e) {
+        } catch (IOException | JSONException | IllegalArgumentException e) {
             return null;
         }
     }
 
     public static InputStream getInputStream(String link) throws IOException {
-        URLConnection connection = new URL(link).openConnection();
-        connection.setConnectTimeout(20000);
-        connection.setReadTimeout(20000);
-        connection.setUseCaches(false);
-        connection.setDefaultUseCaches(false);
-        connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-        connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-        connection.addRequestProperty("Pragma", "no-cache");
-        return connection.getInputStream();
+        Response response = execute(new Request.Builder().url(link).build());
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            response.close();
+            throw new IOException("HTTP " + response.code() + " for " + link);
+        }
+        return body.byteStream();
     }
 
     public static byte[] download(String link) throws IOException {
-        try (InputStream is = getInputStream(link)) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] byteChunk = new byte[4096];
-            int n;
-            while ((n = is.read(byteChunk)) > 0) {
-                baos.write(byteChunk, 0, n);
+        try (Response response = execute(new Request.Builder().url(link).build())) {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code() + " for " + link);
             }
-            return baos.toByteArray();
+            return response.body().bytes();
         }
     }
 
     public static long getContentSize(String link) {
-        try {
-            URLConnection connection = new URL(link).openConnection();
-            connection.setConnectTimeout(20000);
-            connection.setReadTimeout(20000);
-            connection.setUseCaches(false);
-            connection.setDefaultUseCaches(false);
-            connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-            connection.addRequestProperty("Pragma", "no-cache");
-            if (connection instanceof HttpURLConnection) {
-                ((HttpURLConnection) connection).setRequestMethod("HEAD");
-            }
-            return connection.getContentLengthLong();
-        } catch (IOException e) {
+        try (Response response = execute(new Request.Builder().url(link).head().build())) {
+            String contentLength = response.header("Content-Length");
+            return contentLength == null ? -1 : Long.parseLong(contentLength);
+        } catch (IOException | IllegalArgumentException e) {
             return -1;
         }
     }
 
     public static String getContentType(String link) {
-        try {
-            URLConnection connection = new URL(link).openConnection();
-            connection.setConnectTimeout(20000);
-            connection.setReadTimeout(20000);
-            connection.setUseCaches(false);
-            connection.setDefaultUseCaches(false);
-            connection.addRequestProperty("User-Agent", "Mozilla/5.0");
-            connection.addRequestProperty("Cache-Control", "no-cache, no-store, must-revalidate");
-            connection.addRequestProperty("Pragma", "no-cache");
-            if (connection instanceof HttpURLConnection) {
-                ((HttpURLConnection) connection).setRequestMethod("HEAD");
-            }
-            return connection.getContentType();
-        } catch (IOException e) {
+        try (Response response = execute(new Request.Builder().url(link).head().build())) {
+            return response.header("Content-Type");
+        } catch (IOException | IllegalArgumentException e) {
             return "";
         }
     }
 
-}
+    @FunctionalInterface
+    public interface JSONReaderFunction<T> {
+
+        T apply(JsonReader reader) throws IOException;
+
+    }
+
+    private static class StatsEventListener extends EventListener {
+
+        private boolean conditional = false;
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            CALLS.incrementAndGet();
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+            CONNECTIONS_OPENED.incrementAndGet();
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            TLS_HANDSHAKES.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(@NonNull Call call, @NonNull Connection connection) {
+            CONNECTIONS_ACQUIRED.incrementAndGet();
+        }
 
+        @Override
+        public void cacheConditionalHit(@NonNull Call call, @NonNull Response cachedResponse) {
+            conditional = true;
+        }
+
+        @Override
+        public void cacheHit(@NonNull Call call, @NonNull Response response) {
+            if (conditional) {
+                CACHE_NOT_MODIFIED.incrementAndGet();
+            } else {
+                CACHE_HITS.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void cacheMiss(@NonNull Call call) {
+            CACHE_MISSES.incrementAndGet();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            BYTES_RECEIVED.addAndGet(byteCount);
+            THREAD_BYTES_RECEIVED.get()[0] += byteCount;
+        }
+
+    }
+
+    private static class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        private CountingResponseBody(ResponseBody delegate, AtomicLong counter) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        counter.addAndGet(read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+
+    }
+
+    public static class ConnectionStats {
+
+        private final long calls;
+        private final long connectionsAcquired;
+        private final long connectionsOpened;
+        private final long tlsHandshakes;
+        private final long bytesReceived;
+        private final int idleConnections;
+        private final int pooledConnections;
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long cacheNotModified;
+        private final long bytesServedFromCache;
+        private final long cacheSize;
+
+        public ConnectionStats(long calls, long connectionsAcquired, long connectionsOpened, long tlsHandshakes, long bytesReceived, int idleConnections, int pooledConnections, long cacheHits, long cacheMisses, long cacheNotModified, long bytesServedFromCache, long cacheSize) {
+            this.calls = calls;
+            this.connectionsAcquired = connectionsAcquired;
+            this.connectionsOpened = connectionsOpened;
+            this.tlsHandshakes = tlsHandshakes;
+            this.bytesReceived = bytesReceived;
+            this.idleConnections = idleConnections;
+            this.pooledConnections = pooledConnections;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.cacheNotModified = cacheNotModified;
+            this.bytesServedFromCache = bytesServedFromCache;
+            this.cacheSize = cacheSize;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getConnectionsAcquired() {
+            return connectionsAcquired;
+        }
+
+        public long getConnectionsOpened() {
+            return connectionsOpened;
+        }
+
+        public long getConnectionsReused() {
+            return Math.max(0, connectionsAcquired - connectionsOpened);
+        }
+
+        public long getTlsHandshakes() {
+            return tlsHandshakes;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        public int getIdleConnections() {
+            return idleConnections;
+        }
+
+        public int getPooledConnections() {
+            return pooledConnections;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        public long getCacheNotModified() {
+            return cacheNotModified;
+        }
+
+        public long getBytesServedFromCache() {
+            return bytesServedFromCache;
+        }
+
+        public long getCacheSize() {
+            return cacheSize;
+        }
+
+    }
+
+}
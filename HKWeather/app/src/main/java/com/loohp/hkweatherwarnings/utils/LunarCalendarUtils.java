@@ -0,0 +1,160 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.utils;
+
+import com.loohp.hkweatherwarnings.weather.LunarDate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+public class LunarCalendarUtils {
+
+    public static final int MIN_YEAR = 1900;
+    public static final int MAX_YEAR = 2100;
+    public static final LocalDate BASE_DATE = LocalDate.of(1900, 1, 31);
+
+    private static final int[] LUNAR_INFO = {
+            0x04bd8, 0x04ae0, 0x0a570, 0x054d5, 0x0d260, 0x0d950, 0x16554, 0x056a0, 0x09ad0, 0x055d2,
+            0x04ae0, 0x0a5b6, 0x0a4d0, 0x0d250, 0x1d255, 0x0b540, 0x0d6a0, 0x0ada2, 0x095b0, 0x14977,
+            0x04970, 0x0a4b0, 0x0b4b5, 0x06a50, 0x06d40, 0x1ab54, 0x02b60, 0x09570, 0x052f2, 0x04970,
+            0x06566, 0x0d4a0, 0x0ea50, 0x16a95, 0x05ad0, 0x02b60, 0x186e3, 0x092e0, 0x1c8d7, 0x0c950,
+            0x0d4a0, 0x1d8a6, 0x0b550, 0x056a0, 0x1a5b4, 0x025d0, 0x092d0, 0x0d2b2, 0x0a950, 0x0b557,
+            0x06ca0, 0x0b550, 0x15355, 0x04da0, 0x0a5b0, 0x14573, 0x052b0, 0x0a9a8, 0x0e950, 0x06aa0,
+            0x0aea6, 0x0ab50, 0x04b60, 0x0aae4, 0x0a570, 0x05260, 0x0f263, 0x0d950, 0x05b57, 0x056a0,
+            0x096d0, 0x04dd5, 0x04ad0, 0x0a4d0, 0x0d4d4, 0x0d250, 0x0d558, 0x0b540, 0x0b6a0, 0x195a6,
+            0x095b0, 0x049b0, 0x0a974, 0x0a4b0, 0x0b27a, 0x06a50, 0x06d40, 0x0af46, 0x0ab60, 0x09570,
+            0x04af5, 0x04970, 0x064b0, 0x074a3, 0x0ea50, 0x06b58, 0x05ac0, 0x0ab60, 0x096d5, 0x092e0,
+            0x0c960, 0x0d954, 0x0d4a0, 0x0da50, 0x07552, 0x056a0, 0x0abb7, 0x025d0, 0x092d0, 0x0cab5,
+            0x0a950, 0x0b4a0, 0x0baa4, 0x0ad50, 0x055d9, 0x04ba0, 0x0a5b0, 0x15176, 0x052b0, 0x0a930,
+            0x07954, 0x06aa0, 0x0ad50, 0x05b52, 0x04b60, 0x0a6e6, 0x0a4e0, 0x0d260, 0x0ea65, 0x0d530,
+            0x05aa0, 0x076a3, 0x096d0, 0x04afb, 0x04ad0, 0x0a4d0, 0x1d0b6, 0x0d250, 0x0d520, 0x0dd45,
+            0x0b5a0, 0x056d0, 0x055b2, 0x049b0, 0x0a577, 0x0a4b0, 0x0aa50, 0x1b255, 0x06d20, 0x0ada0,
+            0x14b63, 0x09370, 0x049f8, 0x04970, 0x064b0, 0x168a6, 0x0ea50, 0x06b20, 0x1a6c4, 0x0aae0,
+            0x092e0, 0x0d2e3, 0x0c960, 0x0d557, 0x0d4a0, 0x0da50, 0x05d55, 0x056a0, 0x0a6d0, 0x055d4,
+            0x052d0, 0x0a9b8, 0x0a950, 0x0b4a0, 0x0b6a6, 0x0ad50, 0x055a0, 0x0aba4, 0x0a5b0, 0x052b0,
+            0x0b273, 0x06930, 0x07337, 0x06aa0, 0x0ad50, 0x14b55, 0x04b60, 0x0a570, 0x054e4, 0x0d160,
+            0x0e968, 0x0d520, 0x0daa0, 0x16aa6, 0x056d0, 0x04ae0, 0x0a9d4, 0x0a2d0, 0x0d150, 0x0f252,
+            0x0d520
+    };
+
+    private static final String[] HEAVENLY_STEMS = {"甲", "乙", "丙", "丁", "戊", "己", "庚", "辛", "壬", "癸"};
+    private static final String[] EARTHLY_BRANCHES = {"子", "丑", "寅", "卯", "辰", "巳", "午", "未", "申", "酉", "戌", "亥"};
+    private static final String[] ZODIACS = {"鼠", "牛", "虎", "兔", "龍", "蛇", "馬", "羊", "猴", "雞", "狗", "豬"};
+    private static final String[] MONTH_NAMES = {"正", "二", "三", "四", "五", "六", "七", "八", "九", "十", "十一", "十二"};
+    private static final String[] DAY_TENS = {"初", "十", "廿", "三"};
+    private static final String[] DAY_UNITS = {"一", "二", "三", "四", "五", "六", "七", "八", "九", "十"};
+    private static final String[] SOLAR_TERMS = {
+            "春分", "清明", "穀雨", "立夏", "小滿", "芒種", "夏至", "小暑", "大暑", "立秋", "處暑", "白露",
+            "秋分", "寒露", "霜降", "立冬", "小雪", "大雪", "冬至", "小寒", "大寒", "立春", "雨水", "驚蟄"
+    };
+
+    private static final int[] YEAR_START_OFFSETS = new int[LUNAR_INFO.length + 1];
+
+    static {
+        for (int i = 0; i < LUNAR_INFO.length; i++) {
+            YEAR_START_OFFSETS[i + 1] = YEAR_START_OFFSETS[i] + getYearDays(MIN_YEAR + i);
+        }
+    }
+
+    private static int getLeapMonth(int year) {
+        return LUNAR_INFO[year - MIN_YEAR] & 0xF;
+    }
+
+    private static int getLeapMonthDays(int year) {
+        return getLeapMonth(year) == 0 ? 0 : ((LUNAR_INFO[year - MIN_YEAR] & 0x10000) != 0 ? 30 : 29);
+    }
+
+    private static int getMonthDays(int year, int month) {
+        return (LUNAR_INFO[year - MIN_YEAR] & (0x10000 >> month)) != 0 ? 30 : 29;
+    }
+
+    private static int getYearDays(int year) {
+        int days = 0;
+        for (int month = 1; month <= 12; month++) {
+            days += getMonthDays(year, month);
+        }
+        return days + getLeapMonthDays(year);
+    }
+
+    public static boolean isSupported(LocalDate date) {
+        long offset = ChronoUnit.DAYS.between(BASE_DATE, date);
+        return offset >= 0 && offset < YEAR_START_OFFSETS[LUNAR_INFO.length];
+    }
+
+    public static LunarDate toLunarDate(LocalDate date) {
+        if (!isSupported(date)) {
+            return null;
+        }
+        int offset = (int) ChronoUnit.DAYS.between(BASE_DATE, date);
+        int yearIndex = 0;
+        int high = LUNAR_INFO.length;
+        while (yearIndex < high - 1) {
+            int mid = (yearIndex + high) >>> 1;
+            if (YEAR_START_OFFSETS[mid] <= offset) {
+                yearIndex = mid;
+            } else {
+                high = mid;
+            }
+        }
+        int year = MIN_YEAR + yearIndex;
+        int dayOfYear = offset - YEAR_START_OFFSETS[yearIndex];
+        int leapMonth = getLeapMonth(year);
+        int month = 1;
+        boolean isLeapMonth = false;
+        while (true) {
+            int monthDays = isLeapMonth ? getLeapMonthDays(year) : getMonthDays(year, month);
+            if (dayOfYear < monthDays) {
+                break;
+            }
+            dayOfYear -= monthDays;
+            if (!isLeapMonth && month == leapMonth) {
+                isLeapMonth = true;
+            } else {
+                isLeapMonth = false;
+                month++;
+            }
+        }
+        int day = dayOfYear + 1;
+        String yearName = HEAVENLY_STEMS[(year - 4) % 10] + EARTHLY_BRANCHES[(year - 4) % 12];
+        String zodiac = ZODIACS[(year - 4) % 12];
+        String dateName = (isLeapMonth ? "閏" : "") + MONTH_NAMES[month - 1] + "月" + getDayName(day);
+        return new LunarDate(yearName, zodiac, dateName, getSolarTerm(date));
+    }
+
+    private static String getDayName(int day) {
+        if (day == 10) {
+            return "初十";
+        } else if (day == 20) {
+            return "二十";
+        } else if (day == 30) {
+            return "三十";
+        }
+        return DAY_TENS[day / 10] + DAY_UNITS[day % 10 - 1];
+    }
+
+    public static String getSolarTerm(LocalDate date) {
+        double start = AstronomyUtils.toJulianDay(date, AstronomyUtils.HONG_KONG_OFFSET);
+        int startIndex = (int) (AstronomyUtils.getSunApparentLongitude(start) / 15.0);
+        int endIndex = (int) (AstronomyUtils.getSunApparentLongitude(start + 1) / 15.0);
+        return startIndex == endIndex ? null : SOLAR_TERMS[endIndex];
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.utils;
+
+import androidx.compose.runtime.Immutable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Immutable
+public class StationIndex<T> {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    public static final double MIN_LATITUDE = 22.10;
+    public static final double MAX_LATITUDE = 22.60;
+    public static final double MIN_LONGITUDE = 113.80;
+    public static final double MAX_LONGITUDE = 114.50;
+    public static final double CELL_SIZE_DEGREES = 0.05;
+
+    private static final int ROWS = (int) Math.ceil((MAX_LATITUDE - MIN_LATITUDE) / CELL_SIZE_DEGREES);
+    private static final int COLUMNS = (int) Math.ceil((MAX_LONGITUDE - MIN_LONGITUDE) / CELL_SIZE_DEGREES);
+    private static final double MIN_CELL_SIZE_KM = Math.toRadians(CELL_SIZE_DEGREES) * EARTH_RADIUS_KM * Math.cos(Math.toRadians(MAX_LATITUDE)) * 0.99;
+
+    public static double findDistance(double lat1, double lng1, double lat2, double lng2) {
+        double latRad1 = Math.toRadians(lat1);
+        double latRad2 = Math.toRadians(lat2);
+        return toDistance(haversine(latRad1, Math.toRadians(lng1), Math.cos(latRad1), latRad2, Math.toRadians(lng2), Math.cos(latRad2)));
+    }
+
+    private static double haversine(double latRad1, double lngRad1, double cosLat1, double latRad2, double lngRad2, double cosLat2) {
+        double sinLat = Math.sin((latRad2 - latRad1) / 2);
+        double sinLng = Math.sin((lngRad2 - lngRad1) / 2);
+        return sinLat * sinLat + cosLat1 * cosLat2 * sinLng * sinLng;
+    }
+
+    private static double toDistance(double haversine) {
+        return 2 * Math.asin(Math.sqrt(Math.min(1, haversine))) * EARTH_RADIUS_KM;
+    }
+
+    private static double toHaversine(double distance) {
+        if (distance >= Math.PI * EARTH_RADIUS_KM) {
+            return 1;
+        }
+        double sin = Math.sin(distance / EARTH_RADIUS_KM / 2);
+        return sin * sin;
+    }
+
+    private static int row(double lat) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((lat - MIN_LATITUDE) / CELL_SIZE_DEGREES)));
+    }
+
+    private static int column(double lng) {
+        return Math.max(0, Math.min(COLUMNS - 1, (int) Math.floor((lng - MIN_LONGITUDE) / CELL_SIZE_DEGREES)));
+    }
+
+    private static boolean isInBounds(double lat, double lng) {
+        return lat >= MIN_LATITUDE && lat <= MAX_LATITUDE && lng >= MIN_LONGITUDE && lng <= MAX_LONGITUDE;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    private final Object[] stations;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] latitudesRad;
+    private final double[] longitudesRad;
+    private final double[] cosLatitudes;
+    private final int[] cellStarts;
+    private final int[] cellEntries;
+
+    private StationIndex(List<T> stations, double[] latitudes, double[] longitudes) {
+        int size = stations.size();
+        this.stations = stations.toArray();
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.latitudesRad = new double[size];
+        this.longitudesRad = new double[size];
+        this.cosLatitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudesRad[i] = Math.toRadians(latitudes[i]);
+            longitudesRad[i] = Math.toRadians(longitudes[i]);
+            cosLatitudes[i] = Math.cos(latitudesRad[i]);
+        }
+
+        int[] cells = new int[size];
+        this.cellStarts = new int[ROWS * COLUMNS + 1];
+        for (int i = 0; i < size; i++) {
+            cells[i] = row(latitudes[i]) * COLUMNS + column(longitudes[i]);
+            cellStarts[cells[i] + 1]++;
+        }
+        for (int i = 0; i < ROWS * COLUMNS; i++) {
+            cellStarts[i + 1] += cellStarts[i];
+        }
+        this.cellEntries = new int[size];
+        int[] fill = Arrays.copyOf(cellStarts, ROWS * COLUMNS);
+        for (int i = 0; i < size; i++) {
+            cellEntries[fill[cells[i]]++] = i;
+        }
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getStation(int index) {
+        return (T) stations[index];
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public Result<T> nearest(double lat, double lng) {
+        return nearest(lat, lng, Double.POSITIVE_INFINITY);
+    }
+
+    public Result<T> nearest(double lat, double lng, double maxDistance) {
+        List<Result<T>> results = nearest(lat, lng, 1, maxDistance);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Result<T>> nearest(double lat, double lng, int k, double maxDistance) {
+        if (k <= 0 || stations.length == 0) {
+            return Collections.emptyList();
+        }
+        k = Math.min(k, stations.length);
+        double latRad = Math.toRadians(lat);
+        double lngRad = Math.toRadians(lng);
+        double cosLat = Math.cos(latRad);
+        double limit = toHaversine(maxDistance);
+
+        int[] bestIndexes = new int[k];
+        double[] bestValues = new double[k];
+        int count = 0;
+
+        if (isInBounds(lat, lng)) {
+            int centerRow = row(lat);
+            int centerColumn = column(lng);
+            int maxRing = Math.max(ROWS, COLUMNS);
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (ring > 1) {
+                    double bound = toHaversine((ring - 1) * MIN_CELL_SIZE_KM);
+                    if (bound > limit || (count == k && bound > bestValues[k - 1])) {
+                        break;
+                    }
+                }
+                for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                    if (r < 0 || r >= ROWS) {
+                        continue;
+                    }
+                    boolean edgeRow = r == centerRow - ring || r == centerRow + ring;
+                    int step = edgeRow ? 1 : ring * 2;
+                    for (int c = centerColumn - ring; c <= centerColumn + ring; c += Math.max(1, step)) {
+                        if (c < 0 || c >= COLUMNS) {
+                            continue;
+                        }
+                        int cell = r * COLUMNS + c;
+                        for (int e = cellStarts[cell]; e < cellStarts[cell + 1]; e++) {
+                            count = offer(cellEntries[e], latRad, lngRad, cosLat, limit, bestIndexes, bestValues, count);
+                        }
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < stations.length; i++) {
+                count = offer(i, latRad, lngRad, cosLat, limit, bestIndexes, bestValues, count);
+            }
+        }
+
+        List<Result<T>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = bestIndexes[i];
+            results.add(new Result<>((T) stations[index], index, toDistance(bestValues[i])));
+        }
+        return results;
+    }
+
+    private int offer(int index, double latRad, double lngRad, double cosLat, double limit, int[] bestIndexes, double[] bestValues, int count) {
+        double value = haversine(latRad, lngRad, cosLat, latitudesRad[index], longitudesRad[index], cosLatitudes[index]);
+        if (value > limit) {
+            return count;
+        }
+        int k = bestIndexes.length;
+        if (count == k && !isBetter(value, index, bestValues[k - 1], bestIndexes[k - 1])) {
+            return count;
+        }
+        int i = count == k ? k - 1 : count++;
+        while (i > 0 && isBetter(value, index, bestValues[i - 1], bestIndexes[i - 1])) {
+            bestValues[i] = bestValues[i - 1];
+            bestIndexes[i] = bestIndexes[i - 1];
+            i--;
+        }
+        bestValues[i] = value;
+        bestIndexes[i] = index;
+        return count;
+    }
+
+    private static boolean isBetter(double value, int index, double otherValue, int otherIndex) {
+        return value < otherValue || (value == otherValue && index < otherIndex);
+    }
+
+    @Immutable
+    public static class Result<T> {
+
+        private final T station;
+        private final int index;
+        private final double distance;
+
+        private Result(T station, int index, double distance) {
+            this.station = station;
+            this.index = index;
+            this.distance = distance;
+        }
+
+        public T getStation() {
+            return station;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+
+    public static class Builder<T> {
+
+        private final List<T> stations;
+        private double[] latitudes;
+        private double[] longitudes;
+
+        private Builder() {
+            this.stations = new ArrayList<>();
+            this.latitudes = new double[16];
+            this.longitudes = new double[16];
+        }
+
+        public Builder<T> add(T station, double lat, double lng) {
+            int index = stations.size();
+            if (index == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, index * 2);
+                longitudes = Arrays.copyOf(longitudes, index * 2);
+            }
+            stations.add(station);
+            latitudes[index] = lat;
+            longitudes[index] = lng;
+            return this;
+        }
+
+        public StationIndex<T> build() {
+            int size = stations.size();
+            return new StationIndex<>(stations, Arrays.copyOf(latitudes, size), Arrays.copyOf(longitudes, size));
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.weather;
+
+import com.loohp.hkweatherwarnings.utils.CSVReader;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+import java.util.Arrays;
+
+public class AstronomicalTable {
+
+    public static final int FILE_MAGIC = 0x484B4154;
+    public static final int FILE_VERSION = 1;
+
+    private static final short NO_ROW = -2;
+    private static final short NO_TIME = -1;
+    private static final int COLUMNS = 3;
+
+    public static AstronomicalTable parse(Type type, int year, CSVReader csv) throws IOException {
+        short[] minutes = emptyMinutes(year);
+        int dateColumn = csv.getColumnIndex("YYYY-MM-DD");
+        int riseColumn = csv.getColumnIndex("RISE");
+        int transitColumn = csv.getColumnIndex("TRAN.");
+        int setColumn = csv.getColumnIndex("SET");
+        int[] columns = {riseColumn, transitColumn, setColumn};
+        boolean hasRows = false;
+        while (csv.nextRow()) {
+            String dateStr = csv.getString(dateColumn);
+            LocalDate date;
+            try {
+                date = LocalDate.parse(dateStr);
+            } catch (Exception e) {
+                continue;
+            }
+            if (date.getYear() != year) {
+                continue;
+            }
+            int offset = (date.getDayOfYear() - 1) * COLUMNS;
+            for (int i = 0; i < COLUMNS; i++) {
+                LocalTime time = csv.getLocalTime(columns[i]);
+                minutes[offset + i] = time == null ? NO_TIME : (short) (time.getHour() * 60 + time.getMinute());
+            }
+            hasRows = true;
+        }
+        return hasRows ? new AstronomicalTable(type, year, minutes) : null;
+    }
+
+    public static AstronomicalTable read(DataInputStream in) throws IOException {
+        if (in.readInt() != FILE_MAGIC || in.readUnsignedByte() != FILE_VERSION) {
+            throw new IOException("Not an astronomical table file");
+        }
+        Type type = Type.values()[in.readUnsignedByte()];
+        int year = in.readUnsignedShort();
+        int length = in.readUnsignedShort();
+        if (length != Year.of(year).length() * COLUMNS) {
+            throw new IOException("Astronomical table length mismatch");
+        }
+        short[] minutes = new short[length];
+        for (int i = 0; i < length; i++) {
+            minutes[i] = in.readShort();
+        }
+        return new AstronomicalTable(type, year, minutes);
+    }
+
+    private static short[] emptyMinutes(int year) {
+        short[] minutes = new short[Year.of(year).length() * COLUMNS];
+        Arrays.fill(minutes, NO_ROW);
+        return minutes;
+    }
+
+    private final Type type;
+    private final int year;
+    private final short[] minutes;
+
+    private AstronomicalTable(Type type, int year, short[] minutes) {
+        this.type = type;
+        this.year = year;
+        this.minutes = minutes;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public boolean hasDate(LocalDate date) {
+        return date.getYear() == year && minutes[(date.getDayOfYear() - 1) * COLUMNS] != NO_ROW;
+    }
+
+    public LocalTime[] getTimes(LocalDate date) {
+        if (!hasDate(date)) {
+            return null;
+        }
+        int offset = (date.getDayOfYear() - 1) * COLUMNS;
+        LocalTime[] times = new LocalTime[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            short value = minutes[offset + i];
+            times[i] = value < 0 ? null : LocalTime.of(value / 60, value % 60);
+        }
+        return times;
+    }
+
+    public boolean isComplete() {
+        for (int i = 0; i < minutes.length; i += COLUMNS) {
+            if (minutes[i] == NO_ROW) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(FILE_MAGIC);
+        out.writeByte(FILE_VERSION);
+        out.writeByte(type.ordinal());
+        out.writeShort(year);
+        out.writeShort(minutes.length);
+        for (short value : minutes) {
+            out.writeShort(value);
+        }
+    }
+
+    public enum Type {
+
+        SUN("SRS"), MOON("MRS");
+
+        private final String dataType;
+
+        Type(String dataType) {
+            this.dataType = dataType;
+        }
+
+        public String getDataType() {
+            return dataType;
+        }
+
+    }
+
+    public static class Event {
+
+        private final LocalDateTime time;
+        private final boolean rise;
+
+        public Event(LocalDateTime time, boolean rise) {
+            this.time = time;
+            this.rise = rise;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public boolean isRise() {
+            return rise;
+        }
+
+    }
+
+}
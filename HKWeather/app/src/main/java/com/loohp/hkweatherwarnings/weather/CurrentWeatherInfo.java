@@ -22,23 +22,38 @@ package com.loohp.hkweatherwarnings.weather;
 
 import androidx.compose.runtime.Immutable;
 
+import com.loohp.hkweatherwarnings.cache.BinaryCacheUtils;
+import com.loohp.hkweatherwarnings.cache.LazySection;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 @Immutable
 public class CurrentWeatherInfo extends WeatherInfo {
 
     public static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
+    private static final int SECTION_LOCAL_FORECAST = 0;
+    private static final int SECTION_FORECAST_GENERAL_SITUATION = 1;
+    private static final int SECTION_FORECAST = 2;
+    private static final int SECTION_HOURLY = 3;
+    private static final int SECTION_COUNT = 4;
+
     public static CurrentWeatherInfo deserialize(JSONObject jsonObject) {
         LocalDate date = LocalDate.parse(jsonObject.optString("date"), DATE_FORMATTER);
         float highestTemperature = (float) jsonObject.optDouble("highestTemperature");
@@ -76,7 +91,111 @@ public class CurrentWeatherInfo extends WeatherInfo {
         }
         HeatStressAtWorkInfo heatStressAtWorkInfo = jsonObject.has("heatStressAtWorkInfo") ? HeatStressAtWorkInfo.deserialize(jsonObject.optJSONObject("heatStressAtWorkInfo")) : null;
         SpecialTyphoonInfo specialTyphoonInfo = jsonObject.has("specialTyphoonInfo") ? SpecialTyphoonInfo.deserialize(jsonObject.optJSONObject("specialTyphoonInfo")) : null;
-        return new CurrentWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, localForecastInfo, forecastGeneralSituation, forecastInfo, hourlyWeatherInfo, heatStressAtWorkInfo, specialTyphoonInfo);
+        Map<Section, SectionStatus> sectionStatus = new EnumMap<>(Section.class);
+        JSONObject sectionStatusObject = jsonObject.optJSONObject("sectionStatus");
+        if (sectionStatusObject != null) {
+            for (Section section : Section.values()) {
+                JSONObject statusObject = sectionStatusObject.optJSONObject(section.name());
+                if (statusObject != null) {
+                    sectionStatus.put(section, new SectionStatus(statusObject.optLong("updateTime"), statusObject.optBoolean("successful")));
+                }
+            }
+        }
+        return new CurrentWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, localForecastInfo, forecastGeneralSituation, forecastInfo, hourlyWeatherInfo, heatStressAtWorkInfo, specialTyphoonInfo, sectionStatus);
+    }
+
+    public static CurrentWeatherInfo deserialize(DataInputStream in) throws IOException {
+        LocalDate date = BinaryCacheUtils.readDate(in);
+        float highestTemperature = in.readFloat();
+        float lowestTemperature = in.readFloat();
+        float maxRelativeHumidity = in.readFloat();
+        float minRelativeHumidity = in.readFloat();
+        float chanceOfRain = in.readFloat();
+        RangeSign chanceOfRainRangeSign = BinaryCacheUtils.readEnum(in, RangeSign.class);
+        WeatherStatusIcon weatherIcon = BinaryCacheUtils.readEnum(in, WeatherStatusIcon.class);
+        String weatherStation = BinaryCacheUtils.readString(in);
+        WeatherStatusIcon nextWeatherIcon = BinaryCacheUtils.readEnum(in, WeatherStatusIcon.class);
+        float currentTemperature = in.readFloat();
+        float currentHumidity = in.readFloat();
+        float uvIndex = in.readFloat();
+        String windDirection = BinaryCacheUtils.readString(in);
+        float windSpeed = in.readFloat();
+        float gust = in.readFloat();
+        LocalTime sunriseTime = BinaryCacheUtils.readTime(in);
+        LocalTime sunTransitTime = BinaryCacheUtils.readTime(in);
+        LocalTime sunsetTime = BinaryCacheUtils.readTime(in);
+        LocalTime moonriseTime = BinaryCacheUtils.readTime(in);
+        LocalTime moonTransitTime = BinaryCacheUtils.readTime(in);
+        LocalTime moonsetTime = BinaryCacheUtils.readTime(in);
+        HeatStressAtWorkInfo heatStressAtWorkInfo = in.readBoolean() ? HeatStressAtWorkInfo.deserialize(in) : null;
+        SpecialTyphoonInfo specialTyphoonInfo = in.readBoolean() ? SpecialTyphoonInfo.deserialize(in) : null;
+        Map<Section, SectionStatus> sectionStatus = new EnumMap<>(Section.class);
+        int sectionStatusSize = in.readUnsignedByte();
+        for (int i = 0; i < sectionStatusSize; i++) {
+            String sectionName = in.readUTF();
+            SectionStatus status = new SectionStatus(in.readLong(), in.readBoolean());
+            try {
+                sectionStatus.put(Section.valueOf(sectionName), status);
+            } catch (IllegalArgumentException ignore) {
+            }
+        }
+        int sectionCount = in.readUnsignedByte();
+        int[] sectionIds = new int[sectionCount];
+        int[] sectionLengths = new int[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            sectionIds[i] = in.readUnsignedByte();
+            sectionLengths[i] = in.readInt();
+        }
+        byte[][] sections = new byte[SECTION_COUNT][];
+        for (int i = 0; i < sectionCount; i++) {
+            byte[] data = new byte[sectionLengths[i]];
+            in.readFully(data);
+            if (sectionIds[i] < SECTION_COUNT) {
+                sections[sectionIds[i]] = data;
+            }
+        }
+        for (byte[] data : sections) {
+            if (data == null) {
+                throw new IOException("Missing section in cached weather info");
+            }
+        }
+        LazySection<LocalForecastInfo> localForecastInfo = LazySection.decode(sections[SECTION_LOCAL_FORECAST], LocalForecastInfo::deserialize);
+        LazySection<String> forecastGeneralSituation = LazySection.decode(sections[SECTION_FORECAST_GENERAL_SITUATION], BinaryCacheUtils::readString);
+        LazySection<List<ForecastWeatherInfo>> forecastInfo = LazySection.decode(sections[SECTION_FORECAST], CurrentWeatherInfo::readForecastInfo);
+        LazySection<List<HourlyWeatherInfo>> hourlyWeatherInfo = LazySection.decode(sections[SECTION_HOURLY], CurrentWeatherInfo::readHourlyWeatherInfo);
+        return new CurrentWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, localForecastInfo, forecastGeneralSituation, forecastInfo, hourlyWeatherInfo, heatStressAtWorkInfo, specialTyphoonInfo, sectionStatus);
+    }
+
+    private static List<ForecastWeatherInfo> readForecastInfo(DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        List<ForecastWeatherInfo> forecastInfo = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            forecastInfo.add(ForecastWeatherInfo.deserialize(in));
+        }
+        return Collections.unmodifiableList(forecastInfo);
+    }
+
+    private static void writeForecastInfo(DataOutputStream out, List<ForecastWeatherInfo> forecastInfo) throws IOException {
+        out.writeShort(forecastInfo.size());
+        for (ForecastWeatherInfo weatherInfo : forecastInfo) {
+            weatherInfo.serialize(out);
+        }
+    }
+
+    private static List<HourlyWeatherInfo> readHourlyWeatherInfo(DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        List<HourlyWeatherInfo> hourlyWeatherInfo = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hourlyWeatherInfo.add(HourlyWeatherInfo.deserialize(in));
+        }
+        return Collections.unmodifiableList(hourlyWeatherInfo);
+    }
+
+    private static void writeHourlyWeatherInfo(DataOutputStream out, List<HourlyWeatherInfo> hourlyWeatherInfo) throws IOException {
+        out.writeShort(hourlyWeatherInfo.size());
+        for (HourlyWeatherInfo hourlyInfo : hourlyWeatherInfo) {
+            hourlyInfo.serialize(out);
+        }
     }
 
     private final String weatherStation;
@@ -93,14 +212,19 @@ public class CurrentWeatherInfo extends WeatherInfo {
     private final LocalTime moonriseTime;
     private final LocalTime moonTransitTime;
     private final LocalTime moonsetTime;
-    private final LocalForecastInfo localForecastInfo;
-    private final String forecastGeneralSituation;
-    private final List<ForecastWeatherInfo> forecastInfo;
-    private final List<HourlyWeatherInfo> hourlyWeatherInfo;
+    private final LazySection<LocalForecastInfo> localForecastInfo;
+    private final LazySection<String> forecastGeneralSituation;
+    private final LazySection<List<ForecastWeatherInfo>> forecastInfo;
+    private final LazySection<List<HourlyWeatherInfo>> hourlyWeatherInfo;
     private final HeatStressAtWorkInfo heatStressAtWorkInfo;
     private final SpecialTyphoonInfo specialTyphoonInfo;
+    private final Map<Section, SectionStatus> sectionStatus;
 
-    public CurrentWeatherInfo(LocalDate date, float highestTemperature, float lowestTemperature, float maxRelativeHumidity, float minRelativeHumidity, float chanceOfRain, RangeSign chanceOfRainRangeSign, WeatherStatusIcon weatherIcon, String weatherStation, WeatherStatusIcon nextWeatherIcon, float currentTemperature, float currentHumidity, float uvIndex, String windDirection, float windSpeed, float gust, LocalTime sunriseTime, LocalTime sunTransitTime, LocalTime sunsetTime, LocalTime moonriseTime, LocalTime moonTransitTime, LocalTime moonsetTime, LocalForecastInfo localForecastInfo, String forecastGeneralSituation, List<ForecastWeatherInfo> forecastInfo, List<HourlyWeatherInfo> hourlyWeatherInfo, HeatStressAtWorkInfo heatStressAtWorkInfo, SpecialTyphoonInfo specialTyphoonInfo) {
+    public CurrentWeatherInfo(LocalDate date, float highestTemperature, float lowestTemperature, float maxRelativeHumidity, float minRelativeHumidity, float chanceOfRain, RangeSign chanceOfRainRangeSign, WeatherStatusIcon weatherIcon, String weatherStation, WeatherStatusIcon nextWeatherIcon, float currentTemperature, float currentHumidity, float uvIndex, String windDirection, float windSpeed, float gust, LocalTime sunriseTime, LocalTime sunTransitTime, LocalTime sunsetTime, LocalTime moonriseTime, LocalTime moonTransitTime, LocalTime moonsetTime, LocalForecastInfo localForecastInfo, String forecastGeneralSituation, List<ForecastWeatherInfo> forecastInfo, List<HourlyWeatherInfo> hourlyWeatherInfo, HeatStressAtWorkInfo heatStressAtWorkInfo, SpecialTyphoonInfo specialTyphoonInfo, Map<Section, SectionStatus> sectionStatus) {
+        this(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, LazySection.of(localForecastInfo), LazySection.of(forecastGeneralSituation), LazySection.of(Collections.unmodifiableList(forecastInfo)), LazySection.of(Collections.unmodifiableList(hourlyWeatherInfo)), heatStressAtWorkInfo, specialTyphoonInfo, sectionStatus);
+    }
+
+    private CurrentWeatherInfo(LocalDate date, float highestTemperature, float lowestTemperature, float maxRelativeHumidity, float minRelativeHumidity, float chanceOfRain, RangeSign chanceOfRainRangeSign, WeatherStatusIcon weatherIcon, String weatherStation, WeatherStatusIcon nextWeatherIcon, float currentTemperature, float currentHumidity, float uvIndex, String windDirection, float windSpeed, float gust, LocalTime sunriseTime, LocalTime sunTransitTime, LocalTime sunsetTime, LocalTime moonriseTime, LocalTime moonTransitTime, LocalTime moonsetTime, LazySection<LocalForecastInfo> localForecastInfo, LazySection<String> forecastGeneralSituation, LazySection<List<ForecastWeatherInfo>> forecastInfo, LazySection<List<HourlyWeatherInfo>> hourlyWeatherInfo, HeatStressAtWorkInfo heatStressAtWorkInfo, SpecialTyphoonInfo specialTyphoonInfo, Map<Section, SectionStatus> sectionStatus) {
         super(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon);
         this.weatherStation = weatherStation;
         this.nextWeatherIcon = nextWeatherIcon;
@@ -118,10 +242,11 @@ public class CurrentWeatherInfo extends WeatherInfo {
         this.moonsetTime = moonsetTime;
         this.localForecastInfo = localForecastInfo;
         this.forecastGeneralSituation = forecastGeneralSituation;
-        this.forecastInfo = Collections.unmodifiableList(forecastInfo);
-        this.hourlyWeatherInfo = Collections.unmodifiableList(hourlyWeatherInfo);
+        this.forecastInfo = forecastInfo;
+        this.hourlyWeatherInfo = hourlyWeatherInfo;
         this.heatStressAtWorkInfo = heatStressAtWorkInfo;
         this.specialTyphoonInfo = specialTyphoonInfo;
+        this.sectionStatus = sectionStatus.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new EnumMap<>(sectionStatus));
     }
 
     public String getWeatherStation() {
@@ -181,19 +306,19 @@ public class CurrentWeatherInfo extends WeatherInfo {
     }
 
     public LocalForecastInfo getLocalForecastInfo() {
-        return localForecastInfo;
+        return localForecastInfo.get();
     }
 
     public String getForecastGeneralSituation() {
-        return forecastGeneralSituation;
+        return forecastGeneralSituation.get();
     }
 
     public List<ForecastWeatherInfo> getForecastInfo() {
-        return forecastInfo;
+        return forecastInfo.get();
     }
 
     public List<HourlyWeatherInfo> getHourlyWeatherInfo() {
-        return hourlyWeatherInfo;
+        return hourlyWeatherInfo.get();
     }
 
     public HeatStressAtWorkInfo getHeatStressAtWorkInfo() {
@@ -204,6 +329,14 @@ public class CurrentWeatherInfo extends WeatherInfo {
         return specialTyphoonInfo;
     }
 
+    public Map<Section, SectionStatus> getSectionStatus() {
+        return sectionStatus;
+    }
+
+    public SectionStatus getSectionStatus(Section section) {
+        return sectionStatus.getOrDefault(section, SectionStatus.UNKNOWN);
+    }
+
     @Override
     public JSONObject serialize() throws JSONException {
         JSONObject jsonObject = super.serialize();
@@ -223,15 +356,15 @@ public class CurrentWeatherInfo extends WeatherInfo {
         jsonObject.put("moonriseTime", moonriseTime == null ? "" : moonriseTime.format(TIME_FORMATTER));
         jsonObject.put("moonTransitTime", moonTransitTime == null ? "" : moonTransitTime.format(TIME_FORMATTER));
         jsonObject.put("moonsetTime", moonsetTime == null ? "" : moonsetTime.format(TIME_FORMATTER));
-        jsonObject.put("localForecastInfo", localForecastInfo.serialize());
-        jsonObject.put("forecastGeneralSituation", forecastGeneralSituation);
+        jsonObject.put("localForecastInfo", getLocalForecastInfo().serialize());
+        jsonObject.put("forecastGeneralSituation", getForecastGeneralSituation());
         JSONArray forecastInfoArray = new JSONArray();
-        for (WeatherInfo weatherInfo : forecastInfo) {
+        for (WeatherInfo weatherInfo : getForecastInfo()) {
             forecastInfoArray.put(weatherInfo.serialize());
         }
         jsonObject.put("forecastInfo", forecastInfoArray);
         JSONArray hourlyWeatherInfoArray = new JSONArray();
-        for (HourlyWeatherInfo hourlyInfo : hourlyWeatherInfo) {
+        for (HourlyWeatherInfo hourlyInfo : getHourlyWeatherInfo()) {
             hourlyWeatherInfoArray.put(hourlyInfo.serialize());
         }
         jsonObject.put("hourlyWeatherInfo", hourlyWeatherInfoArray);
@@ -241,21 +374,75 @@ public class CurrentWeatherInfo extends WeatherInfo {
         if (specialTyphoonInfo != null) {
             jsonObject.put("specialTyphoonInfo", specialTyphoonInfo.serialize());
         }
+        JSONObject sectionStatusObject = new JSONObject();
+        for (Map.Entry<Section, SectionStatus> entry : sectionStatus.entrySet()) {
+            JSONObject statusObject = new JSONObject();
+            statusObject.put("updateTime", entry.getValue().getUpdateTime());
+            statusObject.put("successful", entry.getValue().isSuccessful());
+            sectionStatusObject.put(entry.getKey().name(), statusObject);
+        }
+        jsonObject.put("sectionStatus", sectionStatusObject);
         return jsonObject;
     }
 
+    @Override
+    public void serialize(DataOutputStream out) throws IOException {
+        super.serialize(out);
+        BinaryCacheUtils.writeString(out, weatherStation);
+        BinaryCacheUtils.writeEnum(out, nextWeatherIcon);
+        out.writeFloat(currentTemperature);
+        out.writeFloat(currentHumidity);
+        out.writeFloat(uvIndex);
+        BinaryCacheUtils.writeString(out, windDirection);
+        out.writeFloat(windSpeed);
+        out.writeFloat(gust);
+        BinaryCacheUtils.writeTime(out, sunriseTime);
+        BinaryCacheUtils.writeTime(out, sunTransitTime);
+        BinaryCacheUtils.writeTime(out, sunsetTime);
+        BinaryCacheUtils.writeTime(out, moonriseTime);
+        BinaryCacheUtils.writeTime(out, moonTransitTime);
+        BinaryCacheUtils.writeTime(out, moonsetTime);
+        out.writeBoolean(heatStressAtWorkInfo != null);
+        if (heatStressAtWorkInfo != null) {
+            heatStressAtWorkInfo.serialize(out);
+        }
+        out.writeBoolean(specialTyphoonInfo != null);
+        if (specialTyphoonInfo != null) {
+            specialTyphoonInfo.serialize(out);
+        }
+        out.writeByte(sectionStatus.size());
+        for (Map.Entry<Section, SectionStatus> entry : sectionStatus.entrySet()) {
+            out.writeUTF(entry.getKey().name());
+            out.writeLong(entry.getValue().getUpdateTime());
+            out.writeBoolean(entry.getValue().isSuccessful());
+        }
+        byte[][] sections = new byte[SECTION_COUNT][];
+        sections[SECTION_LOCAL_FORECAST] = localForecastInfo.encode((o, v) -> v.serialize(o));
+        sections[SECTION_FORECAST_GENERAL_SITUATION] = forecastGeneralSituation.encode(BinaryCacheUtils::writeString);
+        sections[SECTION_FORECAST] = forecastInfo.encode(CurrentWeatherInfo::writeForecastInfo);
+        sections[SECTION_HOURLY] = hourlyWeatherInfo.encode(CurrentWeatherInfo::writeHourlyWeatherInfo);
+        out.writeByte(SECTION_COUNT);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            out.writeByte(i);
+            out.writeInt(sections[i].length);
+        }
+        for (byte[] data : sections) {
+            out.write(data);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         CurrentWeatherInfo that = (CurrentWeatherInfo) o;
-        return Float.compare(that.currentTemperature, currentTemperature) == 0 && Float.compare(that.currentHumidity, currentHumidity) == 0 && Float.compare(that.uvIndex, uvIndex) == 0 && Float.compare(that.windSpeed, windSpeed) == 0 && Float.compare(that.gust, gust) == 0 && Objects.equals(weatherStation, that.weatherStation) && nextWeatherIcon == that.nextWeatherIcon && Objects.equals(windDirection, that.windDirection) && Objects.equals(sunriseTime, that.sunriseTime) && Objects.equals(sunTransitTime, that.sunTransitTime) && Objects.equals(sunsetTime, that.sunsetTime) && Objects.equals(moonriseTime, that.moonriseTime) && Objects.equals(moonTransitTime, that.moonTransitTime) && Objects.equals(moonsetTime, that.moonsetTime) && Objects.equals(localForecastInfo, that.localForecastInfo) && Objects.equals(forecastGeneralSituation, that.forecastGeneralSituation) && Objects.equals(forecastInfo, that.forecastInfo) && Objects.equals(hourlyWeatherInfo, that.hourlyWeatherInfo) && Objects.equals(heatStressAtWorkInfo, that.heatStressAtWorkInfo) && Objects.equals(specialTyphoonInfo, that.specialTyphoonInfo);
+        return Float.compare(that.currentTemperature, currentTemperature) == 0 && Float.compare(that.currentHumidity, currentHumidity) == 0 && Float.compare(that.uvIndex, uvIndex) == 0 && Float.compare(that.windSpeed, windSpeed) == 0 && Float.compare(that.gust, gust) == 0 && Objects.equals(weatherStation, that.weatherStation) && nextWeatherIcon == that.nextWeatherIcon && Objects.equals(windDirection, that.windDirection) && Objects.equals(sunriseTime, that.sunriseTime) && Objects.equals(sunTransitTime, that.sunTransitTime) && Objects.equals(sunsetTime, that.sunsetTime) && Objects.equals(moonriseTime, that.moonriseTime) && Objects.equals(moonTransitTime, that.moonTransitTime) && Objects.equals(moonsetTime, that.moonsetTime) && Objects.equals(getLocalForecastInfo(), that.getLocalForecastInfo()) && Objects.equals(getForecastGeneralSituation(), that.getForecastGeneralSituation()) && Objects.equals(getForecastInfo(), that.getForecastInfo()) && Objects.equals(getHourlyWeatherInfo(), that.getHourlyWeatherInfo()) && Objects.equals(heatStressAtWorkInfo, that.heatStressAtWorkInfo) && Objects.equals(specialTyphoonInfo, that.specialTyphoonInfo);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, localForecastInfo, forecastGeneralSituation, forecastInfo, hourlyWeatherInfo, heatStressAtWorkInfo, specialTyphoonInfo);
+        return Objects.hash(super.hashCode(), weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, getLocalForecastInfo(), getForecastGeneralSituation(), getForecastInfo(), getHourlyWeatherInfo(), heatStressAtWorkInfo, specialTyphoonInfo);
     }
 
     public static class Builder {
@@ -282,12 +469,13 @@ public class CurrentWeatherInfo extends WeatherInfo {
         private LocalTime moonriseTime;
         private LocalTime moonTransitTime;
         private LocalTime moonsetTime;
-        private LocalForecastInfo localForecastInfo;
-        private String forecastGeneralSituation;
-        private List<ForecastWeatherInfo> forecastInfo;
-        private List<HourlyWeatherInfo> hourlyWeatherInfo;
+        private LazySection<LocalForecastInfo> localForecastInfo;
+        private LazySection<String> forecastGeneralSituation;
+        private LazySection<List<ForecastWeatherInfo>> forecastInfo;
+        private LazySection<List<HourlyWeatherInfo>> hourlyWeatherInfo;
         private HeatStressAtWorkInfo heatStressAtWorkInfo;
         private SpecialTyphoonInfo specialTyphoonInfo;
+        private final Map<Section, SectionStatus> sectionStatus = new EnumMap<>(Section.class);
 
         public Builder setDate(LocalDate date) {
             this.date = date;
@@ -403,22 +591,22 @@ public class CurrentWeatherInfo extends WeatherInfo {
         }
 
         public Builder setLocalForecastInfo(LocalForecastInfo localForecastInfo) {
-            this.localForecastInfo = localForecastInfo;
+            this.localForecastInfo = LazySection.of(localForecastInfo);
             return this;
         }
 
         public Builder setForecastGeneralSituation(String forecastGeneralSituation) {
-            this.forecastGeneralSituation = forecastGeneralSituation;
+            this.forecastGeneralSituation = LazySection.of(forecastGeneralSituation);
             return this;
         }
 
         public Builder setForecastInfo(List<ForecastWeatherInfo> forecastInfo) {
-            this.forecastInfo = forecastInfo;
+            this.forecastInfo = LazySection.of(Collections.unmodifiableList(forecastInfo));
             return this;
         }
 
         public Builder setHourlyWeatherInfo(List<HourlyWeatherInfo> hourlyWeatherInfo) {
-            this.hourlyWeatherInfo = hourlyWeatherInfo;
+            this.hourlyWeatherInfo = LazySection.of(Collections.unmodifiableList(hourlyWeatherInfo));
             return this;
         }
 
@@ -432,8 +620,163 @@ public class CurrentWeatherInfo extends WeatherInfo {
             return this;
         }
 
+        public Builder setSectionStatus(Section section, SectionStatus status) {
+            this.sectionStatus.put(section, status);
+            return this;
+        }
+
+        public Builder copySection(Section section, CurrentWeatherInfo from) {
+            switch (section) {
+                case CURRENT_TEMPERATURE: {
+                    this.currentTemperature = from.currentTemperature;
+                    break;
+                }
+                case CURRENT_HUMIDITY: {
+                    this.currentHumidity = from.currentHumidity;
+                    break;
+                }
+                case WIND: {
+                    this.windDirection = from.windDirection;
+                    this.windSpeed = from.windSpeed;
+                    this.gust = from.gust;
+                    break;
+                }
+                case CURRENT_CONDITIONS: {
+                    this.uvIndex = from.uvIndex;
+                    this.weatherIcon = from.getWeatherIcon();
+                    this.nextWeatherIcon = from.nextWeatherIcon;
+                    break;
+                }
+                case DAILY_FORECAST: {
+                    this.highestTemperature = from.getHighestTemperature();
+                    this.lowestTemperature = from.getLowestTemperature();
+                    this.maxRelativeHumidity = from.getMaxRelativeHumidity();
+                    this.minRelativeHumidity = from.getMinRelativeHumidity();
+                    this.forecastGeneralSituation = from.forecastGeneralSituation;
+                    this.forecastInfo = from.forecastInfo;
+                    break;
+                }
+                case HOURLY_FORECAST: {
+                    this.chanceOfRain = from.getChanceOfRain();
+                    this.chanceOfRainRangeSign = from.getChanceOfRainRangeSign();
+                    this.hourlyWeatherInfo = from.hourlyWeatherInfo;
+                    break;
+                }
+                case SUN_TIMES: {
+                    this.sunriseTime = from.sunriseTime;
+                    this.sunTransitTime = from.sunTransitTime;
+                    this.sunsetTime = from.sunsetTime;
+                    break;
+                }
+                case MOON_TIMES: {
+                    this.moonriseTime = from.moonriseTime;
+                    this.moonTransitTime = from.moonTransitTime;
+                    this.moonsetTime = from.moonsetTime;
+                    break;
+                }
+                case LOCAL_FORECAST: {
+                    this.localForecastInfo = from.localForecastInfo;
+                    break;
+                }
+                case HEAT_STRESS: {
+                    this.heatStressAtWorkInfo = from.heatStressAtWorkInfo;
+                    break;
+                }
+                case SPECIAL_TYPHOON: {
+                    this.specialTyphoonInfo = from.specialTyphoonInfo;
+                    break;
+                }
+            }
+            return this;
+        }
+
         public CurrentWeatherInfo build() {
-            return new CurrentWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, localForecastInfo, forecastGeneralSituation, forecastInfo, hourlyWeatherInfo, heatStressAtWorkInfo, specialTyphoonInfo);
+            return new CurrentWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, weatherStation, nextWeatherIcon, currentTemperature, currentHumidity, uvIndex, windDirection, windSpeed, gust, sunriseTime, sunTransitTime, sunsetTime, moonriseTime, moonTransitTime, moonsetTime, localForecastInfo, forecastGeneralSituation, forecastInfo, hourlyWeatherInfo, heatStressAtWorkInfo, specialTyphoonInfo, sectionStatus);
+        }
+
+    }
+
+    public enum Section {
+
+        CURRENT_TEMPERATURE(false, true, false, TimeUnit.MINUTES.toMillis(1)),
+        CURRENT_HUMIDITY(false, true, false, TimeUnit.MINUTES.toMillis(1)),
+        WIND(false, true, false, TimeUnit.MINUTES.toMillis(10)),
+        CURRENT_CONDITIONS(false, false, false, TimeUnit.HOURS.toMillis(1)),
+        DAILY_FORECAST(true, true, false, TimeUnit.HOURS.toMillis(4)),
+        HOURLY_FORECAST(false, true, false, TimeUnit.HOURS.toMillis(1)),
+        SUN_TIMES(true, false, false, TimeUnit.DAYS.toMillis(1)),
+        MOON_TIMES(true, false, true, TimeUnit.DAYS.toMillis(1)),
+        LOCAL_FORECAST(false, false, false, TimeUnit.HOURS.toMillis(2)),
+        HEAT_STRESS(false, false, true, TimeUnit.MINUTES.toMillis(30)),
+        SPECIAL_TYPHOON(false, false, true, TimeUnit.MINUTES.toMillis(15));
+
+        private final boolean dateScoped;
+        private final boolean locationScoped;
+        private final boolean optional;
+        private final long cadence;
+
+        Section(boolean dateScoped, boolean locationScoped, boolean optional, long cadence) {
+            this.dateScoped = dateScoped;
+            this.locationScoped = locationScoped;
+            this.optional = optional;
+            this.cadence = cadence;
+        }
+
+        public boolean isDateScoped() {
+            return dateScoped;
+        }
+
+        public boolean isLocationScoped() {
+            return locationScoped;
+        }
+
+        public boolean isOptional() {
+            return optional;
+        }
+
+        public boolean canReuse(CurrentWeatherInfo previous, LocalDate date, String weatherStation) {
+            if (previous == null) {
+                return false;
+            }
+            if (dateScoped && !previous.getDate().equals(date)) {
+                return false;
+            }
+            return !locationScoped || Objects.equals(previous.getWeatherStation(), weatherStation);
+        }
+
+        public long getCadence() {
+            return cadence;
+        }
+
+        public boolean isUpToDate(CurrentWeatherInfo previous, LocalDate date, String weatherStation, long now) {
+            if (!canReuse(previous, date, weatherStation)) {
+                return false;
+            }
+            SectionStatus status = previous.getSectionStatus(this);
+            return status.isSuccessful() && now >= status.getUpdateTime() && now - status.getUpdateTime() < cadence;
+        }
+
+    }
+
+    @Immutable
+    public static class SectionStatus {
+
+        public static final SectionStatus UNKNOWN = new SectionStatus(0, false);
+
+        private final long updateTime;
+        private final boolean successful;
+
+        public SectionStatus(long updateTime, boolean successful) {
+            this.updateTime = updateTime;
+            this.successful = successful;
+        }
+
+        public long getUpdateTime() {
+            return updateTime;
+        }
+
+        public boolean isSuccessful() {
+            return successful;
         }
 
     }
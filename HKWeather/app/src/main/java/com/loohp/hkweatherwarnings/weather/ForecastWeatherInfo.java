@@ -24,11 +24,15 @@ import android.content.Context;
 
 import androidx.compose.runtime.Immutable;
 
+import com.loohp.hkweatherwarnings.cache.BinaryCacheUtils;
 import com.loohp.hkweatherwarnings.shared.Registry;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
@@ -52,6 +56,20 @@ public class ForecastWeatherInfo extends WeatherInfo {
         return new ForecastWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, forecastWind, forecastWeather);
     }
 
+    public static ForecastWeatherInfo deserialize(DataInputStream in) throws IOException {
+        LocalDate date = BinaryCacheUtils.readDate(in);
+        float highestTemperature = in.readFloat();
+        float lowestTemperature = in.readFloat();
+        float maxRelativeHumidity = in.readFloat();
+        float minRelativeHumidity = in.readFloat();
+        float chanceOfRain = in.readFloat();
+        RangeSign chanceOfRainRangeSign = BinaryCacheUtils.readEnum(in, RangeSign.class);
+        WeatherStatusIcon weatherIcon = BinaryCacheUtils.readEnum(in, WeatherStatusIcon.class);
+        String forecastWind = BinaryCacheUtils.readString(in);
+        String forecastWeather = BinaryCacheUtils.readString(in);
+        return new ForecastWeatherInfo(date, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain, chanceOfRainRangeSign, weatherIcon, forecastWind, forecastWeather);
+    }
+
     private final String forecastWind;
     private final String forecastWeather;
 
@@ -105,6 +123,13 @@ public class ForecastWeatherInfo extends WeatherInfo {
         return jsonObject;
     }
 
+    @Override
+    public void serialize(DataOutputStream out) throws IOException {
+        super.serialize(out);
+        BinaryCacheUtils.writeString(out, forecastWind);
+        BinaryCacheUtils.writeString(out, forecastWeather);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -24,6 +24,8 @@ import android.content.Context;
 
 import androidx.compose.runtime.Immutable;
 
+import com.loohp.hkweatherwarnings.cache.BinaryCacheUtils;
+import com.loohp.hkweatherwarnings.cache.BinarySerializable;
 import com.loohp.hkweatherwarnings.cache.JSONSerializable;
 import com.loohp.hkweatherwarnings.shared.Registry;
 import com.loohp.hkweatherwarnings.utils.CompassUtilsKtKt;
@@ -31,6 +33,9 @@ import com.loohp.hkweatherwarnings.utils.CompassUtilsKtKt;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
@@ -39,7 +44,7 @@ import java.util.Locale;
 import java.util.Objects;
 
 @Immutable
-public class HourlyWeatherInfo implements JSONSerializable {
+public class HourlyWeatherInfo implements JSONSerializable, BinarySerializable {
 
     public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy.HH:mm");
 
@@ -53,6 +58,16 @@ public class HourlyWeatherInfo implements JSONSerializable {
         return new HourlyWeatherInfo(time, temperature, humidity, windDirection, windSpeed, weatherIcon);
     }
 
+    public static HourlyWeatherInfo deserialize(DataInputStream in) throws IOException {
+        LocalDateTime time = BinaryCacheUtils.readDateTime(in);
+        float temperature = in.readFloat();
+        float humidity = in.readFloat();
+        float windDirection = in.readFloat();
+        float windSpeed = in.readFloat();
+        WeatherStatusIcon weatherIcon = BinaryCacheUtils.readEnum(in, WeatherStatusIcon.class);
+        return new HourlyWeatherInfo(time, temperature, humidity, windDirection, windSpeed, weatherIcon);
+    }
+
     private final LocalDateTime time;
     private final float temperature;
     private final float humidity;
@@ -127,6 +142,16 @@ public class HourlyWeatherInfo implements JSONSerializable {
         return jsonObject;
     }
 
+    @Override
+    public void serialize(DataOutputStream out) throws IOException {
+        BinaryCacheUtils.writeDateTime(out, time);
+        out.writeFloat(temperature);
+        out.writeFloat(humidity);
+        out.writeFloat(windDirection);
+        out.writeFloat(windSpeed);
+        BinaryCacheUtils.writeEnum(out, weatherIcon);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
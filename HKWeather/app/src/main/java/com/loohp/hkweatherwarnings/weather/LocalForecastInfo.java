@@ -24,19 +24,24 @@ import android.content.Context;
 
 import androidx.compose.runtime.Immutable;
 
+import com.loohp.hkweatherwarnings.cache.BinaryCacheUtils;
+import com.loohp.hkweatherwarnings.cache.BinarySerializable;
 import com.loohp.hkweatherwarnings.cache.JSONSerializable;
 import com.loohp.hkweatherwarnings.shared.Registry;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Objects;
 
 @Immutable
-public class LocalForecastInfo implements JSONSerializable {
+public class LocalForecastInfo implements JSONSerializable, BinarySerializable {
 
     public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy.HH:mm");
 
@@ -51,6 +56,17 @@ public class LocalForecastInfo implements JSONSerializable {
         return new LocalForecastInfo(generalSituation, tcInfo, fireDangerWarning, forecastPeriod, forecastDesc, outlook, updateTime);
     }
 
+    public static LocalForecastInfo deserialize(DataInputStream in) throws IOException {
+        String generalSituation = BinaryCacheUtils.readString(in);
+        String tcInfo = BinaryCacheUtils.readString(in);
+        String fireDangerWarning = BinaryCacheUtils.readString(in);
+        String forecastPeriod = BinaryCacheUtils.readString(in);
+        String forecastDesc = BinaryCacheUtils.readString(in);
+        String outlook = BinaryCacheUtils.readString(in);
+        LocalDateTime updateTime = BinaryCacheUtils.readDateTime(in);
+        return new LocalForecastInfo(generalSituation, tcInfo, fireDangerWarning, forecastPeriod, forecastDesc, outlook, updateTime);
+    }
+
     private final String generalSituation;
     private final String tcInfo;
     private final String fireDangerWarning;
@@ -152,6 +168,17 @@ public class LocalForecastInfo implements JSONSerializable {
         return jsonObject;
     }
 
+    @Override
+    public void serialize(DataOutputStream out) throws IOException {
+        BinaryCacheUtils.writeString(out, generalSituation);
+        BinaryCacheUtils.writeString(out, tcInfo);
+        BinaryCacheUtils.writeString(out, fireDangerWarning);
+        BinaryCacheUtils.writeString(out, forecastPeriod);
+        BinaryCacheUtils.writeString(out, forecastDesc);
+        BinaryCacheUtils.writeString(out, outlook);
+        BinaryCacheUtils.writeDateTime(out, updateTime);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,483 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.weather;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class WeatherDataDecoders {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_HOUR_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+    public static ForecastStationData decodeForecastStationData(JsonReader reader) throws IOException {
+        String firstChanceOfRain = null;
+        Map<String, String> dailyChanceOfRain = new HashMap<>();
+        List<HourlyWeatherInfo> hourlyWeatherInfo = Collections.emptyList();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "DailyForecast": {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        String date = null;
+                        String chanceOfRain = null;
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "ForecastDate": {
+                                    date = nextString(reader);
+                                    break;
+                                }
+                                case "ForecastChanceOfRain": {
+                                    chanceOfRain = nextString(reader);
+                                    break;
+                                }
+                                default: {
+                                    reader.skipValue();
+                                    break;
+                                }
+                            }
+                        }
+                        reader.endObject();
+                        if (firstChanceOfRain == null) {
+                            firstChanceOfRain = chanceOfRain == null ? "" : chanceOfRain;
+                        }
+                        if (date != null && chanceOfRain != null) {
+                            dailyChanceOfRain.putIfAbsent(date, chanceOfRain);
+                        }
+                    }
+                    reader.endArray();
+                    break;
+                }
+                case "HourlyWeatherForecast": {
+                    hourlyWeatherInfo = new ArrayList<>(240);
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        hourlyWeatherInfo.add(decodeHourlyWeatherInfo(reader));
+                    }
+                    reader.endArray();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        return new ForecastStationData(firstChanceOfRain, dailyChanceOfRain, hourlyWeatherInfo);
+    }
+
+    private static HourlyWeatherInfo decodeHourlyWeatherInfo(JsonReader reader) throws IOException {
+        LocalDateTime hour = null;
+        float temperature = -Float.MAX_VALUE;
+        float humidity = -Float.MAX_VALUE;
+        float windDirection = -Float.MAX_VALUE;
+        float windSpeed = -Float.MAX_VALUE;
+        WeatherStatusIcon icon = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "ForecastHour": {
+                    hour = LocalDateTime.parse(nextString(reader), DATE_HOUR_FORMATTER);
+                    break;
+                }
+                case "ForecastTemperature": {
+                    temperature = (float) nextDouble(reader, -Float.MAX_VALUE);
+                    break;
+                }
+                case "ForecastRelativeHumidity": {
+                    humidity = (float) nextDouble(reader, -Float.MAX_VALUE);
+                    break;
+                }
+                case "ForecastWindDirection": {
+                    windDirection = (float) nextDouble(reader, -Float.MAX_VALUE);
+                    break;
+                }
+                case "ForecastWindSpeed": {
+                    windSpeed = (float) nextDouble(reader, -Float.MAX_VALUE);
+                    break;
+                }
+                case "ForecastWeather": {
+                    icon = WeatherStatusIcon.getByCode(nextInt(reader, 0));
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        return new HourlyWeatherInfo(hour, temperature, humidity, windDirection, windSpeed, icon);
+    }
+
+    public static List<HourlyWeatherInfo> fillMissingHourlyIcons(List<HourlyWeatherInfo> hourlyWeatherInfo, WeatherStatusIcon initialIcon) {
+        List<HourlyWeatherInfo> result = new ArrayList<>(hourlyWeatherInfo.size());
+        WeatherStatusIcon lastHourIcon = initialIcon;
+        for (HourlyWeatherInfo info : hourlyWeatherInfo) {
+            if (info.getWeatherIcon() == null) {
+                result.add(new HourlyWeatherInfo(info.getTime(), info.getTemperature(), info.getHumidity(), info.getWindDirection(), info.getWindSpeed(), lastHourIcon));
+            } else {
+                lastHourIcon = info.getWeatherIcon();
+                result.add(info);
+            }
+        }
+        return result;
+    }
+
+    public static NineDayForecastData decodeNineDayForecast(JsonReader reader) throws IOException {
+        return decodeNineDayForecast(reader, Collections.emptyMap());
+    }
+
+    public static NineDayForecastData decodeNineDayForecast(JsonReader reader, Map<String, String> dailyChanceOfRain) throws IOException {
+        String generalSituation = "";
+        List<ForecastWeatherInfo> forecastInfo = new ArrayList<>(10);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "generalSituation": {
+                    generalSituation = nextString(reader);
+                    break;
+                }
+                case "weatherForecast": {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        forecastInfo.add(decodeForecastWeatherInfo(reader, dailyChanceOfRain));
+                    }
+                    reader.endArray();
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        return new NineDayForecastData(generalSituation, forecastInfo);
+    }
+
+    public static List<ForecastWeatherInfo> applyDailyChanceOfRain(List<ForecastWeatherInfo> forecastInfo, Map<String, String> dailyChanceOfRain) {
+        List<ForecastWeatherInfo> result = new ArrayList<>(forecastInfo.size());
+        for (ForecastWeatherInfo info : forecastInfo) {
+            String chanceOfRainStr = dailyChanceOfRain.get(info.getDate().format(DATE_FORMATTER));
+            if (chanceOfRainStr == null) {
+                result.add(info);
+            } else {
+                ChanceOfRain chanceOfRain = parseChanceOfRain(chanceOfRainStr);
+                result.add(new ForecastWeatherInfo(info.getDate(), info.getHighestTemperature(), info.getLowestTemperature(), info.getMaxRelativeHumidity(), info.getMinRelativeHumidity(), chanceOfRain.getValue(), chanceOfRain.getRangeSign(), info.getWeatherIcon(), info.getForecastWind(), info.getForecastWeather()));
+            }
+        }
+        return result;
+    }
+
+    private static ForecastWeatherInfo decodeForecastWeatherInfo(JsonReader reader, Map<String, String> dailyChanceOfRain) throws IOException {
+        String forecastDateStr = null;
+        float highestTemperature = -Float.MAX_VALUE;
+        float lowestTemperature = -Float.MAX_VALUE;
+        float maxRelativeHumidity = -Float.MAX_VALUE;
+        float minRelativeHumidity = -Float.MAX_VALUE;
+        WeatherStatusIcon weatherIcon = null;
+        String forecastWind = "";
+        String forecastWeather = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "forecastDate": {
+                    forecastDateStr = nextString(reader);
+                    break;
+                }
+                case "forecastMaxtemp": {
+                    highestTemperature = (float) nextValueObject(reader);
+                    break;
+                }
+                case "forecastMintemp": {
+                    lowestTemperature = (float) nextValueObject(reader);
+                    break;
+                }
+                case "forecastMaxrh": {
+                    maxRelativeHumidity = (float) nextValueObject(reader);
+                    break;
+                }
+                case "forecastMinrh": {
+                    minRelativeHumidity = (float) nextValueObject(reader);
+                    break;
+                }
+                case "ForecastIcon": {
+                    weatherIcon = WeatherStatusIcon.getByCode(nextInt(reader, 0));
+                    break;
+                }
+                case "forecastWind": {
+                    forecastWind = nextString(reader);
+                    break;
+                }
+                case "forecastWeather": {
+                    forecastWeather = nextString(reader);
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        LocalDate forecastDate = LocalDate.parse(forecastDateStr, DATE_FORMATTER);
+        String chanceOfRainStr = dailyChanceOfRain.get(forecastDateStr);
+        ChanceOfRain chanceOfRain = chanceOfRainStr == null ? ChanceOfRain.UNKNOWN : parseChanceOfRain(chanceOfRainStr);
+        return new ForecastWeatherInfo(forecastDate, highestTemperature, lowestTemperature, maxRelativeHumidity, minRelativeHumidity, chanceOfRain.getValue(), chanceOfRain.getRangeSign(), weatherIcon, forecastWind, forecastWeather);
+    }
+
+    public static Map<WeatherWarningsType, String> decodeWarningInfo(JsonReader reader, Set<WeatherWarningsType> activeWarnings, boolean english) throws IOException {
+        Map<WeatherWarningsType, String> warnings = new EnumMap<>(WeatherWarningsType.class);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("details") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    decodeWarningDetails(reader, activeWarnings, warnings, english);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return warnings;
+    }
+
+    private static void decodeWarningDetails(JsonReader reader, Set<WeatherWarningsType> activeWarnings, Map<WeatherWarningsType, String> warnings, boolean english) throws IOException {
+        String subtype = null;
+        String warningStatementCode = null;
+        String updateTime = null;
+        List<String> lines = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "subtype": {
+                    subtype = nextString(reader);
+                    break;
+                }
+                case "warningStatementCode": {
+                    warningStatementCode = nextString(reader);
+                    break;
+                }
+                case "updateTime": {
+                    updateTime = nextString(reader);
+                    break;
+                }
+                case "contents": {
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        lines = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            lines.add(nextString(reader));
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                }
+                default: {
+                    reader.skipValue();
+                    break;
+                }
+            }
+        }
+        reader.endObject();
+        try {
+            WeatherWarningsType warningType = WeatherWarningsType.valueOf((subtype != null ? subtype : warningStatementCode).toUpperCase());
+            if (activeWarnings.contains(warningType)) {
+                String warningName = english ? warningType.getNameEn() : warningType.getNameZh();
+                String contents;
+                if (lines == null || lines.isEmpty()) {
+                    contents = null;
+                } else {
+                    if (!lines.get(0).trim().equalsIgnoreCase(warningName)) {
+                        lines.add(0, warningName);
+                    }
+                    contents = String.join("\n", lines);
+                    OffsetDateTime time = OffsetDateTime.parse(updateTime);
+                    if (english) {
+                        contents += "\nDispatched by the Hong Kong Observatory at " + DateTimeFormatter.ofPattern("HH:mm' HKT on 'dd.MM.yyyy", Locale.ENGLISH).format(time);
+                    } else {
+                        contents += "\n以上天氣稿由天文台於" + DateTimeFormatter.ofPattern("yyyy年MM月dd日HH時mm分", Locale.TRADITIONAL_CHINESE).format(time) + "發出";
+                    }
+                }
+                warnings.put(warningType, contents);
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static ChanceOfRain parseChanceOfRain(String chanceOfRainStr) {
+        WeatherInfo.RangeSign chanceOfRainRangeSign = WeatherInfo.RangeSign.NONE;
+        for (WeatherInfo.RangeSign rangeSign : WeatherInfo.RangeSign.values()) {
+            if (chanceOfRainStr.contains(rangeSign.getSymbol())) {
+                chanceOfRainRangeSign = rangeSign;
+                break;
+            }
+        }
+        float value = Float.parseFloat(chanceOfRainStr.substring(chanceOfRainRangeSign.getSymbolWithSpace().length(), chanceOfRainStr.length() - 1));
+        return new ChanceOfRain(value, chanceOfRainRangeSign);
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        if (reader.peek() == JsonToken.BEGIN_ARRAY || reader.peek() == JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return "";
+        }
+        return reader.nextString();
+    }
+
+    private static double nextDouble(JsonReader reader, double defaultValue) throws IOException {
+        switch (reader.peek()) {
+            case NUMBER: {
+                return reader.nextDouble();
+            }
+            case STRING: {
+                try {
+                    return Double.parseDouble(reader.nextString());
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            }
+            default: {
+                reader.skipValue();
+                return defaultValue;
+            }
+        }
+    }
+
+    private static int nextInt(JsonReader reader, int defaultValue) throws IOException {
+        double value = nextDouble(reader, Double.NaN);
+        return Double.isNaN(value) ? defaultValue : (int) value;
+    }
+
+    private static double nextValueObject(JsonReader reader) throws IOException {
+        double value = -Float.MAX_VALUE;
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return value;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("value")) {
+                value = nextDouble(reader, -Float.MAX_VALUE);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    public static class ForecastStationData {
+
+        private final String firstChanceOfRain;
+        private final Map<String, String> dailyChanceOfRain;
+        private final List<HourlyWeatherInfo> hourlyWeatherInfo;
+
+        public ForecastStationData(String firstChanceOfRain, Map<String, String> dailyChanceOfRain, List<HourlyWeatherInfo> hourlyWeatherInfo) {
+            this.firstChanceOfRain = firstChanceOfRain;
+            this.dailyChanceOfRain = dailyChanceOfRain;
+            this.hourlyWeatherInfo = hourlyWeatherInfo;
+        }
+
+        public String getFirstChanceOfRain() {
+            return firstChanceOfRain;
+        }
+
+        public Map<String, String> getDailyChanceOfRain() {
+            return dailyChanceOfRain;
+        }
+
+        public List<HourlyWeatherInfo> getHourlyWeatherInfo() {
+            return hourlyWeatherInfo;
+        }
+
+    }
+
+    public static class NineDayForecastData {
+
+        private final String generalSituation;
+        private final List<ForecastWeatherInfo> forecastInfo;
+
+        public NineDayForecastData(String generalSituation, List<ForecastWeatherInfo> forecastInfo) {
+            this.generalSituation = generalSituation;
+            this.forecastInfo = forecastInfo;
+        }
+
+        public String getGeneralSituation() {
+            return generalSituation;
+        }
+
+        public List<ForecastWeatherInfo> getForecastInfo() {
+            return forecastInfo;
+        }
+
+    }
+
+    public static class ChanceOfRain {
+
+        public static final ChanceOfRain UNKNOWN = new ChanceOfRain(-1F, WeatherInfo.RangeSign.NONE);
+
+        private final float value;
+        private final WeatherInfo.RangeSign rangeSign;
+
+        public ChanceOfRain(float value, WeatherInfo.RangeSign rangeSign) {
+            this.value = value;
+            this.rangeSign = rangeSign;
+        }
+
+        public float getValue() {
+            return value;
+        }
+
+        public WeatherInfo.RangeSign getRangeSign() {
+            return rangeSign;
+        }
+
+    }
+
+}
@@ -22,11 +22,15 @@ package com.loohp.hkweatherwarnings.weather;
 
 import androidx.compose.runtime.Immutable;
 
+import com.loohp.hkweatherwarnings.cache.BinaryCacheUtils;
+import com.loohp.hkweatherwarnings.cache.BinarySerializable;
 import com.loohp.hkweatherwarnings.cache.JSONSerializable;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -34,7 +38,7 @@ import java.util.Objects;
 import java.util.UUID;
 
 @Immutable
-public abstract class WeatherInfo implements JSONSerializable {
+public abstract class WeatherInfo implements JSONSerializable, BinarySerializable {
 
     public static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
@@ -108,6 +112,18 @@ public abstract class WeatherInfo implements JSONSerializable {
         return jsonObject;
     }
 
+    @Override
+    public void serialize(DataOutputStream out) throws IOException {
+        BinaryCacheUtils.writeDate(out, date);
+        out.writeFloat(highestTemperature);
+        out.writeFloat(lowestTemperature);
+        out.writeFloat(maxRelativeHumidity);
+        out.writeFloat(minRelativeHumidity);
+        out.writeFloat(chanceOfRain);
+        BinaryCacheUtils.writeEnum(out, chanceOfRainRangeSign);
+        BinaryCacheUtils.writeEnum(out, weatherIcon);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
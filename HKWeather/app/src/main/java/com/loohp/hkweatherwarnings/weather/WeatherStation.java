@@ -0,0 +1,69 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.weather;
+
+import androidx.annotation.NonNull;
+import androidx.compose.runtime.Immutable;
+
+import java.util.Objects;
+
+@Immutable
+public class WeatherStation {
+
+    private final String nameEn;
+    private final String nameUc;
+
+    public WeatherStation(String nameEn, String nameUc) {
+        this.nameEn = nameEn;
+        this.nameUc = nameUc;
+    }
+
+    public String getNameEn() {
+        return nameEn;
+    }
+
+    public String getNameUc() {
+        return nameUc;
+    }
+
+    public String getName(String language) {
+        return language.equals("en") ? nameEn : nameUc;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return nameEn;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WeatherStation that = (WeatherStation) o;
+        return Objects.equals(nameEn, that.nameEn) && Objects.equals(nameUc, that.nameUc);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nameEn, nameUc);
+    }
+}
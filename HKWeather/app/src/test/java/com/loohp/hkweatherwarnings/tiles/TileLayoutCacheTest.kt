@@ -0,0 +1,131 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.tiles
+
+import androidx.wear.protolayout.DimensionBuilders
+import androidx.wear.protolayout.LayoutElementBuilders
+import androidx.wear.protolayout.ModifiersBuilders
+import androidx.wear.protolayout.TimelineBuilders
+import androidx.wear.tiles.TileBuilders
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TileLayoutCacheTest {
+
+    private data class Model(val temperature: Float, val warnings: List<String>)
+
+    private fun buildTile(model: Model): TileBuilders.Tile {
+        val column = LayoutElementBuilders.Column.Builder()
+            .setWidth(DimensionBuilders.expand())
+            .setHeight(DimensionBuilders.expand())
+            .setHorizontalAlignment(LayoutElementBuilders.HORIZONTAL_ALIGN_CENTER)
+        for (i in 0 until 30) {
+            column.addContent(
+                LayoutElementBuilders.Box.Builder()
+                    .setWidth(DimensionBuilders.wrap())
+                    .setHeight(DimensionBuilders.wrap())
+                    .setModifiers(
+                        ModifiersBuilders.Modifiers.Builder()
+                            .setPadding(
+                                ModifiersBuilders.Padding.Builder()
+                                    .setTop(DimensionBuilders.DpProp.Builder(2F).build())
+                                    .setBottom(DimensionBuilders.DpProp.Builder(2F).build())
+                                    .build()
+                            )
+                            .build()
+                    )
+                    .addContent(
+                        LayoutElementBuilders.Text.Builder()
+                            .setText("%.1f".format(model.temperature + i) + "° " + model.warnings.joinToString())
+                            .setMaxLines(2)
+                            .build()
+                    )
+                    .build()
+            )
+        }
+        return TileBuilders.Tile.Builder()
+            .setResourcesVersion("0")
+            .setTileTimeline(
+                TimelineBuilders.Timeline.Builder().addTimelineEntry(
+                    TimelineBuilders.TimelineEntry.Builder().setLayout(
+                        LayoutElementBuilders.Layout.Builder().setRoot(column.build()).build()
+                    ).build()
+                ).build()
+            ).build()
+    }
+
+    @Test
+    fun returnsCachedTileForEqualModels() {
+        val cache = TileLayoutCache<Model>("test", 4)
+        var builds = 0
+        val builder: (Model) -> TileBuilders.Tile = { builds++; buildTile(it) }
+        val first = cache.getOrBuild(Model(28.5F, listOf("WTS")), builder) { _, warm -> assertTrue(!warm) }
+        val second = cache.getOrBuild(Model(28.5F, listOf("WTS")), builder) { _, warm -> assertTrue(warm) }
+        val third = cache.getOrBuild(Model(29.0F, listOf("WTS")), builder) { _, warm -> assertTrue(!warm) }
+        assertSame(first, second)
+        assertNotSame(first, third)
+        assertEquals(2, builds)
+    }
+
+    @Test
+    fun evictsLeastRecentlyUsedModel() {
+        val cache = TileLayoutCache<Model>("test", 2)
+        var builds = 0
+        val builder: (Model) -> TileBuilders.Tile = { builds++; buildTile(it) }
+        val noop: (Long, Boolean) -> Unit = { _, _ -> }
+        cache.getOrBuild(Model(1F, emptyList()), builder, noop)
+        cache.getOrBuild(Model(2F, emptyList()), builder, noop)
+        cache.getOrBuild(Model(1F, emptyList()), builder, noop)
+        cache.getOrBuild(Model(3F, emptyList()), builder, noop)
+        cache.getOrBuild(Model(1F, emptyList()), builder, noop)
+        assertEquals(3, builds)
+        cache.getOrBuild(Model(2F, emptyList()), builder, noop)
+        assertEquals(4, builds)
+    }
+
+    @Test
+    fun benchmarkColdAndWarmBuilds() {
+        val iterations = 2000
+        val warmup = TileLayoutCache<Model>("warmup", 4)
+        for (i in 0 until iterations) {
+            warmup.getOrBuild(Model(i.toFloat(), listOf("WRAINA")), ::buildTile) { _, _ -> }
+        }
+
+        val cache = TileLayoutCache<Model>("bench", 4)
+        var coldNanos = 0L
+        var warmNanos = 0L
+        for (i in 0 until iterations) {
+            val model = Model(i.toFloat(), listOf("WRAINA"))
+            var start = System.nanoTime()
+            cache.getOrBuild(model, ::buildTile) { _, _ -> }
+            coldNanos += System.nanoTime() - start
+            start = System.nanoTime()
+            cache.getOrBuild(model.copy(), ::buildTile) { _, _ -> }
+            warmNanos += System.nanoTime() - start
+        }
+        println("Tile build cold: %.2f us, warm: %.2f us".format(coldNanos / 1000.0 / iterations, warmNanos / 1000.0 / iterations))
+        assertTrue(warmNanos < coldNanos)
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of HKWeather.
+ *
+ * Copyright (C) 2023. LoohpJames <jamesloohp@gmail.com>
+ * Copyright (C) 2023. Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.loohp.hkweatherwarnings.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.math.asin
+import kotlin.math.cos
+import kotlin.math.pow
+import kotlin.math.sin
+import kotlin.math.sqrt
+import kotlin.random.Random
+
+class StationIndexTest {
+
+    private data class Station(val id: Int, val lat: Double, val lng: Double)
+
+    private fun randomStations(random: Random, count: Int, spread: Double): List<Station> {
+        return (0 until count).map {
+            val lat = 22.35 + (random.nextDouble() - 0.5) * spread
+            val lng = 114.15 + (random.nextDouble() - 0.5) * spread
+            Station(it, lat, lng)
+        }
+    }
+
+    private fun index(stations: List<Station>): StationIndex<Station> {
+        val builder = StationIndex.builder<Station>()
+        for (station in stations) {
+            builder.add(station, station.lat, station.lng)
+        }
+        return builder.build()
+    }
+
+    private fun bruteForce(stations: List<Station>, lat: Double, lng: Double, k: Int, maxDistance: Double): List<Pair<Int, Double>> {
+        return stations
+            .map { it.id to StationIndex.findDistance(lat, lng, it.lat, it.lng) }
+            .filter { it.second <= maxDistance }
+            .sortedWith(compareBy({ it.second }, { it.first }))
+            .take(k)
+    }
+
+    private fun legacyDistance(lat1: Double, lng1: Double, lat2: Double, lng2: Double): Double {
+        val dLat = Math.toRadians(lat2 - lat1)
+        val dLng = Math.toRadians(lng2 - lng1)
+        val a = sin(dLat / 2).pow(2) + cos(Math.toRadians(lat1)) * cos(Math.toRadians(lat2)) * sin(dLng / 2).pow(2)
+        return 2 * asin(sqrt(a)) * StationIndex.EARTH_RADIUS_KM
+    }
+
+    @Test
+    fun nearestMatchesBruteForce() {
+        val random = Random(20231017)
+        for (round in 0 until 50) {
+            val stations = randomStations(random, 1 + random.nextInt(60), if (round % 5 == 0) 1.5 else 0.6)
+            val index = index(stations)
+            for (query in 0 until 2000) {
+                val lat = 22.35 + (random.nextDouble() - 0.5) * 1.2
+                val lng = 114.15 + (random.nextDouble() - 0.5) * 1.2
+                val expected = bruteForce(stations, lat, lng, 1, Double.POSITIVE_INFINITY).first()
+                val actual = index.nearest(lat, lng)
+                assertEquals(expected.first, actual.station.id)
+                assertEquals(expected.second, actual.distance, 1e-9)
+            }
+        }
+    }
+
+    @Test
+    fun kNearestWithCutoffMatchesBruteForce() {
+        val random = Random(8)
+        val stations = randomStations(random, 40, 0.8)
+        val index = index(stations)
+        for (query in 0 until 5000) {
+            val lat = 22.35 + (random.nextDouble() - 0.5) * 1.0
+            val lng = 114.15 + (random.nextDouble() - 0.5) * 1.0
+            val k = 1 + random.nextInt(5)
+            val maxDistance = random.nextDouble() * 30
+            val expected = bruteForce(stations, lat, lng, k, maxDistance)
+            val actual = index.nearest(lat, lng, k, maxDistance)
+            assertEquals(expected.map { it.first }, actual.map { it.station.id })
+        }
+    }
+
+    @Test
+    fun tiesResolveToLowestIndex() {
+        val stations = listOf(Station(0, 22.30, 114.10), Station(1, 22.30, 114.10), Station(2, 22.40, 114.20))
+        val index = index(stations)
+        assertEquals(0, index.nearest(22.30, 114.10).index)
+        assertEquals(listOf(0, 1), index.nearest(22.31, 114.10, 2, Double.POSITIVE_INFINITY).map { it.index })
+    }
+
+    @Test
+    fun respectsMaximumDistance() {
+        val index = index(listOf(Station(0, 22.30, 114.10)))
+        assertNull(index.nearest(23.50, 114.10, 100.0))
+        assertEquals(0, index.nearest(22.40, 114.10, 100.0).index)
+        assertTrue(index.nearest(22.30, 114.10, 0, Double.POSITIVE_INFINITY).isEmpty())
+    }
+
+    @Test
+    fun benchmarkAgainstLinearScan() {
+        val random = Random(42)
+        val stations = randomStations(random, 39, 0.5)
+        val index = index(stations)
+        val queries = (0 until 200000).map { 22.35 + (random.nextDouble() - 0.5) * 0.5 to 114.15 + (random.nextDouble() - 0.5) * 0.6 }
+
+        var checksum = 0L
+        repeat(2) {
+            for ((lat, lng) in queries) {
+                checksum += stations.stream().min(Comparator.comparing<Station, Double> { legacyDistance(lat, lng, it.lat, it.lng) }).get().id
+                checksum += index.nearest(lat, lng).station.id
+            }
+        }
+
+        var start = System.nanoTime()
+        var linear = 0L
+        for ((lat, lng) in queries) {
+            linear += stations.stream().min(Comparator.comparing<Station, Double> { legacyDistance(lat, lng, it.lat, it.lng) }).get().id
+        }
+        val linearNanos = System.nanoTime() - start
+
+        start = System.nanoTime()
+        var indexed = 0L
+        for ((lat, lng) in queries) {
+            indexed += index.nearest(lat, lng).station.id
+        }
+        val indexedNanos = System.nanoTime() - start
+
+        println("Nearest station over %d queries: linear scan %.2f us, grid index %.2f us (checksums %d, %d, %d)".format(queries.size, linearNanos / 1000.0 / queries.size, indexedNanos / 1000.0 / queries.size, checksum, linear, indexed))
+    }
+
+}